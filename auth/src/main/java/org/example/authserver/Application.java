@@ -2,11 +2,22 @@ package org.example.authserver;
 
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.services.HealthStatusManager;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.config.AppProperties;
 import org.example.authserver.service.zanzibar.AclFilterService;
 import org.example.authserver.service.AuthService;
+import org.example.authserver.service.AuthzGrpcService;
 import org.example.authserver.service.CacheLoaderService;
+import org.example.authserver.service.ChangelogService;
+import org.example.authserver.service.PeerAddressInterceptor;
+import org.example.authserver.service.RelationsService;
+import org.example.authserver.service.ShardRouter;
+import org.example.authserver.service.SlowCheckRecorder;
+import org.example.authserver.service.WarmupService;
+import org.example.authserver.service.zanzibar.Zanzibar;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -14,6 +25,7 @@ import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 import javax.annotation.PostConstruct;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @EnableConfigurationProperties
@@ -24,12 +36,24 @@ public class Application {
     private final AclFilterService aclFilterService;
     private final CacheLoaderService cacheLoaderService;
     private final AppProperties appProperties;
+    private final Zanzibar zanzibar;
+    private final SlowCheckRecorder slowCheckRecorder;
+    private final ChangelogService changelogService;
+    private final WarmupService warmupService;
+    private final RelationsService relationsService;
+    private final ShardRouter shardRouter;
     private final int grpcPort;
 
-    public Application(AclFilterService aclFilterService, CacheLoaderService cacheLoaderService, AppProperties appProperties, @Value("${grpc.port:8080}") int grpcPort) {
+    public Application(AclFilterService aclFilterService, CacheLoaderService cacheLoaderService, AppProperties appProperties, Zanzibar zanzibar, SlowCheckRecorder slowCheckRecorder, ChangelogService changelogService, WarmupService warmupService, RelationsService relationsService, ShardRouter shardRouter, @Value("${grpc.port:8080}") int grpcPort) {
         this.aclFilterService = aclFilterService;
         this.cacheLoaderService = cacheLoaderService;
         this.appProperties = appProperties;
+        this.zanzibar = zanzibar;
+        this.slowCheckRecorder = slowCheckRecorder;
+        this.changelogService = changelogService;
+        this.warmupService = warmupService;
+        this.relationsService = relationsService;
+        this.shardRouter = shardRouter;
         this.grpcPort = grpcPort;
     }
 
@@ -37,12 +61,27 @@ public class Application {
     public void start() throws Exception {
         cacheLoaderService.subscribe();
 
+        // the port opens right away, but health reports NOT_SERVING until warmup is done
+        HealthStatusManager health = new HealthStatusManager();
+        health.setStatus("", HealthCheckResponse.ServingStatus.NOT_SERVING);
+
         Server server = ServerBuilder.forPort(grpcPort)
                 .addService(new AuthService(aclFilterService, appProperties))
+                .addService(ServerInterceptors.intercept(
+                        new AuthzGrpcService(zanzibar, appProperties, slowCheckRecorder, changelogService, cacheLoaderService, relationsService, shardRouter),
+                        new PeerAddressInterceptor()))
+                .addService(health.getHealthService())
                 .build();
 
         server.start();
         log.info("Started. Listen post: {}}", grpcPort);
+
+        CompletableFuture.runAsync(warmupService::warmup)
+                .whenComplete((r, e) -> {
+                    if (e != null) log.warn("Warmup failed: {}", e.getMessage());
+                    health.setStatus("", HealthCheckResponse.ServingStatus.SERVING);
+                    log.info("Serving.");
+                });
     }
 
     public static void main(String[] args) {
@@ -9,6 +9,21 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @Setter
 public class AppProperties {
     private AppDatabase database;
+    private EvaluationStrategy evaluationStrategy = EvaluationStrategy.ITERATIVE;
+    private int jdbcFetchSize = 1000;
+    private BudgetConfig budget = new BudgetConfig();
     private boolean testMode;
     private UserRelationsConfig userRelationsCache;
+    private FlightRecorderConfig flightRecorder = new FlightRecorderConfig();
+    private BatchConfig batch = new BatchConfig();
+    private WatchConfig watch = new WatchConfig();
+    private ConsistencyConfig consistency = new ConsistencyConfig();
+    private SnapshotConfig snapshot = new SnapshotConfig();
+    private WarmupConfig warmup = new WarmupConfig();
+    private MappingConfig mapping = new MappingConfig();
+    private TagsConfig tags = new TagsConfig();
+    private ShardConfig shard = new ShardConfig();
+    private InvalidationConfig invalidation = new InvalidationConfig();
+    private NegativeCacheConfig negativeCache = new NegativeCacheConfig();
+    private TenantConfig tenant = new TenantConfig();
 }
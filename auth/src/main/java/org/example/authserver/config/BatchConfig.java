@@ -0,0 +1,11 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BatchConfig {
+
+    private int maxItems = 1000;
+}
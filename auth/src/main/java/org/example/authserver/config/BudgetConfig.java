@@ -0,0 +1,29 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Limits of a single check evaluation, 0 for no limit.
+ */
+@Getter
+@Setter
+public class BudgetConfig {
+
+    public enum OnExceeded {
+        /**
+         * The check is denied and flagged as exceeded.
+         */
+        DENY,
+        /**
+         * The check fails, callers see an error instead of an answer.
+         */
+        FAIL
+    }
+
+    private int maxDepth = 32;
+    private int maxTuples = 100_000;
+    private int maxQueries = 200;
+    private long timeoutMs = 2000;
+    private OnExceeded onExceeded = OnExceeded.DENY;
+}
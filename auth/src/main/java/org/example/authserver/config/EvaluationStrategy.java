@@ -0,0 +1,12 @@
+package org.example.authserver.config;
+
+public enum EvaluationStrategy {
+    /**
+     * One tuple query per userset depth, issued while walking the graph.
+     */
+    ITERATIVE,
+    /**
+     * All userset tuples reachable from the checked objects in one recursive query (postgres only).
+     */
+    RECURSIVE_CTE
+}
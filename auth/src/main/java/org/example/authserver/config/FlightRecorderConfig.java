@@ -0,0 +1,13 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class FlightRecorderConfig {
+
+    private boolean enabled = true;
+    private long thresholdMs = 500;
+    private int capacity = 256;
+}
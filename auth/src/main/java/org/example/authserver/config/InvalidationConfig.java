@@ -0,0 +1,30 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class InvalidationConfig {
+
+    public enum Transport {
+        REDIS,
+        /**
+         * Postgres LISTEN/NOTIFY, the listener holds its own connection outside the pool.
+         */
+        POSTGRES,
+        /**
+         * Single JVM only, for tests and local runs.
+         */
+        IN_MEMORY
+    }
+
+    private Transport transport = Transport.REDIS;
+    /**
+     * Identical invalidations received within the window are delivered once, 0 to deliver right away.
+     */
+    private long coalesceMs = 50;
+    private int coalesceMaxSize = 1000;
+    private long minBackoffMs = 1000;
+    private long maxBackoffMs = 30000;
+}
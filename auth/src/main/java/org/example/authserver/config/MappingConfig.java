@@ -0,0 +1,20 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class MappingConfig {
+
+    /**
+     * Full reload as a safety net; changes are normally applied from the changelog.
+     * With 0 mappings are only loaded on first use and on changelog gaps.
+     */
+    private int resyncIntervalMin = 60;
+    private long gapResyncDelayMs = 1000;
+    /**
+     * context_extensions key whose value selects mappings by {@code MappingEntity.service}.
+     */
+    private String routeHintKey = "namespace_object";
+}
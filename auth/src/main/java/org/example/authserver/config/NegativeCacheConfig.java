@@ -0,0 +1,21 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Fast denies for principals without tuples and for recently denied checks.
+ */
+@Getter
+@Setter
+public class NegativeCacheConfig {
+    private boolean enabled = true;
+    private long ttlMs = 5000;
+    /**
+     * Principals with cached denies, used when tenants are disabled, {@link TenantConfig.Limits} otherwise.
+     */
+    private long maxPrincipals = 100_000;
+    private long bloomExpectedPrincipals = 1_000_000;
+    private double bloomFpp = 0.01;
+    private long rebuildIntervalMin = 60;
+}
@@ -0,0 +1,21 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ShardConfig {
+
+    private boolean enabled;
+    /**
+     * host:grpcPort of this node, has to be one of {@link #nodes}.
+     */
+    private String self;
+    private List<String> nodes = new ArrayList<>();
+    private int virtualNodes = 128;
+    private long forwardTimeoutMs = 500;
+}
@@ -0,0 +1,17 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SnapshotConfig {
+
+    private boolean enabled = false;
+    private String directory = "snapshot";
+    private long intervalSec = 60;
+    /**
+     * Older snapshots are ignored on startup, 0 for no limit.
+     */
+    private long maxAgeSec = 600;
+}
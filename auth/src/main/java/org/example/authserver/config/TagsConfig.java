@@ -0,0 +1,39 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class TagsConfig {
+
+    public enum Mode {
+        /**
+         * Every relation found while checking, the whole cached set for some users.
+         */
+        ALL,
+        /**
+         * Only relations on the namespace:object of the matched mappings.
+         */
+        MAPPING,
+        NONE
+    }
+
+    public enum Encoding {
+        /**
+         * {@code ns:obj#r1,ns:obj#r2}
+         */
+        CSV,
+        /**
+         * {@code ns:obj#r1|r2}, one entry per object.
+         */
+        COMPACT
+    }
+
+    private Mode mode = Mode.MAPPING;
+    private Encoding encoding = Encoding.CSV;
+    /**
+     * Tags above the cap are dropped and the total is reported, 0 for no cap.
+     */
+    private int maxTags = 256;
+}
@@ -0,0 +1,72 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per tenant admission control on the check path, the tenant is the realm of the token issuer.
+ */
+@Getter
+@Setter
+public class TenantConfig {
+
+    public enum OverLimit {
+        /**
+         * Waits up to {@code queueTimeoutMs} for a slot, then sheds.
+         */
+        QUEUE,
+        /**
+         * Rejects right away, Envoy sees 429.
+         */
+        SHED,
+        /**
+         * Allows without evaluating, for tenants whose availability matters more than their access control.
+         */
+        FAIL_OPEN
+    }
+
+    @Getter
+    @Setter
+    public static class Limits {
+        /**
+         * Checks evaluated at once, 0 for no limit.
+         */
+        private int maxConcurrent = 64;
+        /**
+         * Checks waiting for a slot in {@link OverLimit#QUEUE} mode, the rest is shed.
+         */
+        private int maxQueued = 128;
+        /**
+         * Checks per second, 0 for no limit.
+         */
+        private double ratePerSec = 0;
+        /**
+         * Principals with cached denies, see {@link NegativeCacheConfig}.
+         */
+        private long decisionCacheSize = 10_000;
+        private OverLimit overLimit = OverLimit.QUEUE;
+    }
+
+    private boolean enabled = true;
+    private long queueTimeoutMs = 100;
+    /**
+     * Tenants tracked separately besides those in {@code overrides}, any other tenant shares one bucket with the
+     * default limits. Tenant names come from unverified tokens, they get a bucket only when listed.
+     */
+    private Set<String> tenants = new HashSet<>();
+    private Limits defaults = new Limits();
+    private Map<String, Limits> overrides = new HashMap<>();
+
+    public boolean isListed(String tenant) {
+        return tenants.contains(tenant) || overrides.containsKey(tenant);
+    }
+
+    public Limits limits(String tenant) {
+        return overrides.getOrDefault(tenant, defaults);
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class WarmupConfig {
+
+    private boolean enabled = true;
+    private int hotPrincipals = 100;
+    private int syntheticChecks = 2000;
+}
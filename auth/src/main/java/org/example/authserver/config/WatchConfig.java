@@ -0,0 +1,14 @@
+package org.example.authserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class WatchConfig {
+
+    private long pollIntervalMs = 1000;
+    private int pageSize = 500;
+    private long settleMs = 1000;
+    private long gapTimeoutMs = 60000;
+}
@@ -1,13 +1,21 @@
 package org.example.authserver.controller;
 
 import authserver.acl.Acl;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Stopwatch;
+import org.example.authserver.entity.AclFilter;
 import org.example.authserver.entity.AclsRequestDTO;
+import org.example.authserver.entity.ConsistencyToken;
+import org.example.authserver.entity.PageDTO;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.repo.AclRepository;
 import org.example.authserver.repo.SubscriptionRepository;
+import org.example.authserver.service.ChangelogService;
+import org.example.authserver.service.DenyCache;
+import org.example.authserver.service.PrincipalFilter;
 import org.example.authserver.service.UserRelationsCacheService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.Set;
@@ -21,33 +29,64 @@ public class AclController {
     private final AclRepository repository;
     private final SubscriptionRepository subscriptionRepository;
     private final UserRelationsCacheService userRelationCacheService;
+    private final ChangelogService changelogService;
+    private final ObjectMapper objectMapper;
+    private final PrincipalFilter principalFilter;
+    private final DenyCache denyCache;
 
-    public AclController(AclRepository repository, SubscriptionRepository subscriptionRepository, UserRelationsCacheService userRelationCacheService) {
+    public AclController(AclRepository repository, SubscriptionRepository subscriptionRepository, UserRelationsCacheService userRelationCacheService, ChangelogService changelogService, ObjectMapper objectMapper, PrincipalFilter principalFilter, DenyCache denyCache) {
         this.repository = repository;
         this.subscriptionRepository = subscriptionRepository;
         this.userRelationCacheService = userRelationCacheService;
+        this.changelogService = changelogService;
+        this.objectMapper = objectMapper;
+        this.principalFilter = principalFilter;
+        this.denyCache = denyCache;
     }
 
+    /**
+     * Loads every tuple at once, use {@code /acl/page} or {@code /acl/export} on large datasets.
+     */
+    @Deprecated
     @GetMapping("/list")
     public Set<Acl> listAcl(){
         return repository.findAll();
     }
 
+    @GetMapping("/page")
+    public PageDTO<Acl> pageAcl(AclFilter filter,
+                                @RequestParam(required = false) String pageToken,
+                                @RequestParam(defaultValue = "100") int pageSize){
+        return KeysetPages.page((after, limit) -> repository.findPage(filter, after, limit), acl -> acl.getId().toString(), pageToken, pageSize);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public StreamingResponseBody exportAcl(AclFilter filter){
+        log.info("Exporting ACLs: {}", filter);
+        return KeysetPages.export(objectMapper, (after, limit) -> repository.findPage(filter, after, limit), acl -> acl.getId().toString());
+    }
+
     @PostMapping("/create")
-    public void createAcl(@Valid @RequestBody Acl acl){
+    public ConsistencyToken createAcl(@Valid @RequestBody Acl acl){
         Stopwatch stopwatch = Stopwatch.createStarted();
         log.info("Creating ACL: {}", acl);
         repository.save(acl);
+        // other nodes catch up through the changelog, this one answers the writer's next check right away
+        principalFilter.add(acl);
+        denyCache.invalidate(acl);
         subscriptionRepository.publish(acl);
         userRelationCacheService.updateAsync(acl.getUser());
         log.info("Created ACL: {}, time {}ms", acl, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return new ConsistencyToken(changelogService.getRevision());
     }
 
     @PostMapping("/create_multiple")
-    public void createMultiAcl(@Valid @RequestBody AclsRequestDTO multiAcl){
+    public ConsistencyToken createMultiAcl(@Valid @RequestBody AclsRequestDTO multiAcl){
+        ConsistencyToken token = new ConsistencyToken(changelogService.getRevision());
         for (Acl acl : multiAcl.getAcls()){
-            createAcl(acl);
+            token = createAcl(acl);
         }
+        return token;
     }
 
 
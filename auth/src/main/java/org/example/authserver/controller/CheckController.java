@@ -0,0 +1,55 @@
+package org.example.authserver.controller;
+
+import com.google.common.base.Stopwatch;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.BatchCheckItemResult;
+import org.example.authserver.entity.BatchCheckRequestDTO;
+import org.example.authserver.service.CacheLoaderService;
+import org.example.authserver.service.SlowCheckRecorder;
+import org.example.authserver.service.model.RequestCache;
+import org.example.authserver.service.zanzibar.Zanzibar;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@RestController
+@RequestMapping("/check")
+public class CheckController {
+
+    private final Zanzibar zanzibar;
+    private final AppProperties appProperties;
+    private final SlowCheckRecorder slowCheckRecorder;
+    private final CacheLoaderService cacheLoaderService;
+
+    public CheckController(Zanzibar zanzibar, AppProperties appProperties, SlowCheckRecorder slowCheckRecorder, CacheLoaderService cacheLoaderService) {
+        this.zanzibar = zanzibar;
+        this.appProperties = appProperties;
+        this.slowCheckRecorder = slowCheckRecorder;
+        this.cacheLoaderService = cacheLoaderService;
+    }
+
+    @PostMapping("/batch")
+    public List<BatchCheckItemResult> checkBatch(@Valid @RequestBody BatchCheckRequestDTO dto){
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        int maxItems = appProperties.getBatch().getMaxItems();
+        if (dto.getItems().size() > maxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("batch of %s items exceeds the limit of %s", dto.getItems().size(), maxItems));
+        }
+
+        RequestCache requestCache = new RequestCache().minRevision(cacheLoaderService.ensureRevision(dto.getMinRevision()));
+        requestCache.getTrace().describe(dto.getPrincipal(), "batch check [%s items]", dto.getItems().size());
+        List<BatchCheckItemResult> results = zanzibar.checkBatch(dto.getPrincipal(), dto.getItems(), requestCache);
+        slowCheckRecorder.record(requestCache.getTrace().finish(results.stream().anyMatch(BatchCheckItemResult::isAllowed)));
+
+        log.info("batch check: {} items @ {}, {}ms", dto.getItems().size(), dto.getPrincipal(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return results;
+    }
+}
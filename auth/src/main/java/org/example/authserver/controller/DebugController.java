@@ -3,12 +3,16 @@ package org.example.authserver.controller;
 import com.google.common.base.Stopwatch;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.entity.CheckResult;
+import org.example.authserver.entity.ExplainResult;
 import org.example.authserver.service.RelationsService;
+import org.example.authserver.service.SlowCheckRecorder;
+import org.example.authserver.service.model.CheckTrace;
 import org.example.authserver.service.model.RequestCache;
 import org.example.authserver.service.zanzibar.Zanzibar;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletResponse;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -19,17 +23,22 @@ public class DebugController {
 
     private final RelationsService relationsService;
     private final Zanzibar zanzibar;
+    private final SlowCheckRecorder slowCheckRecorder;
 
-    public DebugController(RelationsService relationsService, Zanzibar zanzibar) {
+    public DebugController(RelationsService relationsService, Zanzibar zanzibar, SlowCheckRecorder slowCheckRecorder) {
         this.relationsService = relationsService;
         this.zanzibar = zanzibar;
+        this.slowCheckRecorder = slowCheckRecorder;
     }
 
     @GetMapping("/relations")
     public Set<String> getRelations(@RequestParam String namespace, @RequestParam String object, @RequestParam String principal){
         log.info("get relations: {}:{} @ {}", namespace, object, principal);
         Stopwatch stopwatch = Stopwatch.createStarted();
-        Set<String> relations = relationsService.getRelations(namespace, object, principal, new RequestCache());
+        RequestCache requestCache = new RequestCache();
+        requestCache.getTrace().describe(principal, "relations %s:%s", namespace, object);
+        Set<String> relations = relationsService.getRelations(namespace, object, principal, requestCache);
+        slowCheckRecorder.record(requestCache.getTrace().finish(!relations.isEmpty()));
         log.info("get relations finished in {}ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return relations;
     }
@@ -38,9 +47,31 @@ public class DebugController {
     public boolean test(@RequestParam String namespace, @RequestParam String object, @RequestParam String relation, @RequestParam String principal, HttpServletResponse response){
         Stopwatch stopwatch = Stopwatch.createStarted();
 
-        CheckResult result = zanzibar.check(namespace, object, relation, principal, new RequestCache());
+        RequestCache requestCache = new RequestCache();
+        requestCache.getTrace().describe(principal, "check %s:%s#%s", namespace, object, relation);
+        CheckResult result = zanzibar.check(namespace, object, relation, principal, requestCache);
+        slowCheckRecorder.record(requestCache.getTrace().finish(result.isResult()));
         response.addHeader("X-ALLOWED-TAGS", String.join(",", result.getTags()));
         log.info("get relations: {}:{} @ {}, {}ms", namespace, object, principal, stopwatch.elapsed(TimeUnit.MILLISECONDS));
         return result.isResult();
     }
+
+    @GetMapping("/explain")
+    public ExplainResult explain(@RequestParam String namespace, @RequestParam String object, @RequestParam String relation, @RequestParam String principal){
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        ExplainResult result = zanzibar.explain(namespace, object, relation, principal);
+        log.info("explain: {}:{}#{} @ {}, {}ms", namespace, object, relation, principal, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return result;
+    }
+
+    @GetMapping("/slow-checks")
+    public List<CheckTrace> getSlowChecks(){
+        return slowCheckRecorder.getRecent();
+    }
+
+    @DeleteMapping("/slow-checks")
+    public void clearSlowChecks(){
+        log.info("Clear slow checks");
+        slowCheckRecorder.clear();
+    }
 }
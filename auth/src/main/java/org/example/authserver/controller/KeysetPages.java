@@ -0,0 +1,56 @@
+package org.example.authserver.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.authserver.entity.PageDTO;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keyset paging over id-ordered queries, shared by the list endpoints.
+ */
+class KeysetPages {
+
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int EXPORT_CHUNK_SIZE = 1000;
+
+    private KeysetPages() {
+    }
+
+    /**
+     * @param query (afterId, limit) -> items ordered by id
+     */
+    static <T> PageDTO<T> page(BiFunction<String, Integer, List<T>> query, Function<T, String> idOf, String pageToken, int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        List<T> items = query.apply(pageToken, size + 1);
+        if (items.size() > size) {
+            List<T> page = items.subList(0, size);
+            return new PageDTO<>(page, idOf.apply(page.get(size - 1)));
+        }
+        return new PageDTO<>(items, null);
+    }
+
+    /**
+     * Writes every item as one json line, reading a chunk at a time so memory stays flat and
+     * no connection is held between chunks.
+     */
+    static <T> StreamingResponseBody export(ObjectMapper objectMapper, BiFunction<String, Integer, List<T>> query, Function<T, String> idOf) {
+        return out -> {
+            String after = null;
+            List<T> chunk;
+            do {
+                chunk = query.apply(after, EXPORT_CHUNK_SIZE);
+                for (T item : chunk) {
+                    out.write(objectMapper.writeValueAsBytes(item));
+                    out.write('\n');
+                }
+                if (!chunk.isEmpty()) {
+                    after = idOf.apply(chunk.get(chunk.size() - 1));
+                }
+                out.flush();
+            } while (chunk.size() == EXPORT_CHUNK_SIZE);
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.authserver.controller;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.logging.log4j.util.Strings;
+import org.example.authserver.entity.LookupPageDTO;
+import org.example.authserver.service.zanzibar.Zanzibar;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@RestController
+@RequestMapping("/lookup")
+public class LookupController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_CURSOR_OBJECTS = 10_000; // larger walks are re-run from the last object per page
+    private static final int MAX_CACHED_OBJECTS = 200_000; // across all cursors
+    private static final int CURSOR_TTL_MIN = 5;
+
+    private final Zanzibar zanzibar;
+    private final Cache<String, List<String>> cursors = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_OBJECTS)
+            .weigher((String key, List<String> objects) -> objects.size())
+            .expireAfterAccess(CURSOR_TTL_MIN, TimeUnit.MINUTES)
+            .build();
+
+    public LookupController(Zanzibar zanzibar) {
+        this.zanzibar = zanzibar;
+    }
+
+    /**
+     * Objects are returned in lexical order. The walk runs once per lookup, its sorted result is kept
+     * for later pages under the cursor id of the page token ({@code <cursor id>:<last object id>}) together with
+     * the lookup it answers; when the cursor has expired, belongs to another lookup or its walk was too large to
+     * keep, the walk runs again from the last object id.
+     */
+    @GetMapping("/resources")
+    public LookupPageDTO lookupResources(@RequestParam String namespace, @RequestParam String relation, @RequestParam String principal,
+                                         @RequestParam(required = false) String pageToken,
+                                         @RequestParam(defaultValue = "100") int pageSize) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+
+        String cursorId = null;
+        String after = null;
+        if (Strings.isNotEmpty(pageToken)) {
+            int separator = pageToken.indexOf(':');
+            cursorId = separator < 0 ? null : pageToken.substring(0, separator);
+            after = pageToken.substring(separator + 1);
+        }
+
+        List<String> objects = cursorId == null ? null : cursors.getIfPresent(cursorKey(namespace, relation, principal, cursorId));
+        if (objects == null) {
+            String from = after;
+            objects = zanzibar.lookupResources(namespace, relation, principal)
+                    .filter(object -> from == null || object.compareTo(from) > 0)
+                    .sort()
+                    .collectList()
+                    .block();
+            after = null;
+            cursorId = UUID.randomUUID().toString();
+            if (objects.size() > size && objects.size() <= MAX_CURSOR_OBJECTS) {
+                cursors.put(cursorKey(namespace, relation, principal, cursorId), objects);
+            }
+        }
+
+        int start = 0;
+        if (after != null) {
+            int position = Collections.binarySearch(objects, after);
+            start = position < 0 ? -position - 1 : position + 1;
+        }
+        int end = Math.min(start + size, objects.size());
+
+        LookupPageDTO page = new LookupPageDTO();
+        page.setItems(new ArrayList<>(objects.subList(start, end)));
+        if (end < objects.size()) {
+            page.setNextPageToken(cursorId + ":" + objects.get(end - 1));
+        } else {
+            cursors.invalidate(cursorKey(namespace, relation, principal, cursorId));
+        }
+
+        log.info("lookup {}#{}@{}: {} items, {}ms", namespace, relation, principal, page.getItems().size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return page;
+    }
+
+    private static String cursorKey(String namespace, String relation, String principal, String cursorId) {
+        return String.format("%s#%s@%s/%s", namespace, relation, principal, cursorId);
+    }
+
+    /**
+     * Unordered, emitted as soon as each depth of the walk resolves.
+     */
+    @GetMapping(value = "/resources/stream", produces = "application/x-ndjson")
+    public Flux<String> streamResources(@RequestParam String namespace, @RequestParam String relation, @RequestParam String principal) {
+        return zanzibar.lookupResources(namespace, relation, principal);
+    }
+
+    /**
+     * A principal reachable through several usersets may appear more than once.
+     */
+    @GetMapping(value = "/subjects/stream", produces = "application/x-ndjson")
+    public Flux<String> streamSubjects(@RequestParam String namespace, @RequestParam String object, @RequestParam String relation) {
+        return zanzibar.lookupSubjects(namespace, object, relation);
+    }
+}
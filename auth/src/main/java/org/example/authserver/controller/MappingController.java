@@ -1,10 +1,15 @@
 package org.example.authserver.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.entity.MappingEntity;
 import org.example.authserver.entity.MappingEntityList;
+import org.example.authserver.entity.PageDTO;
 import org.example.authserver.repo.pgsql.MappingRepository;
+import org.example.authserver.service.MappingWriteService;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -16,21 +21,50 @@ import java.util.UUID;
 public class MappingController {
 
     private final MappingRepository repository;
+    private final MappingWriteService writeService;
+    private final ObjectMapper objectMapper;
 
-    public MappingController(MappingRepository repository) {
+    public MappingController(MappingRepository repository, MappingWriteService writeService, ObjectMapper objectMapper) {
         this.repository = repository;
+        this.writeService = writeService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Loads every mapping at once, use {@code /mapping/page} or {@code /mapping/export} on large tables.
+     */
+    @Deprecated
     @GetMapping("/list")
     public List<MappingEntity> listAcl(){
         return repository.findAll();
     }
 
+    @GetMapping("/page")
+    public PageDTO<MappingEntity> pageMappings(@RequestParam(required = false) String namespace,
+                                               @RequestParam(required = false) String pageToken,
+                                               @RequestParam(defaultValue = "100") int pageSize){
+        return KeysetPages.page((after, limit) -> findPage(namespace, after, limit), MappingEntity::getId, pageToken, pageSize);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public StreamingResponseBody exportMappings(@RequestParam(required = false) String namespace){
+        log.info("Exporting Mappings: {}", namespace);
+        return KeysetPages.export(objectMapper, (after, limit) -> findPage(namespace, after, limit), MappingEntity::getId);
+    }
+
+    private List<MappingEntity> findPage(String namespace, String afterId, int limit) {
+        String after = afterId != null ? afterId : "";
+        PageRequest page = PageRequest.of(0, limit);
+        return namespace == null
+                ? repository.findByIdGreaterThanOrderByIdAsc(after, page)
+                : repository.findByNamespaceAndIdGreaterThanOrderByIdAsc(namespace, after, page);
+    }
+
     @PostMapping("/create")
     public void addMapping(@Valid @RequestBody MappingEntity dto){
         log.info("Created Mapping: {}", dto);
         dto.setId(UUID.randomUUID().toString());
-        repository.save(dto);
+        writeService.save(dto);
     }
 
     @PostMapping("/create-many")
@@ -43,7 +77,7 @@ public class MappingController {
     @DeleteMapping("/clear")
     public void clearMappings(){
         log.info("Delete Mappings");
-        repository.deleteAll();
+        writeService.deleteAll();
     }
 
 //    @DeleteMapping("/delete/{id}")
@@ -56,7 +90,7 @@ public class MappingController {
     @DeleteMapping("/delete/{id}")
     public void deleteMapping(@PathVariable String id){
         log.info("Delete Mapping: {}", id);
-        repository.deleteById(id);
+        writeService.deleteById(id);
     }
 
 }
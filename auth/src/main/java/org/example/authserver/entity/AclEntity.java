@@ -7,9 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.java.Log;
 
-import javax.persistence.Column;
-import javax.persistence.Entity;
-import javax.persistence.Id;
+import javax.persistence.*;
 import java.io.Serializable;
 
 @Log
@@ -18,6 +16,11 @@ import java.io.Serializable;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity(name = "acls")
+@Table(name = "acls", indexes = {
+        @Index(name = "acls_nsobject_usr_idx", columnList = "nsobject, usr"),
+        @Index(name = "acls_usr_idx", columnList = "usr"),
+        @Index(name = "acls_userset_idx", columnList = "usersetNamespace, usersetObject")
+})
 public class AclEntity implements Serializable {
 
     @Id
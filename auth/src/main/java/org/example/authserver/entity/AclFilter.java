@@ -0,0 +1,20 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional equality filters for listing tuples; null fields match everything.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AclFilter {
+    private String namespace;
+    private String object;
+    private String relation;
+    private String principal;
+}
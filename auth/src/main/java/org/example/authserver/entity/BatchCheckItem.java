@@ -0,0 +1,23 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCheckItem {
+
+    @NotNull
+    private String namespace;
+    @NotNull
+    private String object;
+    @NotNull
+    private String relation;
+
+}
@@ -0,0 +1,22 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCheckItemResult {
+
+    private String namespace;
+    private String object;
+    private String relation;
+    private boolean allowed;
+
+    public static BatchCheckItemResult of(BatchCheckItem item, boolean allowed) {
+        return new BatchCheckItemResult(item.getNamespace(), item.getObject(), item.getRelation(), allowed);
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCheckRequestDTO {
+
+    @NotNull
+    private String principal;
+    @Valid
+    @NotNull
+    private List<BatchCheckItem> items;
+    /**
+     * Consistency token from a previous write, 0 for no requirement.
+     */
+    private long minRevision;
+
+}
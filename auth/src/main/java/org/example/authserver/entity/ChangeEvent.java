@@ -0,0 +1,62 @@
+package org.example.authserver.entity;
+
+import authserver.acl.Acl;
+import authserver.acl.AclRelationConfig;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+
+    /**
+     * {@code RESYNC} is never stored, it is sent to watchers when a skipped revision turns up late.
+     */
+    public enum Type { TUPLE, CONFIG, MAPPING, RESYNC }
+
+    public enum Operation { WRITE, DELETE }
+
+    private long revision;
+    private Type type;
+    private Operation operation;
+    private String id;
+    /**
+     * Acl expression for tuples, namespace for configs, method and path for mappings.
+     */
+    private String key;
+    private long timestamp;
+
+    public static ChangeEvent of(Acl acl, Operation operation) {
+        String user = acl.hasUserset()
+                ? String.format("%s:%s#%s", acl.getUsersetNamespace(), acl.getUsersetObject(), acl.getUsersetRelation())
+                : acl.getUser();
+        return ChangeEvent.builder()
+                .type(Type.TUPLE)
+                .operation(operation)
+                .id(acl.getId().toString())
+                .key(String.format("%s@%s", acl.getTag(), user))
+                .build();
+    }
+
+    public static ChangeEvent of(AclRelationConfig config, Operation operation) {
+        return ChangeEvent.builder()
+                .type(Type.CONFIG)
+                .operation(operation)
+                .id(config.getId().toString())
+                .key(config.getNamespace())
+                .build();
+    }
+
+    public static ChangeEvent of(MappingEntity mapping, Operation operation) {
+        return ChangeEvent.builder()
+                .type(Type.MAPPING)
+                .operation(operation)
+                .id(mapping.getId())
+                .key(String.format("%s %s", mapping.getMethod(), mapping.getPath()))
+                .build();
+    }
+}
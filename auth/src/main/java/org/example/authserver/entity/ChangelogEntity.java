@@ -0,0 +1,39 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "changelog")
+public class ChangelogEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long revision;
+    @Enumerated(EnumType.STRING)
+    private ChangeEvent.Type type;
+    @Enumerated(EnumType.STRING)
+    private ChangeEvent.Operation operation;
+    private String entityId;
+    private String entityKey;
+    @Builder.Default
+    private Long created = System.currentTimeMillis();
+
+    public ChangeEvent toChangeEvent() {
+        return ChangeEvent.builder()
+                .revision(revision)
+                .type(type)
+                .operation(operation)
+                .id(entityId)
+                .key(entityKey)
+                .timestamp(created)
+                .build();
+    }
+}
@@ -18,6 +18,19 @@ public class CheckResult {
     @Builder.Default
     private boolean jwtPresent = true;
     private boolean result;
+    /**
+     * Denied because evaluation ran out of its budget, not because the relation is missing.
+     */
+    private boolean budgetExceeded;
+    /**
+     * Not evaluated, the tenant is over its admission limits.
+     */
+    private boolean overLimit;
     @Builder.Default
     private Collection<String> tags = new HashSet<>();
+    /**
+     * namespace:object of the matched mappings.
+     */
+    @Builder.Default
+    private Collection<String> matchedObjects = new HashSet<>();
 }
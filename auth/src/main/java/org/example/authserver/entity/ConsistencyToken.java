@@ -0,0 +1,20 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Changelog revision at or after a write. Pass it back on checks to read at least that fresh.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsistencyToken {
+
+    public static final String HEADER = "x-authz-revision";
+
+    private long revision;
+}
@@ -0,0 +1,21 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.authserver.service.model.ExplainNode;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExplainResult {
+    private boolean result;
+    @Builder.Default
+    private Collection<String> tags = new HashSet<>();
+    private ExplainNode plan;
+}
@@ -0,0 +1,20 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LookupPageDTO {
+
+    @Builder.Default
+    private List<String> items = new ArrayList<>();
+    private String nextPageToken;
+}
@@ -41,6 +41,10 @@ public class MappingEntity implements Serializable {
 
     private String namespace;
     private String object;
+    /**
+     * Route hint this mapping belongs to, matched against Envoy context_extensions; null for any route.
+     */
+    private String service;
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,20 @@
+package org.example.authserver.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDTO<T> {
+
+    private List<T> items = new ArrayList<>();
+    /**
+     * Id of the last item, pass it back to get the next page; null on the last page.
+     */
+    private String nextPageToken;
+}
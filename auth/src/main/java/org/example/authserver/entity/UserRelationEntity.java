@@ -35,4 +35,5 @@ public class UserRelationEntity implements Serializable {
     private Long updated = System.currentTimeMillis();
 
     private Long maxAclUpdated;
+    private Long revision;
 }
@@ -1,9 +1,11 @@
 package org.example.authserver.repo;
 
 import authserver.acl.Acl;
+import org.example.authserver.entity.AclFilter;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface AclRepository {
 
@@ -20,9 +22,24 @@ public interface AclRepository {
     Set<Acl> findAllByPrincipalAndNsObjectIn(String principal, List<String> nsObjects);
     Set<Acl> findAllByPrincipal(String principal);
     Set<Acl> findAllByNsObjectIn(List<String> nsObjects);
+    Set<Acl> findAllByUsersetIn(List<String> usersetNsObjects);
+    /**
+     * Userset tuples of the given objects and, transitively, of the objects their usersets point to.
+     */
+    Set<Acl> findUsersetClosure(List<String> nsObjects);
+    /**
+     * @param afterId keyset position, null for the first page
+     * @return up to {@code size} tuples ordered by id
+     */
+    List<Acl> findPage(AclFilter filter, String afterId, int size);
 
     Set<String> findAllEndUsers();
 
+    /**
+     * Streams every distinct principal having at least one direct tuple.
+     */
+    void forEachPrincipal(Consumer<String> consumer);
+
     Set<String> findAllNamespaces();
 
     Set<String> findAllObjects();
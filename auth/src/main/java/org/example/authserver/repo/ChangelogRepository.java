@@ -0,0 +1,25 @@
+package org.example.authserver.repo;
+
+import org.example.authserver.entity.ChangeEvent;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface ChangelogRepository {
+
+    /**
+     * @return revision assigned to the event
+     */
+    long append(ChangeEvent event);
+
+    List<ChangeEvent> findAllAfter(long revision, int limit);
+
+    List<ChangeEvent> findAllIn(List<Long> revisions);
+
+    long findMaxRevision();
+
+    /**
+     * Revisions appended by this instance, as a hint to readers tailing the log.
+     */
+    Flux<Long> appended();
+}
@@ -2,10 +2,16 @@ package org.example.authserver.repo;
 
 import authserver.acl.Acl;
 import authserver.acl.AclRelationConfig;
+import org.example.authserver.repo.invalidation.InvalidationBus;
 import reactor.core.publisher.Flux;
 
 public interface SubscriptionRepository {
 
+    /**
+     * Emitted instead of an id when changes may have been missed.
+     */
+    String RESYNC = InvalidationBus.RESYNC;
+
     void publish(Acl acl);
 
     void publish(AclRelationConfig config);
@@ -4,74 +4,40 @@ import authserver.acl.Acl;
 import authserver.acl.AclRelationConfig;
 import lombok.extern.slf4j.Slf4j;
 
+import org.example.authserver.repo.invalidation.InvalidationBus;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPubSub;
-
-import javax.annotation.Nullable;
 
 @Slf4j
 @Repository
 public class SubscriptionRepositoryImpl implements SubscriptionRepository {
 
-    private static final String PUBSUB_ACL = "pubsub_acl";
-    private static final String PUBSUB_CONFIG = "pubsub_config";
+    private static final String TOPIC_ACL = "acl";
+    private static final String TOPIC_CONFIG = "config";
 
-    private final JedisPool jedis;
+    private final InvalidationBus bus;
 
-    public SubscriptionRepositoryImpl(@Nullable JedisPool jedis) {
-        this.jedis = jedis;
+    public SubscriptionRepositoryImpl(InvalidationBus bus) {
+        this.bus = bus;
     }
 
     @Override
     public void publish(Acl acl) {
-        if (jedis == null) return;
-        Jedis conn = jedis.getResource();
-        conn.publish("pubsub_acl", acl.getId().toString());
-        conn.close();
+        bus.publish(TOPIC_ACL, acl.getId().toString());
     }
 
     @Override
     public void publish(AclRelationConfig config) {
-        if (jedis == null) return;
-        Jedis conn = jedis.getResource();
-        conn.publish("pubsub_config", config.getId().toString());
-        conn.close();
+        bus.publish(TOPIC_CONFIG, config.getId().toString());
     }
 
     @Override
     public Flux<String> subscribeAcl() {
-        if (jedis == null) Flux.empty();
-        return Flux.create(sink -> {
-            Jedis conn = jedis.getResource();
-            conn.subscribe(new AclListener(sink), PUBSUB_ACL);
-        });
+        return bus.subscribe(TOPIC_ACL);
     }
 
     @Override
     public Flux<String> subscribeConfig() {
-        if (jedis == null) Flux.empty();
-        return Flux.create(sink -> {
-            Jedis conn = jedis.getResource();
-            conn.subscribe(new AclListener(sink), PUBSUB_CONFIG);
-        });
-    }
-
-    private static class AclListener extends JedisPubSub {
-
-        private final FluxSink<String> fluxSink;
-
-        public AclListener(FluxSink<String> fluxSink) {
-            this.fluxSink = fluxSink;
-        }
-
-        @Override
-        public void onMessage(String channel, String message) {
-            super.onMessage(channel, message);
-            fluxSink.next(message);
-        }
+        return bus.subscribe(TOPIC_CONFIG);
     }
 }
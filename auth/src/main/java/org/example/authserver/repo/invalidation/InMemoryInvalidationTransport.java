@@ -0,0 +1,23 @@
+package org.example.authserver.repo.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+@Component
+@ConditionalOnProperty(value = "app.invalidation.transport", havingValue = "IN_MEMORY")
+public class InMemoryInvalidationTransport implements InvalidationTransport {
+
+    private final Sinks.Many<String> sink = Sinks.many().multicast().directBestEffort();
+
+    @Override
+    public synchronized void send(String payload) {
+        sink.emitNext(payload, Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    @Override
+    public Flux<String> listen() {
+        return sink.asFlux().startWith(CONNECTED);
+    }
+}
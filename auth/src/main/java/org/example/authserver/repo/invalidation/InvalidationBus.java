@@ -0,0 +1,127 @@
+package org.example.authserver.repo.invalidation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.InvalidationConfig;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-wide cache invalidations on top of a pluggable {@link InvalidationTransport}.
+ * <p>
+ * Every node numbers its messages, a receiver that sees a gap in the numbers of some origin, or that had to
+ * reconnect, delivers {@link #RESYNC} to every subscriber instead of guessing what it missed.
+ * Identical keys arriving within {@code coalesceMs} are delivered once.
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+
+    /**
+     * Delivered when invalidations may have been lost, subscribers should reload everything of their topic.
+     */
+    public static final String RESYNC = "*";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final InvalidationTransport transport;
+    private final InvalidationConfig config;
+    private final String origin = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object publishLock = new Object();
+    private final Cache<String, Long> lastSequences = CacheBuilder.newBuilder()
+            .expireAfterAccess(1, TimeUnit.DAYS)
+            .build();
+    private final Flux<InvalidationMessage> messages;
+
+    public InvalidationBus(InvalidationTransport transport, AppProperties appProperties) {
+        this.transport = transport;
+        this.config = appProperties.getInvalidation();
+
+        AtomicBoolean connected = new AtomicBoolean();
+        this.messages = Flux.defer(transport::listen)
+                .concatMap(payload -> {
+                    if (InvalidationTransport.CONNECTED.equals(payload)) {
+                        // anything could have been sent while we were away
+                        return connected.getAndSet(true) ? Flux.just(InvalidationMessage.resync()) : Flux.empty();
+                    }
+                    return receive(payload);
+                })
+                .doOnError(e -> log.warn("invalidation listener failed, reconnecting: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(config.getMinBackoffMs()))
+                        .maxBackoff(Duration.ofMillis(config.getMaxBackoffMs()))
+                        .transientErrors(true)) // a connection that delivered messages starts over from the min backoff
+                .publish()
+                .refCount();
+    }
+
+    public void publish(String topic, String key) {
+        // sequences have to reach receivers in order, or a reordered pair reads as a gap
+        synchronized (publishLock) {
+            InvalidationMessage message = new InvalidationMessage(origin, sequence.incrementAndGet(), topic, key);
+            try {
+                transport.send(mapper.writeValueAsString(message));
+            } catch (Exception e) {
+                // receivers will see the sequence gap and resync
+                log.warn("unable to publish invalidation {}:{}: {}", topic, key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return invalidated keys of the topic, or {@link #RESYNC}
+     */
+    public Flux<String> subscribe(String topic) {
+        Flux<String> keys = messages
+                .filter(message -> message.isResync() || topic.equals(message.getTopic()))
+                .map(InvalidationMessage::getKey);
+        if (config.getCoalesceMs() <= 0) {
+            return keys;
+        }
+        return keys
+                .bufferTimeout(config.getCoalesceMaxSize(), Duration.ofMillis(config.getCoalesceMs()))
+                .flatMapIterable(InvalidationBus::coalesce);
+    }
+
+    static List<String> coalesce(List<String> keys) {
+        if (keys.contains(RESYNC)) {
+            return List.of(RESYNC);
+        }
+        return new ArrayList<>(new LinkedHashSet<>(keys));
+    }
+
+    private Flux<InvalidationMessage> receive(String payload) {
+        InvalidationMessage message;
+        try {
+            message = mapper.readValue(payload, InvalidationMessage.class);
+        } catch (Exception e) {
+            log.warn("unable to read invalidation {}: {}", payload, e.getMessage());
+            return Flux.just(InvalidationMessage.resync());
+        }
+        if (message.getOrigin() == null || message.getTopic() == null) {
+            return Flux.empty();
+        }
+
+        Long last = lastSequences.getIfPresent(message.getOrigin());
+        if (last != null && message.getSequence() <= last) {
+            return Flux.empty(); // redelivered
+        }
+        lastSequences.put(message.getOrigin(), message.getSequence());
+
+        if (last != null && message.getSequence() > last + 1) {
+            log.info("invalidations {}..{} from {} are missing, resyncing", last + 1, message.getSequence() - 1, message.getOrigin());
+            return Flux.just(InvalidationMessage.resync(), message);
+        }
+        return Flux.just(message);
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.authserver.repo.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvalidationMessage {
+
+    /**
+     * Publishing node, sequences are counted per origin.
+     */
+    private String origin;
+    private long sequence;
+    private String topic;
+    private String key;
+
+    static InvalidationMessage resync() {
+        return new InvalidationMessage(null, 0, null, InvalidationBus.RESYNC);
+    }
+
+    boolean isResync() {
+        return topic == null;
+    }
+}
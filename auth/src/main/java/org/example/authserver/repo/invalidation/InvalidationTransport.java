@@ -0,0 +1,18 @@
+package org.example.authserver.repo.invalidation;
+
+import reactor.core.publisher.Flux;
+
+public interface InvalidationTransport {
+
+    /**
+     * Emitted by {@link #listen()} once the subscription is active, before any payload.
+     */
+    String CONNECTED = "";
+
+    void send(String payload);
+
+    /**
+     * Emits {@link #CONNECTED}, then received payloads until cancelled. Errors when the connection is lost.
+     */
+    Flux<String> listen();
+}
@@ -0,0 +1,73 @@
+package org.example.authserver.repo.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Notifications sent inside a transaction are delivered on commit, so listeners never see uncommitted changes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "app.invalidation.transport", havingValue = "POSTGRES")
+public class PgNotifyInvalidationTransport implements InvalidationTransport {
+
+    private static final String CHANNEL = "authz_invalidation";
+    private static final int POLL_TIMEOUT_MS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    public PgNotifyInvalidationTransport(JdbcTemplate jdbcTemplate,
+                                         @Value("${spring.datasource.url}") String url,
+                                         @Value("${spring.datasource.username:}") String username,
+                                         @Value("${spring.datasource.password:}") String password) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public void send(String payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload);
+    }
+
+    @Override
+    public Flux<String> listen() {
+        return Flux.<String>create(sink -> {
+            // a dedicated connection, the pool is too small to pin one of its connections
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                sink.next(CONNECTED);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (!sink.isCancelled()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        sink.next(notification.getParameter());
+                    }
+                }
+                sink.complete();
+            } catch (SQLException e) {
+                sink.error(e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+}
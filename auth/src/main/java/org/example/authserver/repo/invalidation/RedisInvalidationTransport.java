@@ -0,0 +1,64 @@
+package org.example.authserver.repo.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import javax.annotation.Nullable;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "app.invalidation.transport", havingValue = "REDIS", matchIfMissing = true)
+public class RedisInvalidationTransport implements InvalidationTransport {
+
+    private static final String CHANNEL = "pubsub_invalidation";
+
+    private final JedisPool jedis;
+
+    public RedisInvalidationTransport(@Nullable JedisPool jedis) {
+        this.jedis = jedis;
+    }
+
+    @Override
+    public void send(String payload) {
+        if (jedis == null) return;
+        try (Jedis conn = jedis.getResource()) {
+            conn.publish(CHANNEL, payload);
+        }
+    }
+
+    @Override
+    public Flux<String> listen() {
+        if (jedis == null) return Flux.never();
+
+        return Flux.<String>create(sink -> {
+            JedisPubSub listener = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    sink.next(CONNECTED);
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    sink.next(message);
+                }
+            };
+            sink.onDispose(() -> {
+                if (listener.isSubscribed()) listener.unsubscribe();
+            });
+
+            // blocks until unsubscribed or the connection drops
+            try (Jedis conn = jedis.getResource()) {
+                conn.subscribe(listener, CHANNEL);
+                sink.complete();
+            } catch (Exception e) {
+                sink.error(e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.authserver.repo.pgsql;
+
+import authserver.acl.Acl;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.AclFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Read-only tuple queries over plain JDBC. Rows are read forward-only in batches of the fetch size
+ * (postgres only honours it inside a transaction) and turned straight into {@link Acl}s, without
+ * going through managed entities. Lists are bound as one array parameter, so each query keeps a single plan.
+ */
+@Component
+@ConditionalOnProperty(
+        value="app.database",
+        havingValue = "POSTGRES"
+)
+public class AclJdbcReader {
+
+    private static final String COLUMNS = "a.id, a.namespace, a.object, a.relation, a.usr, a.userset_namespace, a.userset_object, a.userset_relation, a.created, a.updated";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+
+    public AclJdbcReader(DataSource dataSource, AppProperties appProperties,
+                         @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(appProperties.getJdbcFetchSize());
+        this.table = schema.isEmpty() ? "acls" : schema + ".acls";
+    }
+
+    @Transactional(readOnly = true)
+    public Set<Acl> findAll() {
+        return query("SELECT " + COLUMNS + " FROM " + table + " a", ps -> {});
+    }
+
+    @Transactional(readOnly = true)
+    public Set<Acl> findAllByUser(String user) {
+        return query("SELECT " + COLUMNS + " FROM " + table + " a WHERE a.usr = ?",
+                ps -> ps.setString(1, user));
+    }
+
+    /**
+     * Streams rows without collecting them, the table may hold far more principals than fit in a set.
+     */
+    @Transactional(readOnly = true)
+    public void forEachPrincipal(Consumer<String> consumer) {
+        jdbcTemplate.query("SELECT DISTINCT a.usr FROM " + table + " a WHERE a.usr <> '*'",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)));
+    }
+
+    @Transactional(readOnly = true)
+    public Set<Acl> findAllUsersetsByNsobjectIn(Collection<String> nsObjects) {
+        return query("SELECT " + COLUMNS + " FROM " + table + " a WHERE a.usr = '*' AND a.nsobject = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", nsObjects.toArray())));
+    }
+
+    /**
+     * Userset tuples of the given objects and of the principal itself, in one round trip.
+     */
+    @Transactional(readOnly = true)
+    public Set<Acl> findAllByUserOrUsersetsByNsobjectIn(String user, Collection<String> nsObjects) {
+        return query("SELECT " + COLUMNS + " FROM " + table + " a WHERE a.usr = ? OR (a.usr = '*' AND a.nsobject = ANY(?))",
+                ps -> {
+                    ps.setString(1, user);
+                    ps.setArray(2, ps.getConnection().createArrayOf("text", nsObjects.toArray()));
+                });
+    }
+
+    @Transactional(readOnly = true)
+    public Set<Acl> findAllByNsobjectAndUserIn(String nsObject, Collection<String> users) {
+        return query("SELECT " + COLUMNS + " FROM " + table + " a WHERE a.nsobject = ? AND a.usr = ANY(?)",
+                ps -> {
+                    ps.setString(1, nsObject);
+                    ps.setArray(2, ps.getConnection().createArrayOf("text", users.toArray()));
+                });
+    }
+
+    /**
+     * @param usersetNsObjects {@code namespace:object} pairs the usersets point to
+     */
+    @Transactional(readOnly = true)
+    public Set<Acl> findAllByUsersetIn(Collection<String> usersetNsObjects) {
+        List<String> namespaces = new ArrayList<>(usersetNsObjects.size());
+        List<String> objects = new ArrayList<>(usersetNsObjects.size());
+        for (String nsObject : usersetNsObjects) {
+            int idx = nsObject.indexOf(':');
+            namespaces.add(nsObject.substring(0, idx));
+            objects.add(nsObject.substring(idx + 1));
+        }
+        return query("SELECT " + COLUMNS + " FROM " + table + " a JOIN unnest(?, ?) AS r(ns, obj)" +
+                        " ON a.userset_namespace = r.ns AND a.userset_object = r.obj",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("text", namespaces.toArray()));
+                    ps.setArray(2, ps.getConnection().createArrayOf("text", objects.toArray()));
+                });
+    }
+
+    /**
+     * Userset tuples of the given objects and of every object reachable from them through usersets.
+     * UNION drops objects already visited, so cycles terminate.
+     */
+    @Transactional(readOnly = true)
+    public Set<Acl> findUsersetClosure(Collection<String> nsObjects) {
+        return query("WITH RECURSIVE closure(nsobject) AS (" +
+                        " SELECT CAST(a.nsobject AS text) FROM " + table + " a WHERE a.usr = '*' AND a.nsobject = ANY(?)" +
+                        " UNION" +
+                        " SELECT a.userset_namespace || ':' || a.userset_object FROM " + table + " a" +
+                        " JOIN closure c ON a.nsobject = c.nsobject WHERE a.usr = '*'" +
+                        ") SELECT " + COLUMNS + " FROM " + table + " a JOIN closure c ON a.nsobject = c.nsobject WHERE a.usr = '*'",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", nsObjects.toArray())));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Acl> findPage(AclFilter filter, String afterId, int size) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM " + table + " a WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        filter(sql, args, "a.namespace", filter.getNamespace());
+        filter(sql, args, "a.object", filter.getObject());
+        filter(sql, args, "a.relation", filter.getRelation());
+        filter(sql, args, "a.usr", filter.getPrincipal());
+        if (afterId != null && !afterId.isEmpty()) {
+            sql.append(" AND a.id > ?");
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY a.id LIMIT ?");
+        args.add(size);
+
+        List<Acl> result = new ArrayList<>(size);
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> {
+            result.add(toAcl(rs));
+        }, args.toArray());
+        return result;
+    }
+
+    private static void filter(StringBuilder sql, List<Object> args, String column, String value) {
+        if (value == null || value.isEmpty()) return;
+        sql.append(" AND ").append(column).append(" = ?");
+        args.add(value);
+    }
+
+    private Set<Acl> query(String sql, PreparedStatementSetter setter) {
+        Set<Acl> result = new HashSet<>();
+        jdbcTemplate.query(sql, setter, rs -> {
+            result.add(toAcl(rs));
+        });
+        return result;
+    }
+
+    private static Acl toAcl(ResultSet rs) throws SQLException {
+        String id = rs.getString(1);
+        return new Acl(
+                id != null ? UUID.fromString(id) : null,
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getString(5),
+                rs.getString(6),
+                rs.getString(7),
+                rs.getString(8),
+                rs.getLong(9),
+                rs.getLong(10));
+    }
+}
@@ -3,14 +3,17 @@ package org.example.authserver.repo.pgsql;
 import authserver.acl.Acl;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.entity.AclEntity;
+import org.example.authserver.entity.AclFilter;
+import org.example.authserver.entity.ChangeEvent;
 import org.example.authserver.repo.AclRepository;
+import org.example.authserver.repo.ChangelogRepository;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Consumer;
 
 @Slf4j
 @Configuration
@@ -21,16 +24,18 @@ import java.util.stream.Stream;
 public class AclPgRepository implements AclRepository {
 
     private final AclSpringDataRepository repository;
+    private final AclJdbcReader reader;
+    private final ChangelogRepository changelogRepository;
 
-    public AclPgRepository(AclSpringDataRepository repository) {
+    public AclPgRepository(AclSpringDataRepository repository, AclJdbcReader reader, ChangelogRepository changelogRepository) {
         this.repository = repository;
+        this.reader = reader;
+        this.changelogRepository = changelogRepository;
     }
 
     @Override
     public Set<Acl> findAll() {
-        return repository.findAll().stream()
-                .map(AclEntity::toAcl)
-                .collect(Collectors.toSet());
+        return reader.findAll();
     }
 
     @Override
@@ -42,28 +47,33 @@ public class AclPgRepository implements AclRepository {
 
     @Override
     public Set<Acl> findAllByPrincipalAndNsObjectIn(String principal, List<String> nsObjects) {
-        Set<AclEntity> usersetAcls = repository.findAllByNsobjectInAndUser(nsObjects, "*");
-        Set<AclEntity> userAcls = repository.findAllByUser(principal);
-        return Stream.concat(usersetAcls.stream(), userAcls.stream())
-                .map(AclEntity::toAcl)
-                .collect(Collectors.toSet());
+        return reader.findAllByUserOrUsersetsByNsobjectIn(principal, nsObjects);
     }
 
 
     @Override
     public Set<Acl> findAllByPrincipal(String principal) {
-        Set<AclEntity> userAcls = repository.findAllByUser(principal);
-        return userAcls.stream()
-                .map(AclEntity::toAcl)
-                .collect(Collectors.toSet());
+        return reader.findAllByUser(principal);
     }
 
     @Override
     public Set<Acl> findAllByNsObjectIn(List<String> nsObjects) {
-        Set<AclEntity> usersetAcls = repository.findAllByNsobjectInAndUser(nsObjects, "*");
-        return usersetAcls.stream()
-                .map(AclEntity::toAcl)
-                .collect(Collectors.toSet());
+        return reader.findAllUsersetsByNsobjectIn(nsObjects);
+    }
+
+    @Override
+    public Set<Acl> findAllByUsersetIn(List<String> usersetNsObjects) {
+        return reader.findAllByUsersetIn(usersetNsObjects);
+    }
+
+    @Override
+    public List<Acl> findPage(AclFilter filter, String afterId, int size) {
+        return reader.findPage(filter, afterId, size);
+    }
+
+    @Override
+    public Set<Acl> findUsersetClosure(List<String> nsObjects) {
+        return reader.findUsersetClosure(nsObjects);
     }
 
     @Override
@@ -71,6 +81,11 @@ public class AclPgRepository implements AclRepository {
         return repository.findDistinctEndUsers();
     }
 
+    @Override
+    public void forEachPrincipal(Consumer<String> consumer) {
+        reader.forEachPrincipal(consumer);
+    }
+
     @Override
     public Set<String> findAllNamespaces() {
         return repository.findDistinctNamespaces();
@@ -88,15 +103,12 @@ public class AclPgRepository implements AclRepository {
 
     @Override
     public Set<Acl> findAllByNamespaceAndObjectAndUser(String namespace, String object, String user) {
-        Set<AclEntity> usersetAcls = repository.findAllByNsobjectAndUser(String.format("%s:%s", namespace, object), "*");
-        Set<AclEntity> userAcls = repository.findAllByNsobjectAndUser(String.format("%s:%s", namespace, object), user);
-        return Stream.concat(usersetAcls.stream(), userAcls.stream())
-                .map(AclEntity::toAcl)
-                .collect(Collectors.toSet());
+        return reader.findAllByNsobjectAndUserIn(String.format("%s:%s", namespace, object), List.of("*", user));
     }
 
 
     @Override
+    @Transactional
     public void save(Acl acl) {
         AclEntity entity = AclEntity.builder()
                 .id(acl.getId().toString())
@@ -111,11 +123,14 @@ public class AclPgRepository implements AclRepository {
                 .build();
 
         repository.save(entity);
+        changelogRepository.append(ChangeEvent.of(acl, ChangeEvent.Operation.WRITE));
     }
 
     @Override
+    @Transactional
     public void delete(Acl acl) {
         repository.deleteById(acl.getId().toString());
+        changelogRepository.append(ChangeEvent.of(acl, ChangeEvent.Operation.DELETE));
     }
 
 
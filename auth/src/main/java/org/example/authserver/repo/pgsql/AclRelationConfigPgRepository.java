@@ -4,9 +4,12 @@ import authserver.acl.AclRelationConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.Utils;
 import org.example.authserver.entity.AclRelationConfigEntity;
+import org.example.authserver.entity.ChangeEvent;
 import org.example.authserver.repo.AclRelationConfigRepository;
+import org.example.authserver.repo.ChangelogRepository;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -20,9 +23,11 @@ import java.util.stream.Collectors;
 public class AclRelationConfigPgRepository implements AclRelationConfigRepository {
 
     private final AclRelationConfigSpringDataRepository repository;
+    private final ChangelogRepository changelogRepository;
 
-    public AclRelationConfigPgRepository(AclRelationConfigSpringDataRepository repository) {
+    public AclRelationConfigPgRepository(AclRelationConfigSpringDataRepository repository, ChangelogRepository changelogRepository) {
         this.repository = repository;
+        this.changelogRepository = changelogRepository;
     }
 
     @Override
@@ -40,6 +45,7 @@ public class AclRelationConfigPgRepository implements AclRelationConfigRepositor
     }
 
     @Override
+    @Transactional
     public void save(AclRelationConfig config) {
         AclRelationConfigEntity entity = AclRelationConfigEntity.builder()
                 .id(config.getId().toString())
@@ -48,11 +54,14 @@ public class AclRelationConfigPgRepository implements AclRelationConfigRepositor
                 .build();
 
         repository.save(entity);
+        changelogRepository.append(ChangeEvent.of(config, ChangeEvent.Operation.WRITE));
     }
 
     @Override
+    @Transactional
     public void delete(AclRelationConfig config) {
         repository.deleteById(config.getId().toString());
+        changelogRepository.append(ChangeEvent.of(config, ChangeEvent.Operation.DELETE));
     }
 
 }
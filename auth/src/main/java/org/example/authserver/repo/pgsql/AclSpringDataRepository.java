@@ -12,9 +12,6 @@ import java.util.Set;
 public interface AclSpringDataRepository extends CrudRepository<AclEntity, String> {
 
     List<AclEntity> findAll();
-    Set<AclEntity> findAllByNsobjectAndUser(String nsobject, String user);
-    Set<AclEntity> findAllByNsobjectInAndUser(List<String> nsobject, String user);
-    Set<AclEntity> findAllByUser(String principal);
 
     @Query("SELECT DISTINCT a.user FROM acls a WHERE a.user <> '*'")
     Set<String> findDistinctEndUsers();
@@ -0,0 +1,69 @@
+package org.example.authserver.repo.pgsql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.entity.ChangelogEntity;
+import org.example.authserver.repo.ChangelogRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(
+        value="app.database",
+        havingValue = "POSTGRES"
+)
+public class ChangelogPgRepository implements ChangelogRepository {
+
+    private final ChangelogSpringDataRepository repository;
+    private final Sinks.Many<Long> appended = Sinks.many().multicast().directBestEffort();
+
+    public ChangelogPgRepository(ChangelogSpringDataRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public long append(ChangeEvent event) {
+        ChangelogEntity entity = ChangelogEntity.builder()
+                .type(event.getType())
+                .operation(event.getOperation())
+                .entityId(event.getId())
+                .entityKey(event.getKey())
+                .build();
+
+        long revision = repository.save(entity).getRevision();
+        log.trace("changelog {}: {} {} {}", revision, event.getOperation(), event.getType(), event.getKey());
+        appended.tryEmitNext(revision);
+        return revision;
+    }
+
+    @Override
+    public List<ChangeEvent> findAllAfter(long revision, int limit) {
+        return repository.findAllByRevisionGreaterThanOrderByRevisionAsc(revision, PageRequest.of(0, limit)).stream()
+                .map(ChangelogEntity::toChangeEvent)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ChangeEvent> findAllIn(List<Long> revisions) {
+        return repository.findAllByRevisionInOrderByRevisionAsc(revisions).stream()
+                .map(ChangelogEntity::toChangeEvent)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long findMaxRevision() {
+        return repository.findMaxRevision();
+    }
+
+    @Override
+    public Flux<Long> appended() {
+        return appended.asFlux();
+    }
+}
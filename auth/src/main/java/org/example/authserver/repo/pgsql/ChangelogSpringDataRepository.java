@@ -0,0 +1,20 @@
+package org.example.authserver.repo.pgsql;
+
+import org.example.authserver.entity.ChangelogEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChangelogSpringDataRepository extends CrudRepository<ChangelogEntity, Long> {
+
+    List<ChangelogEntity> findAllByRevisionGreaterThanOrderByRevisionAsc(Long revision, Pageable pageable);
+
+    List<ChangelogEntity> findAllByRevisionInOrderByRevisionAsc(List<Long> revisions);
+
+    @Query("SELECT coalesce(max(c.revision), 0) FROM changelog c")
+    long findMaxRevision();
+}
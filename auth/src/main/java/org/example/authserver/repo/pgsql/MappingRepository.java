@@ -1,6 +1,7 @@
 package org.example.authserver.repo.pgsql;
 
 import org.example.authserver.entity.MappingEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +12,8 @@ public interface MappingRepository extends CrudRepository<MappingEntity, String>
 
     List<MappingEntity> findAll();
 
+    List<MappingEntity> findByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
+
+    List<MappingEntity> findByNamespaceAndIdGreaterThanOrderByIdAsc(String namespace, String id, Pageable pageable);
+
 }
@@ -1,9 +1,16 @@
 package org.example.authserver.repo.pgsql;
 
 import org.example.authserver.entity.UserRelationEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface UserRelationRepository extends CrudRepository<UserRelationEntity, String> {
+
+    @Query("SELECT u.user FROM userrelations u ORDER BY u.updated DESC")
+    List<String> findRecentlyUpdatedUsers(Pageable pageable);
 }
@@ -3,6 +3,7 @@ package org.example.authserver.repo.redis;
 import authserver.acl.Acl;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.Utils;
+import org.example.authserver.entity.AclFilter;
 import org.example.authserver.repo.AclRepository;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +13,7 @@ import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -66,11 +68,31 @@ public class AclRedisRepository implements AclRepository {
         throw new RuntimeException("findAllByNsObjectIn_REDIS_IS_NOT_IMPLEMENTED_YET");
     }
 
+    @Override
+    public Set<Acl> findAllByUsersetIn(List<String> usersetNsObjects) {
+        throw new RuntimeException("findAllByUsersetIn_REDIS_IS_NOT_IMPLEMENTED_YET");
+    }
+
+    @Override
+    public List<Acl> findPage(AclFilter filter, String afterId, int size) {
+        throw new RuntimeException("findPage_REDIS_IS_NOT_IMPLEMENTED_YET");
+    }
+
+    @Override
+    public Set<Acl> findUsersetClosure(List<String> nsObjects) {
+        throw new RuntimeException("findUsersetClosure_REDIS_IS_NOT_IMPLEMENTED_YET");
+    }
+
     @Override
     public Set<String> findAllEndUsers() {
         throw new RuntimeException("findAllByNsObjectIn_REDIS_IS_NOT_IMPLEMENTED_YET");
     }
 
+    @Override
+    public void forEachPrincipal(Consumer<String> consumer) {
+        throw new RuntimeException("forEachPrincipal_REDIS_IS_NOT_IMPLEMENTED_YET");
+    }
+
     @Override
     public Set<String> findAllNamespaces() {
         throw new RuntimeException("findAllByNsObjectIn_REDIS_IS_NOT_IMPLEMENTED_YET");
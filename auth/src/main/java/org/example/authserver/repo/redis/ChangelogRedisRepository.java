@@ -0,0 +1,45 @@
+package org.example.authserver.repo.redis;
+
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.repo.ChangelogRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(
+        value="app.database",
+        havingValue = "REDIS"
+)
+public class ChangelogRedisRepository implements ChangelogRepository {
+
+    // no changelog is kept for redis, so every consistency token is 0 and always satisfied
+
+    @Override
+    public long append(ChangeEvent event) {
+        return 0; // mappings are still written through postgres, nodes pick them up on resync
+    }
+
+    @Override
+    public List<ChangeEvent> findAllAfter(long revision, int limit) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<ChangeEvent> findAllIn(List<Long> revisions) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long findMaxRevision() {
+        return 0;
+    }
+
+    @Override
+    public Flux<Long> appended() {
+        return Flux.empty();
+    }
+}
@@ -1,15 +1,17 @@
 package org.example.authserver.service;
 
 import com.google.rpc.Status;
-import io.envoyproxy.envoy.config.core.v3.HeaderValue;
-import io.envoyproxy.envoy.config.core.v3.HeaderValueOption;
 import io.envoyproxy.envoy.service.auth.v3.AuthorizationGrpc;
 import io.envoyproxy.envoy.service.auth.v3.CheckRequest;
 import io.envoyproxy.envoy.service.auth.v3.CheckResponse;
+import io.envoyproxy.envoy.service.auth.v3.DeniedHttpResponse;
 import io.envoyproxy.envoy.service.auth.v3.OkHttpResponse;
+import io.envoyproxy.envoy.type.v3.HttpStatus;
+import io.envoyproxy.envoy.type.v3.StatusCode;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.BudgetConfig;
 import org.example.authserver.entity.CheckResult;
 import org.example.authserver.service.zanzibar.AclFilterService;
 
@@ -18,13 +20,17 @@ public class AuthService extends AuthorizationGrpc.AuthorizationImplBase {
 
     private static final Integer OK = 0;
     private static final Integer PERMISSION_DENIED=7;
+    private static final Integer RESOURCE_EXHAUSTED=8;
+    private static final Integer UNAVAILABLE=14;
 
     private final AclFilterService aclFilterService;
     private final AppProperties appProperties;
+    private final TagEmitter tagEmitter;
 
     public AuthService(AclFilterService aclFilterService, AppProperties appProperties) {
         this.aclFilterService = aclFilterService;
         this.appProperties = appProperties;
+        this.tagEmitter = new TagEmitter(appProperties.getTags());
     }
 
     @Override
@@ -35,18 +41,36 @@ public class AuthService extends AuthorizationGrpc.AuthorizationImplBase {
         );
         CheckResult result = aclFilterService.checkRequest(request);
 
-        HeaderValue headerAllowedTags = HeaderValue.newBuilder()
-                .setKey("X-ALLOWED-TAGS")
-                .setValue(String.join(",", result.getTags()))
-                .build();
+        if (result.isOverLimit() && !result.isResult()) {
+            log.debug("request shed, tenant over limit");
+            responseObserver.onNext(CheckResponse.newBuilder()
+                    .setStatus(Status.newBuilder().setCode(RESOURCE_EXHAUSTED).build())
+                    .setDeniedResponse(DeniedHttpResponse.newBuilder()
+                            .setStatus(HttpStatus.newBuilder().setCode(StatusCode.TooManyRequests).build())
+                            .build())
+                    .build());
+            responseObserver.onCompleted();
+            return;
+        }
 
-        HeaderValueOption headers = HeaderValueOption.newBuilder()
-                .setHeader(headerAllowedTags)
-                .build();
+        if (result.isBudgetExceeded() && appProperties.getBudget().getOnExceeded() == BudgetConfig.OnExceeded.FAIL) {
+            log.warn("check failed, evaluation budget exceeded");
+            responseObserver.onNext(CheckResponse.newBuilder()
+                    .setStatus(Status.newBuilder().setCode(UNAVAILABLE).build())
+                    .setDeniedResponse(DeniedHttpResponse.newBuilder()
+                            .setStatus(HttpStatus.newBuilder().setCode(StatusCode.ServiceUnavailable).build())
+                            .build())
+                    .build());
+            responseObserver.onCompleted();
+            return;
+        }
+
+        OkHttpResponse.Builder okResponse = OkHttpResponse.newBuilder();
+        tagEmitter.emit(result, okResponse);
 
         CheckResponse response = CheckResponse.newBuilder()
                 .setStatus(Status.newBuilder().setCode(getCode(result.isResult())).build())
-                .setOkResponse(OkHttpResponse.newBuilder().addHeaders(headers).build())
+                .setOkResponse(okResponse.build())
                 .build();
 
         if (result.isMappingsPresent()) {
@@ -0,0 +1,179 @@
+package org.example.authserver.service;
+
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.BatchCheckItem;
+import org.example.authserver.entity.BatchCheckItemResult;
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.grpc.AuthzServiceGrpc;
+import org.example.authserver.grpc.BatchCheckRequest;
+import org.example.authserver.grpc.BatchCheckResponse;
+import org.example.authserver.grpc.ChangeOperation;
+import org.example.authserver.grpc.ChangeType;
+import org.example.authserver.grpc.CheckItem;
+import org.example.authserver.grpc.CheckItemResult;
+import org.example.authserver.grpc.LookupResourcesRequest;
+import org.example.authserver.grpc.LookupResourcesResponse;
+import org.example.authserver.grpc.LookupSubjectsRequest;
+import org.example.authserver.grpc.LookupSubjectsResponse;
+import org.example.authserver.grpc.ObjectRef;
+import org.example.authserver.grpc.RelationsRequest;
+import org.example.authserver.grpc.RelationsResponse;
+import org.example.authserver.grpc.WatchRequest;
+import org.example.authserver.grpc.WatchResponse;
+import org.example.authserver.service.model.EvaluationBudget;
+import org.example.authserver.service.model.RequestCache;
+import org.example.authserver.service.zanzibar.Zanzibar;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+public class AuthzGrpcService extends AuthzServiceGrpc.AuthzServiceImplBase {
+
+    private final Zanzibar zanzibar;
+    private final AppProperties appProperties;
+    private final SlowCheckRecorder slowCheckRecorder;
+    private final ChangelogService changelogService;
+    private final CacheLoaderService cacheLoaderService;
+    private final RelationsService relationsService;
+    private final ShardRouter shardRouter;
+
+    public AuthzGrpcService(Zanzibar zanzibar, AppProperties appProperties, SlowCheckRecorder slowCheckRecorder, ChangelogService changelogService, CacheLoaderService cacheLoaderService, RelationsService relationsService, ShardRouter shardRouter) {
+        this.zanzibar = zanzibar;
+        this.appProperties = appProperties;
+        this.slowCheckRecorder = slowCheckRecorder;
+        this.changelogService = changelogService;
+        this.cacheLoaderService = cacheLoaderService;
+        this.relationsService = relationsService;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void batchCheck(BatchCheckRequest request, StreamObserver<BatchCheckResponse> responseObserver) {
+        int maxItems = appProperties.getBatch().getMaxItems();
+        if (request.getItemsCount() > maxItems) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(String.format("batch of %s items exceeds the limit of %s", request.getItemsCount(), maxItems))
+                    .asRuntimeException());
+            return;
+        }
+        if (request.getForwarded() && !shardRouter.isPeer(PeerAddressInterceptor.remoteAddress())) {
+            responseObserver.onError(notAPeer("forwarded batch check"));
+            return;
+        }
+
+        List<BatchCheckItem> items = request.getItemsList().stream()
+                .map(item -> BatchCheckItem.builder()
+                        .namespace(item.getNamespace())
+                        .object(item.getObject())
+                        .relation(item.getRelation())
+                        .build())
+                .collect(Collectors.toList());
+
+        Optional<String> owner = request.getForwarded() ? Optional.empty() : shardRouter.remoteOwner(request.getPrincipal());
+        List<BatchCheckItemResult> results;
+        try {
+            results = owner
+                    .flatMap(node -> shardRouter.checkBatch(node, request.getPrincipal(), items, request.getMinRevision()))
+                    .orElseGet(() -> checkBatch(request.getPrincipal(), items, request.getMinRevision()));
+        } catch (EvaluationBudget.ExceededException e) {
+            // the FAIL budget policy, answered like the Envoy check
+            Metadata trailers = new Metadata();
+            trailers.put(ShardRouter.BUDGET_EXCEEDED, e.getReason().name());
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException(trailers));
+            return;
+        }
+
+        BatchCheckResponse.Builder response = BatchCheckResponse.newBuilder();
+        for (BatchCheckItemResult result : results) {
+            response.addResults(CheckItemResult.newBuilder()
+                    .setItem(CheckItem.newBuilder()
+                            .setNamespace(result.getNamespace())
+                            .setObject(result.getObject())
+                            .setRelation(result.getRelation())
+                            .build())
+                    .setAllowed(result.isAllowed())
+                    .build());
+        }
+
+        log.debug("batch check for {}: {} items", request.getPrincipal(), items.size());
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void relations(RelationsRequest request, StreamObserver<RelationsResponse> responseObserver) {
+        if (!shardRouter.isPeer(PeerAddressInterceptor.remoteAddress())) {
+            responseObserver.onError(notAPeer("relations"));
+            return;
+        }
+
+        long minRevision = cacheLoaderService.ensureRevision(request.getMinRevision());
+        RequestCache requestCache = new RequestCache().minRevision(minRevision);
+
+        Set<String> tags = new HashSet<>();
+        for (ObjectRef object : request.getObjectsList()) {
+            tags.addAll(relationsService.getRelations(object.getNamespace(), object.getObject(), request.getPrincipal(), requestCache));
+        }
+
+        log.debug("relations for {}: {} objects", request.getPrincipal(), request.getObjectsCount());
+        responseObserver.onNext(RelationsResponse.newBuilder().addAllTags(tags).build());
+        responseObserver.onCompleted();
+    }
+
+    private static StatusRuntimeException notAPeer(String call) {
+        log.warn("{} from {} rejected, not a shard node", call, PeerAddressInterceptor.remoteAddress());
+        return Status.PERMISSION_DENIED.withDescription(call + " is only served to shard nodes").asRuntimeException();
+    }
+
+    private List<BatchCheckItemResult> checkBatch(String principal, List<BatchCheckItem> items, long minRevision) {
+        RequestCache requestCache = new RequestCache().minRevision(cacheLoaderService.ensureRevision(minRevision));
+        requestCache.getTrace().describe(principal, "batch check [%s items]", items.size());
+        List<BatchCheckItemResult> results = zanzibar.checkBatch(principal, items, requestCache);
+        slowCheckRecorder.record(requestCache.getTrace().finish(results.stream().anyMatch(BatchCheckItemResult::isAllowed)));
+        return results;
+    }
+
+    @Override
+    public void lookupResources(LookupResourcesRequest request, StreamObserver<LookupResourcesResponse> responseObserver) {
+        String name = String.format("lookup resources %s#%s@%s", request.getNamespace(), request.getRelation(), request.getPrincipal());
+        zanzibar.lookupResources(request.getNamespace(), request.getRelation(), request.getPrincipal())
+                .subscribe(new StreamObserverSubscriber<>(responseObserver,
+                        object -> LookupResourcesResponse.newBuilder().setObject(object).build(), name));
+    }
+
+    @Override
+    public void lookupSubjects(LookupSubjectsRequest request, StreamObserver<LookupSubjectsResponse> responseObserver) {
+        String name = String.format("lookup subjects %s:%s#%s", request.getNamespace(), request.getObject(), request.getRelation());
+        zanzibar.lookupSubjects(request.getNamespace(), request.getObject(), request.getRelation())
+                .subscribe(new StreamObserverSubscriber<>(responseObserver,
+                        principal -> LookupSubjectsResponse.newBuilder().setPrincipal(principal).build(), name));
+    }
+
+    @Override
+    public void watch(WatchRequest request, StreamObserver<WatchResponse> responseObserver) {
+        log.info("watch from revision {}", request.getFromRevision());
+        changelogService.watch(request.getFromRevision())
+                .subscribe(new StreamObserverSubscriber<>(responseObserver, this::toWatchResponse,
+                        String.format("watch from revision %s", request.getFromRevision())));
+    }
+
+    private WatchResponse toWatchResponse(ChangeEvent event) {
+        return WatchResponse.newBuilder()
+                .setRevision(event.getRevision())
+                .setType(ChangeType.valueOf(event.getType().name()))
+                .setOperation(event.getOperation() == ChangeEvent.Operation.WRITE ? ChangeOperation.WRITE : ChangeOperation.DELETE)
+                .setId(event.getId())
+                .setKey(event.getKey())
+                .setTimestamp(event.getTimestamp())
+                .build();
+    }
+}
@@ -4,4 +4,16 @@ public interface CacheLoaderService {
 
     void subscribe();
 
+    /**
+     * Changelog revision the local config cache has applied.
+     */
+    long getAppliedRevision();
+
+    /**
+     * Blocks until the local config cache has applied {@code revision}, reloading it if the changelog tail lags behind.
+     *
+     * @return the revision ensured, clamped to the latest one in the changelog
+     */
+    long ensureRevision(long revision);
+
 }
@@ -1,57 +1,271 @@
 package org.example.authserver.service;
 
+import authserver.acl.Acl;
 import authserver.acl.AclRelationConfig;
 import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.ChangeEvent;
 import org.example.authserver.repo.AclRelationConfigRepository;
 import org.example.authserver.repo.SubscriptionRepository;
+import org.example.authserver.service.model.Snapshot;
 import org.example.authserver.service.zanzibar.AclRelationConfigService;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class CacheLoaderServiceImpl implements CacheLoaderService {
 
+    private final static ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor();
+
     private final CacheService cacheService;
     private final AclRelationConfigRepository configRepository;
     private final AclRelationConfigService configService;
     private final SubscriptionRepository subscriptionRepository;
+    private final ChangelogService changelogService;
+    private final AppProperties appProperties;
+    private final SnapshotService snapshotService;
+    private final MappingCacheService mappingCacheService;
+    private final HotPrincipalTracker hotPrincipalTracker;
+    private final PrincipalFilter principalFilter;
+    private final DenyCache denyCache;
+
+    private final Object revisionLock = new Object();
+    private final Object reloadLock = new Object();
+    private volatile long appliedRevision;
 
-    public CacheLoaderServiceImpl(CacheService cacheService, AclRelationConfigRepository configRepository, AclRelationConfigService configService, SubscriptionRepository subscriptionRepository) {
+    public CacheLoaderServiceImpl(CacheService cacheService, AclRelationConfigRepository configRepository, AclRelationConfigService configService, SubscriptionRepository subscriptionRepository, ChangelogService changelogService, AppProperties appProperties, SnapshotService snapshotService, MappingCacheService mappingCacheService, HotPrincipalTracker hotPrincipalTracker, PrincipalFilter principalFilter, DenyCache denyCache) {
         this.cacheService = cacheService;
         this.configRepository = configRepository;
         this.configService = configService;
         this.subscriptionRepository = subscriptionRepository;
+        this.changelogService = changelogService;
+        this.appProperties = appProperties;
+        this.snapshotService = snapshotService;
+        this.mappingCacheService = mappingCacheService;
+        this.hotPrincipalTracker = hotPrincipalTracker;
+        this.principalFilter = principalFilter;
+        this.denyCache = denyCache;
     }
 
     @Override
     public void subscribe() {
         subscriptionRepository.subscribeConfig()
-                .doOnNext(this::updateConfigs)
+                .doOnNext(this::invalidateConfig)
                 .subscribeOn(Schedulers.parallel())
                 .subscribe();
 
+        if (!restoreSnapshot()) {
+            updateAllConfigs();
+        }
+        principalFilter.start();
+
+        // catches up from the snapshot revision when restored
+        Flux.defer(() -> changelogService.watch(appliedRevision))
+                .doOnNext(this::apply)
+                .doOnError(e -> log.warn("changelog watch failed at revision {}: {}", appliedRevision, e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribeOn(Schedulers.parallel())
+                .subscribe();
+
+        if (snapshotService.isEnabled()) {
+            long interval = appProperties.getSnapshot().getIntervalSec();
+            EXECUTOR.scheduleWithFixedDelay(this::writeSnapshot, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public long getAppliedRevision() {
+        return appliedRevision;
+    }
+
+    @Override
+    public long ensureRevision(long revision) {
+        if (appliedRevision >= revision) return revision;
+
+        // tokens come from clients, one past the log must not force a reload on every request
+        long latest = changelogService.getRevision();
+        if (revision > latest) {
+            log.debug("consistency token {} is ahead of the changelog at {}, clamped", revision, latest);
+            revision = latest;
+            if (appliedRevision >= revision) return revision;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(appProperties.getConsistency().getMaxWaitMs());
+        synchronized (revisionLock) {
+            long remaining;
+            while (appliedRevision < revision && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(revisionLock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return revision;
+                }
+            }
+        }
+
+        if (appliedRevision < revision) {
+            // one reload at a time, it brings the cache at least to the revision every waiter asked for
+            synchronized (reloadLock) {
+                if (appliedRevision < revision) {
+                    log.info("config cache at revision {} is behind requested {}, reloading", appliedRevision, revision);
+                    // tuples written up to the requested revision may not have reached the fast deny caches yet
+                    denyCache.invalidateAll();
+                    principalFilter.rebuildLater();
+                    updateAllConfigs();
+                }
+            }
+        }
+        return revision;
+    }
+
+    private void apply(ChangeEvent event) {
+        long previous = appliedRevision;
+        if (previous > 0 && event.getRevision() > previous + 1) {
+            // skipped revisions are usually rollbacks, but one could hide a mapping change
+            mappingCacheService.resyncLater();
+        }
+
+        if (event.getType() == ChangeEvent.Type.RESYNC) {
+            resync();
+            return;
+        }
+
+        if (event.getType() == ChangeEvent.Type.TUPLE) {
+            applyTuple(event);
+        } else if (event.getType() == ChangeEvent.Type.MAPPING) {
+            mappingCacheService.apply(event);
+        } else if (event.getType() == ChangeEvent.Type.CONFIG) {
+            denyCache.invalidateAll();
+            AclRelationConfig config = null;
+            if (event.getOperation() == ChangeEvent.Operation.DELETE) {
+                cacheService.getConfigs().values().stream()
+                        .filter(c -> event.getId().equals(c.getId().toString()))
+                        .map(AclRelationConfig::getNamespace)
+                        .collect(Collectors.toList())
+                        .forEach(namespace -> {
+                            cacheService.deleteConfig(namespace);
+                            configService.remove(namespace);
+                        });
+            } else {
+                config = updateConfigs(event.getId());
+            }
+            snapshotService.append(event, config);
+        }
+        advance(event.getRevision());
+    }
+
+    private void resync() {
+        log.info("changelog resync, reloading caches");
+        denyCache.invalidateAll();
+        principalFilter.rebuildLater();
+        mappingCacheService.resyncLater();
         updateAllConfigs();
     }
 
-    private void updateConfigs(String id) {
+    private void applyTuple(ChangeEvent event) {
+        Acl acl;
+        try {
+            acl = Acl.create(event.getKey());
+        } catch (Exception e) {
+            log.warn("unable to parse tuple change {}: {}", event.getKey(), e.getMessage());
+            denyCache.invalidateAll();
+            return;
+        }
+        if (event.getOperation() == ChangeEvent.Operation.WRITE) {
+            principalFilter.add(acl);
+        }
+        denyCache.invalidate(acl);
+    }
+
+    private boolean restoreSnapshot() {
+        Optional<Snapshot> snapshot = snapshotService.load();
+        if (snapshot.isEmpty()) return false;
+
+        cacheService.updateConfigs(snapshot.get().getConfigs());
+        configService.update();
+        mappingCacheService.restore(snapshot.get().getMappings(), snapshot.get().getRevision());
+        hotPrincipalTracker.restore(snapshot.get().getPrincipals());
+        advance(snapshot.get().getRevision());
+        log.info("caches restored from snapshot at revision {}", snapshot.get().getRevision());
+        return true;
+    }
+
+    private void writeSnapshot() {
+        try {
+            long revision = appliedRevision; // read first, the copied state is at least this fresh
+            snapshotService.write(Snapshot.builder()
+                    .revision(revision)
+                    .createdAt(System.currentTimeMillis())
+                    .configs(new HashMap<>(cacheService.getConfigs()))
+                    .mappings(mappingCacheService.getAll())
+                    .principals(hotPrincipalTracker.top(appProperties.getWarmup().getHotPrincipals()))
+                    .build());
+        } catch (Exception e) {
+            log.warn("unable to write snapshot: {}", e.getMessage());
+        }
+    }
+
+    private void advance(long revision) {
+        synchronized (revisionLock) {
+            if (revision > appliedRevision) {
+                appliedRevision = revision;
+                revisionLock.notifyAll();
+            }
+        }
+    }
+
+    private void invalidateConfig(String id) {
+        denyCache.invalidateAll();
+        try {
+            if (SubscriptionRepository.RESYNC.equals(id)) {
+                updateAllConfigs();
+            } else {
+                updateConfigs(id);
+            }
+        } catch (Exception e) {
+            // the changelog watch still delivers the change
+            log.warn("config invalidation [{}] failed: {}", id, e.getMessage());
+        }
+    }
+
+    private AclRelationConfig updateConfigs(String id) {
         log.info("updateConfigs [{}] started", id);
         AclRelationConfig config = configRepository.findOneById(id);
+        if (config == null) {
+            log.info("updateConfigs [{}] skipped, config is deleted", id);
+            return null;
+        }
         cacheService.updateConfig(config);
-        configService.update();
+        configService.update(config);
         log.info("updateConfigs [{}] finished", id);
+        return config;
     }
 
-    public void updateAllConfigs() {
+    /**
+     * @return changelog revision the loaded configs are at least as fresh as
+     */
+    public long updateAllConfigs() {
+        long revision = changelogService.getRevision();
         log.info("updateAllConfigs started");
         Map<String, AclRelationConfig> configMap = configRepository.findAll().stream()
                 .collect(Collectors.toMap(AclRelationConfig::getNamespace, m->m));
         cacheService.updateConfigs(configMap);
         configService.update();
-        log.info("updateAllConfigs finished");
+        advance(revision);
+        log.info("updateAllConfigs finished, revision {}", revision);
+        return revision;
     }
 
 }
@@ -50,7 +50,9 @@ public class CacheService {
             return requestCache;
         }
 
+        long queryStart = System.nanoTime();
         Set<Acl> acls = aclRepository.findAllByPrincipal(user);
+        requestCache.getTrace().query("findAllByPrincipal", user, acls.size(), System.nanoTime() - queryStart);
         requestCache.getPrincipalAclCache().put(user, new HashSet<>(acls));
         requestCache.getPrincipalHighCardinalityCache().put(user, Acl.getTags(acls));
         return requestCache;
@@ -0,0 +1,176 @@
+package org.example.authserver.service;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.WatchConfig;
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.repo.ChangelogRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class ChangelogService {
+
+    private static final int MAX_TRACKED_GAPS = 10000;
+
+    private final ChangelogRepository repository;
+    private final WatchConfig config;
+
+    private final AtomicLong head = new AtomicLong(); // last revision the shared poller has emitted
+    private final Map<Long, Long> gaps = new ConcurrentHashMap<>(); // skipped revision -> when it was skipped
+    private final Flux<ChangeEvent> tail;
+
+    public ChangelogService(ChangelogRepository repository, AppProperties appProperties) {
+        this.repository = repository;
+        this.config = appProperties.getWatch();
+        // one poller for all watchers, running while at least one is subscribed
+        this.tail = Flux.defer(() -> {
+                    head.set(repository.findMaxRevision());
+                    return Flux.merge(repository.appended(), Flux.interval(Duration.ofMillis(config.getPollIntervalMs())));
+                })
+                .onBackpressureLatest()
+                .concatMap(tick -> poll(), 1)
+                .publish()
+                .refCount();
+    }
+
+    public long getRevision() {
+        return repository.findMaxRevision();
+    }
+
+    /**
+     * Replays every change after {@code fromRevision}, then keeps tailing the log.
+     * Local writes wake the reader immediately, writes from other instances are picked up by polling.
+     * A {@link ChangeEvent.Type#RESYNC} event means a change was committed behind the cursor and
+     * anything derived from the log has to be reloaded.
+     */
+    public Flux<ChangeEvent> watch(long fromRevision) {
+        return Flux.defer(() -> {
+            Sinks.Many<ChangeEvent> live = Sinks.many().unicast().onBackpressureBuffer();
+            Disposable subscription = tail.subscribe(live::tryEmitNext, live::tryEmitError, live::tryEmitComplete);
+            long replayTo = head.get(); // read after subscribing, later events arrive live
+            long from = Math.max(fromRevision, replayTo);
+            return Flux.concat(replay(fromRevision, replayTo),
+                            live.asFlux().filter(event -> event.getType() == ChangeEvent.Type.RESYNC || event.getRevision() > from))
+                    .doFinally(signal -> subscription.dispose());
+        });
+    }
+
+    /**
+     * Reads the history between a watcher's position and the shared poller, which has already
+     * waited out the gaps in it.
+     */
+    private Flux<ChangeEvent> replay(long fromRevision, long toRevision) {
+        AtomicLong cursor = new AtomicLong(fromRevision);
+        return Flux.<List<ChangeEvent>>generate(sink -> {
+                    if (cursor.get() >= toRevision) {
+                        sink.complete();
+                        return;
+                    }
+                    List<ChangeEvent> page = repository.findAllAfter(cursor.get(), config.getPageSize());
+                    List<ChangeEvent> result = new ArrayList<>(page.size());
+                    for (ChangeEvent event : page) {
+                        if (event.getRevision() > toRevision) break;
+                        track(cursor.get(), event);
+                        cursor.set(event.getRevision());
+                        result.add(event);
+                    }
+                    if (result.isEmpty()) {
+                        sink.complete();
+                        return;
+                    }
+                    sink.next(result);
+                    if (result.size() < config.getPageSize()) {
+                        sink.complete();
+                    }
+                })
+                .flatMapIterable(events -> events)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Flux<ChangeEvent> poll() {
+        return Flux.<List<ChangeEvent>>generate(sink -> {
+                    List<ChangeEvent> page = repository.findAllAfter(head.get(), config.getPageSize());
+                    List<ChangeEvent> settled = settled(page, head.get());
+                    if (settled.isEmpty()) {
+                        sink.complete();
+                        return;
+                    }
+                    head.set(settled.get(settled.size() - 1).getRevision());
+                    sink.next(settled);
+                    if (settled.size() < config.getPageSize()) {
+                        sink.complete();
+                    }
+                })
+                .flatMapIterable(events -> events)
+                .concatWith(Flux.defer(() -> Flux.fromIterable(repairGaps())))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Revisions are assigned before commit, so a gap right behind fresh events may still be filled
+     * by a slower transaction. Stop at such a gap until it settles; older gaps are usually rollbacks,
+     * but stay tracked for a while in case the transaction was just slow.
+     */
+    List<ChangeEvent> settled(List<ChangeEvent> page, long after) {
+        long now = System.currentTimeMillis();
+        long expected = after + 1;
+        List<ChangeEvent> result = new ArrayList<>(page.size());
+        for (ChangeEvent event : page) {
+            if (event.getRevision() != expected && now - event.getTimestamp() < config.getSettleMs()) {
+                log.trace("changelog gap before {}, waiting", event.getRevision());
+                break;
+            }
+            track(expected - 1, event);
+            result.add(event);
+            expected = event.getRevision() + 1;
+        }
+        return result;
+    }
+
+    /**
+     * @return a resync event for each skipped revision that has been committed since
+     */
+    List<ChangeEvent> repairGaps() {
+        if (gaps.isEmpty()) return List.of();
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(since -> now - since > config.getGapTimeoutMs());
+        if (gaps.isEmpty()) return List.of();
+
+        List<ChangeEvent> resync = new ArrayList<>();
+        for (ChangeEvent late : repository.findAllIn(new ArrayList<>(gaps.keySet()))) {
+            if (gaps.remove(late.getRevision()) == null) continue;
+            log.warn("changelog revision {} committed after watchers moved past it, resync", late.getRevision());
+            Metrics.counter("changelog.gap.late").increment();
+            resync.add(ChangeEvent.builder()
+                    .revision(late.getRevision())
+                    .type(ChangeEvent.Type.RESYNC)
+                    .operation(late.getOperation())
+                    .id(late.getId())
+                    .key(late.getKey())
+                    .timestamp(late.getTimestamp())
+                    .build());
+        }
+        return resync;
+    }
+
+    private void track(long previous, ChangeEvent event) {
+        long now = System.currentTimeMillis();
+        if (event.getRevision() == previous + 1 || now - event.getTimestamp() > config.getGapTimeoutMs()) return;
+        for (long revision = previous + 1; revision < event.getRevision() && gaps.size() < MAX_TRACKED_GAPS; revision++) {
+            gaps.putIfAbsent(revision, now);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.authserver.service;
+
+import authserver.acl.Acl;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.NegativeCacheConfig;
+import org.example.authserver.config.TenantConfig;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short lived denied checks of a principal, keyed by namespace:object#roles.
+ * Every tenant has its own partition and quota, a tenant churning through principals only evicts its own entries.
+ * <p>
+ * A deny is only stored when nothing was invalidated while it was evaluated, see {@link #generation()},
+ * so a write applied meanwhile can't be hidden for the whole ttl.
+ */
+@Service
+public class DenyCache {
+
+    private final NegativeCacheConfig config;
+    private final TenantConfig tenantConfig;
+    private final Map<String, Cache<String, Set<String>>> partitions = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public DenyCache(AppProperties appProperties) {
+        this.config = appProperties.getNegativeCache();
+        this.tenantConfig = appProperties.getTenant();
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public boolean isDenied(String tenant, String principal, String key) {
+        if (!config.isEnabled()) return false;
+        Cache<String, Set<String>> denied = partitions.get(tenant);
+        Set<String> keys = denied != null ? denied.getIfPresent(principal) : null;
+        return keys != null && keys.contains(key);
+    }
+
+    /**
+     * @param generation {@link #generation()} read before the check was evaluated
+     */
+    public void deny(String tenant, String principal, String key, long generation) {
+        if (!config.isEnabled() || generation != this.generation.get()) return;
+        Cache<String, Set<String>> denied = partitions.computeIfAbsent(tenant, this::partition);
+        denied.asMap().computeIfAbsent(principal, k -> ConcurrentHashMap.newKeySet()).add(key);
+        if (generation != this.generation.get()) {
+            // invalidated between the check above and the put
+            denied.invalidate(principal);
+        }
+    }
+
+    /**
+     * A direct tuple changes the decisions of its principal only, a userset tuple those of any principal.
+     */
+    public void invalidate(Acl acl) {
+        if (acl.hasUserset()) {
+            invalidateAll();
+        } else {
+            generation.incrementAndGet();
+            partitions.values().forEach(denied -> denied.invalidate(acl.getUser()));
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        partitions.values().forEach(Cache::invalidateAll);
+    }
+
+    private Cache<String, Set<String>> partition(String tenant) {
+        long size = tenantConfig.isEnabled() ? tenantConfig.limits(tenant).getDecisionCacheSize() : config.getMaxPrincipals();
+        return CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(config.getTtlMs(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.authserver.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Approximate check counts of recently active principals, used to pick whom to warm up after a restart.
+ */
+@Service
+public class HotPrincipalTracker {
+
+    private final Cache<String, LongAdder> counts = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    public void record(String principal) {
+        if (StringUtils.isBlank(principal)) return;
+        counts.asMap().computeIfAbsent(principal, k -> new LongAdder()).increment();
+    }
+
+    public List<String> top(int n) {
+        return counts.asMap().entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                .limit(n)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Seeds the tracker with a previously saved {@link #top(int)}, keeping its order.
+     */
+    public void restore(List<String> principals) {
+        for (int i = 0; i < principals.size(); i++) {
+            LongAdder count = new LongAdder();
+            count.add(principals.size() - i);
+            counts.asMap().putIfAbsent(principals.get(i), count);
+        }
+    }
+}
@@ -4,8 +4,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.entity.MappingEntity;
 import org.example.authserver.repo.pgsql.MappingRepository;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 
 @Slf4j
@@ -20,34 +22,36 @@ public class MappingCacheLoader {
         this.cache = cache;
     }
 
-    public void schedule(int t, TimeUnit timeUnit) {
+    public void schedule(Runnable task, int t, TimeUnit timeUnit) {
         executor.scheduleAtFixedRate(() -> {
             log.info("Refreshing mappings cache");
-            refreshCache();
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warn("unable to refresh mappings cache: {}", e.getMessage());
+            }
         }, 0, t,  timeUnit);
     }
 
+    public void scheduleOnce(Runnable task, long delay, TimeUnit timeUnit) {
+        executor.schedule(task, delay, timeUnit);
+    }
+
     public List<MappingEntity> refreshCache(){
         List<MappingEntity> mappings = mappingRepository.findAll();
-        // cleanup old mappings
-        for (String id : cache.keySet()){
-            boolean found = false;
-            for (MappingEntity entity : mappings){
-                if (entity.getId().equals(id)){
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                log.info("Removing mapping {} from cache", id);
-                cache.remove(id);
-            }
-        }
-
+        Set<String> ids = new HashSet<>(mappings.size());
         for (MappingEntity entity : mappings){
+            ids.add(entity.getId());
             cache.put(entity.getId(), entity);
         }
 
+        // cleanup old mappings
+        cache.keySet().removeIf(id -> {
+            if (ids.contains(id)) return false;
+            log.info("Removing mapping {} from cache", id);
+            return true;
+        });
+
         return mappings;
     }
 }
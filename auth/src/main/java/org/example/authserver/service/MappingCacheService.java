@@ -1,35 +1,122 @@
 package org.example.authserver.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.MappingConfig;
+import org.example.authserver.entity.ChangeEvent;
 import org.example.authserver.entity.MappingEntity;
+import org.example.authserver.repo.ChangelogRepository;
 import org.example.authserver.repo.pgsql.MappingRepository;
+import org.example.authserver.service.model.MappingTable;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Service
 public class MappingCacheService {
 
     private final Map<String, MappingEntity> cache = new ConcurrentHashMap<>();
+    private final MappingRepository mappingRepository;
+    private final ChangelogRepository changelogRepository;
     private final MappingCacheLoader mappingCacheLoader;
+    private final MappingConfig config;
+    private final AtomicBoolean resyncScheduled = new AtomicBoolean();
 
-    public MappingCacheService(MappingRepository mappingRepository) {
+    private volatile MappingTable table = MappingTable.EMPTY;
+    private volatile long revision;
+    private volatile boolean loaded;
+
+    public MappingCacheService(MappingRepository mappingRepository, ChangelogRepository changelogRepository, AppProperties appProperties) {
+        this.mappingRepository = mappingRepository;
+        this.changelogRepository = changelogRepository;
+        this.config = appProperties.getMapping();
         this.mappingCacheLoader = new MappingCacheLoader(mappingRepository, cache);
-        this.mappingCacheLoader.schedule(10, TimeUnit.MINUTES);
+        if (config.getResyncIntervalMin() > 0) {
+            this.mappingCacheLoader.schedule(this::resync, config.getResyncIntervalMin(), TimeUnit.MINUTES);
+        }
     }
 
     public List<MappingEntity> getAll() {
-        log.trace("getting mappings from cache: {}", cache.size());
-        if (cache.size() == 0){
+        return getTable().getMappings();
+    }
+
+    public MappingTable getTable() {
+        MappingTable current = table;
+        log.trace("getting mappings from cache: {}", current.size());
+        if (!loaded){
             log.info("refreshing cache");
-            return mappingCacheLoader.refreshCache();
+            resync();
+            return table;
+        }
+        return current;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Reloads every mapping and publishes a freshly compiled table.
+     */
+    public synchronized void resync() {
+        long loadRevision = changelogRepository.findMaxRevision(); // read first, the loaded rows are at least this fresh
+        mappingCacheLoader.refreshCache();
+        table = MappingTable.of(cache.values());
+        revision = Math.max(revision, loadRevision);
+        loaded = true;
+        log.debug("mappings resynced: {} mappings at revision {}", table.size(), revision);
+    }
+
+    /**
+     * Coalesces resync requests, e.g. when the changelog skips revisions that could have been mapping changes.
+     */
+    public void resyncLater() {
+        if (!resyncScheduled.compareAndSet(false, true)) return;
+        mappingCacheLoader.scheduleOnce(() -> {
+            resyncScheduled.set(false);
+            resync();
+        }, config.getGapResyncDelayMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies a single mapping change, recompiling only that mapping.
+     */
+    public synchronized void apply(ChangeEvent event) {
+        if (event.getRevision() <= revision) return; // already part of a newer load
+
+        MappingEntity entity = event.getOperation() == ChangeEvent.Operation.WRITE
+                ? mappingRepository.findById(event.getId()).orElse(null)
+                : null;
+        if (entity == null) {
+            cache.remove(event.getId());
+            table = table.without(event.getId());
+        } else {
+            cache.put(entity.getId(), entity);
+            table = table.with(entity);
+        }
+        revision = event.getRevision();
+        log.debug("mapping {} {} applied at revision {}", event.getOperation(), event.getKey(), revision);
+    }
+
+    /**
+     * Fills the cache from a local snapshot taken at {@code snapshotRevision}, unless the database was loaded
+     * already; changes replayed from that revision bring it up to date.
+     */
+    public synchronized void restore(List<MappingEntity> mappings, long snapshotRevision) {
+        if (loaded) return;
+
+        cache.clear();
+        for (MappingEntity entity : mappings) {
+            cache.put(entity.getId(), entity);
         }
-        return new ArrayList<>(cache.values());
+        table = MappingTable.of(cache.values());
+        revision = snapshotRevision;
+        loaded = !cache.isEmpty();
     }
 
 }
@@ -0,0 +1,50 @@
+package org.example.authserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.entity.MappingEntity;
+import org.example.authserver.repo.ChangelogRepository;
+import org.example.authserver.repo.pgsql.MappingRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Mapping writes, each recorded in the changelog so every instance applies it without a full reload.
+ */
+@Slf4j
+@Service
+public class MappingWriteService {
+
+    private final MappingRepository repository;
+    private final ChangelogRepository changelogRepository;
+
+    public MappingWriteService(MappingRepository repository, ChangelogRepository changelogRepository) {
+        this.repository = repository;
+        this.changelogRepository = changelogRepository;
+    }
+
+    @Transactional
+    public void save(MappingEntity entity) {
+        repository.save(entity);
+        changelogRepository.append(ChangeEvent.of(entity, ChangeEvent.Operation.WRITE));
+    }
+
+    @Transactional
+    public void deleteById(String id) {
+        repository.findById(id).ifPresent(entity -> {
+            repository.delete(entity);
+            changelogRepository.append(ChangeEvent.of(entity, ChangeEvent.Operation.DELETE));
+        });
+    }
+
+    @Transactional
+    public void deleteAll() {
+        List<MappingEntity> mappings = repository.findAll();
+        repository.deleteAll(mappings);
+        for (MappingEntity entity : mappings) {
+            changelogRepository.append(ChangeEvent.of(entity, ChangeEvent.Operation.DELETE));
+        }
+    }
+}
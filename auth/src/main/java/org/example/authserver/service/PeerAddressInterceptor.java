@@ -0,0 +1,32 @@
+package org.example.authserver.service;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+import java.net.SocketAddress;
+
+/**
+ * Exposes the transport address of the caller to service methods, for the RPCs only other nodes may call.
+ */
+public class PeerAddressInterceptor implements ServerInterceptor {
+
+    private static final Context.Key<SocketAddress> REMOTE_ADDRESS = Context.key("remote-address");
+
+    /**
+     * @return address of the caller of the current call, or null outside of a call
+     */
+    public static SocketAddress remoteAddress() {
+        return REMOTE_ADDRESS.get();
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        SocketAddress address = call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+        return Contexts.interceptCall(Context.current().withValue(REMOTE_ADDRESS, address), call, headers, next);
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.authserver.service;
+
+import authserver.acl.Acl;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.NegativeCacheConfig;
+import org.example.authserver.repo.AclRepository;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bloom filter of the principals having direct tuples. Only they can hold a relation, usersets resolve to them,
+ * so a principal the filter has never seen is denied without touching the database.
+ * <p>
+ * Writes are added as they arrive, deletes can't be removed from a Bloom filter and are dropped by the periodic rebuild.
+ * Until the first load finishes every principal might have tuples.
+ */
+@Slf4j
+@Service
+public class PrincipalFilter {
+
+    private final static ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor();
+
+    private final AclRepository aclRepository;
+    private final NegativeCacheConfig config;
+
+    private final Object swapLock = new Object(); // an add lands in the filter the rebuild publishes
+    private volatile BloomFilter<String> filter;
+    private BloomFilter<String> building;
+    private long rebuildsRequested;
+    private volatile boolean ready;
+
+    public PrincipalFilter(AclRepository aclRepository, AppProperties appProperties) {
+        this.aclRepository = aclRepository;
+        this.config = appProperties.getNegativeCache();
+        this.filter = create(config.getBloomExpectedPrincipals());
+    }
+
+    public void start() {
+        if (!config.isEnabled()) return;
+        long interval = config.getRebuildIntervalMin();
+        if (interval > 0) {
+            EXECUTOR.scheduleWithFixedDelay(this::rebuild, 0, interval, TimeUnit.MINUTES);
+        } else {
+            EXECUTOR.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Every principal might have tuples until a rebuild started after this call has finished, for writes that
+     * reached the database without passing through {@link #add}.
+     */
+    public void rebuildLater() {
+        if (!config.isEnabled()) return;
+        synchronized (swapLock) {
+            rebuildsRequested++;
+            ready = false;
+        }
+        EXECUTOR.execute(this::rebuild);
+    }
+
+    public boolean mightHaveTuples(String principal) {
+        if (!config.isEnabled() || !ready) return true;
+        return filter.mightContain(principal);
+    }
+
+    public void add(Acl acl) {
+        if (!acl.hasUserset()) {
+            add(acl.getUser());
+        }
+    }
+
+    public void add(String principal) {
+        if (StringUtils.isBlank(principal) || "*".equals(principal)) return;
+        synchronized (swapLock) {
+            filter.put(principal);
+            if (building != null) {
+                building.put(principal);
+            }
+        }
+    }
+
+    synchronized void rebuild() {
+        try {
+            // sized for growth, an overfilled filter quietly lets more unknown principals through
+            long expected = Math.max(config.getBloomExpectedPrincipals(), 2 * filter.approximateElementCount());
+            BloomFilter<String> next = create(expected);
+            long requested;
+            synchronized (swapLock) {
+                building = next; // writes arriving during the scan go to both
+                requested = rebuildsRequested;
+            }
+            long started = System.currentTimeMillis();
+            aclRepository.forEachPrincipal(next::put);
+            synchronized (swapLock) {
+                filter = next;
+                building = null;
+                ready = requested == rebuildsRequested;
+            }
+            log.info("principal filter rebuilt, ~{} principals, {} ms", next.approximateElementCount(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("unable to rebuild principal filter: {}", e.getMessage());
+        } finally {
+            synchronized (swapLock) {
+                building = null;
+            }
+        }
+    }
+
+    private BloomFilter<String> create(long expected) {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expected, config.getBloomFpp());
+    }
+}
@@ -26,9 +26,10 @@ public class RelationsService {
 
     @Timed(value = "relation.get", percentiles = {0.99, 0.95, 0.75})
     public Set<String> getRelations(String namespace, String object, String principal, RequestCache requestCache) {
-        Optional<Set<String>> cachedRelations = userRelationsCacheService.getRelations(principal);
+        Optional<Set<String>> cachedRelations = userRelationsCacheService.getRelations(principal, requestCache.getMinRevision());
         if (cachedRelations.isPresent()) {
             log.trace("Return cached relations for user {}", principal);
+            requestCache.getTrace().cacheHit("userRelations", principal);
             return cachedRelations.get();
         }
 
@@ -0,0 +1,168 @@
+package org.example.authserver.service;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.ShardConfig;
+import org.example.authserver.entity.BatchCheckItem;
+import org.example.authserver.entity.BatchCheckItemResult;
+import org.example.authserver.grpc.AuthzServiceGrpc;
+import org.example.authserver.grpc.BatchCheckRequest;
+import org.example.authserver.grpc.BatchCheckResponse;
+import org.example.authserver.grpc.CheckItem;
+import org.example.authserver.grpc.ObjectRef;
+import org.example.authserver.grpc.RelationsRequest;
+import org.example.authserver.grpc.RelationsResponse;
+import org.example.authserver.service.model.ConsistentHashRing;
+import org.example.authserver.service.model.EvaluationBudget;
+import org.springframework.stereotype.Service;
+import reactor.util.function.Tuple2;
+
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Sharded mode: every principal is owned by one node of a static ring, so its per-principal caches live on
+ * that node only. Checks arriving elsewhere are forwarded to the owner in one call per request.
+ * <p>
+ * Tuples stay in the shared database, so when the owner can't be reached the check is evaluated locally.
+ */
+@Slf4j
+@Service
+public class ShardRouter {
+
+    /**
+     * Trailer of an owner's UNAVAILABLE answer when its evaluation budget failed the check; the forwarding node
+     * fails the same way instead of evaluating again.
+     */
+    public static final Metadata.Key<String> BUDGET_EXCEEDED = Metadata.Key.of("authz-budget-exceeded", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final ShardConfig config;
+    private final ConsistentHashRing ring;
+    private final Map<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+
+    public ShardRouter(AppProperties appProperties) {
+        this.config = appProperties.getShard();
+        if (!config.isEnabled()) {
+            this.ring = null;
+            return;
+        }
+
+        if (!config.getNodes().contains(config.getSelf())) {
+            throw new IllegalStateException(String.format("app.shard.self %s is not one of app.shard.nodes %s", config.getSelf(), config.getNodes()));
+        }
+        this.ring = new ConsistentHashRing(config.getNodes(), config.getVirtualNodes());
+        log.info("Sharded mode, self: {}, nodes: {}", config.getSelf(), ring.getNodes());
+    }
+
+    /**
+     * @return the node owning the principal when it is not this one
+     */
+    public Optional<String> remoteOwner(String principal) {
+        if (ring == null || StringUtils.isBlank(principal) || "*".equals(principal)) {
+            return Optional.empty();
+        }
+        String owner = ring.owner(principal);
+        return config.getSelf().equals(owner) ? Optional.empty() : Optional.of(owner);
+    }
+
+    /**
+     * Internal RPCs are only served to the nodes of the ring; node hosts are resolved on every call,
+     * the JVM caches the lookups.
+     */
+    public boolean isPeer(SocketAddress address) {
+        if (ring == null || !(address instanceof InetSocketAddress)) return false;
+        InetAddress caller = ((InetSocketAddress) address).getAddress();
+        if (caller == null) return false;
+
+        for (String node : config.getNodes()) {
+            String host = node.contains(":") ? node.substring(0, node.lastIndexOf(':')) : node;
+            try {
+                for (InetAddress nodeAddress : InetAddress.getAllByName(host)) {
+                    if (nodeAddress.equals(caller)) return true;
+                }
+            } catch (UnknownHostException e) {
+                log.debug("Unable to resolve shard node {}: {}", node, e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return relations of the principal on all objects, or empty when the owner failed to answer
+     */
+    public Optional<Set<String>> relations(String owner, String principal, Collection<Tuple2<String, String>> objects, long minRevision) {
+        RelationsRequest.Builder request = RelationsRequest.newBuilder()
+                .setPrincipal(principal)
+                .setMinRevision(minRevision);
+        for (Tuple2<String, String> object : objects) {
+            request.addObjects(ObjectRef.newBuilder().setNamespace(object.getT1()).setObject(object.getT2()).build());
+        }
+
+        try {
+            RelationsResponse response = stub(owner).relations(request.build());
+            log.debug("relations for {} forwarded to {}: {} objects", principal, owner, objects.size());
+            return Optional.of(new HashSet<>(response.getTagsList()));
+        } catch (StatusRuntimeException e) {
+            log.warn("Unable to forward relations for {} to {}: {}", principal, owner, e.getStatus());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return results in item order, or empty when the owner failed to answer
+     */
+    public Optional<List<BatchCheckItemResult>> checkBatch(String owner, String principal, List<BatchCheckItem> items, long minRevision) {
+        BatchCheckRequest.Builder request = BatchCheckRequest.newBuilder()
+                .setPrincipal(principal)
+                .setMinRevision(minRevision)
+                .setForwarded(true);
+        for (BatchCheckItem item : items) {
+            request.addItems(CheckItem.newBuilder()
+                    .setNamespace(item.getNamespace())
+                    .setObject(item.getObject())
+                    .setRelation(item.getRelation())
+                    .build());
+        }
+
+        try {
+            BatchCheckResponse response = stub(owner).batchCheck(request.build());
+            log.debug("batch check for {} forwarded to {}: {} items", principal, owner, items.size());
+            return Optional.of(response.getResultsList().stream()
+                    .map(result -> new BatchCheckItemResult(result.getItem().getNamespace(), result.getItem().getObject(),
+                            result.getItem().getRelation(), result.getAllowed()))
+                    .collect(Collectors.toList()));
+        } catch (StatusRuntimeException e) {
+            String reason = e.getTrailers() == null ? null : e.getTrailers().get(BUDGET_EXCEEDED);
+            if (reason != null) {
+                throw new EvaluationBudget.ExceededException(EvaluationBudget.Reason.valueOf(reason), 0);
+            }
+            log.warn("Unable to forward batch check for {} to {}: {}", principal, owner, e.getStatus());
+            return Optional.empty();
+        }
+    }
+
+    private AuthzServiceGrpc.AuthzServiceBlockingStub stub(String node) {
+        ManagedChannel channel = channels.computeIfAbsent(node, target -> ManagedChannelBuilder.forTarget(target)
+                .usePlaintext()
+                .build());
+        return AuthzServiceGrpc.newBlockingStub(channel)
+                .withDeadlineAfter(config.getForwardTimeoutMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        channels.values().forEach(ManagedChannel::shutdown);
+    }
+}
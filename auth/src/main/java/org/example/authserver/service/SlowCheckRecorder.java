@@ -0,0 +1,64 @@
+package org.example.authserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.FlightRecorderConfig;
+import org.example.authserver.service.model.CheckTrace;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+@Slf4j
+@Service
+public class SlowCheckRecorder {
+
+    private final FlightRecorderConfig config;
+    private final AtomicReferenceArray<CheckTrace> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Counter slowChecks;
+
+    public SlowCheckRecorder(AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.config = appProperties.getFlightRecorder();
+        this.buffer = new AtomicReferenceArray<>(Math.max(1, config.getCapacity()));
+        this.slowChecks = meterRegistry.counter("check.slow");
+    }
+
+    public boolean record(CheckTrace trace) {
+        if (!config.isEnabled() || trace.getDurationMs() < config.getThresholdMs()) {
+            return false;
+        }
+
+        long seq = sequence.getAndIncrement();
+        buffer.set((int) (seq % buffer.length()), trace);
+        slowChecks.increment();
+        log.debug("Recorded slow check '{}' for {}: {}ms", trace.getDescription(), trace.getPrincipal(), trace.getDurationMs());
+        return true;
+    }
+
+    /**
+     * @return recorded traces, newest first
+     */
+    public List<CheckTrace> getRecent() {
+        long last = sequence.get();
+        int size = (int) Math.min(last, buffer.length());
+        List<CheckTrace> result = new ArrayList<>(size);
+        for (long seq = last - 1; seq >= last - size; seq--) {
+            CheckTrace trace = buffer.get((int) (seq % buffer.length()));
+            if (trace != null) {
+                result.add(trace);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < buffer.length(); i++) {
+            buffer.set(i, null);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.authserver.service;
+
+import authserver.acl.AclRelationConfig;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.SnapshotConfig;
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.entity.MappingEntity;
+import org.example.authserver.service.model.Snapshot;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Local, memory-mapped copy of the config and mapping caches plus an append-only log of config changes
+ * applied after it, so a restarted node can serve checks before it has talked to the database.
+ * <p>
+ * Snapshot layout: magic, version, revision, createdAt, then configs, mappings and hot principals as length-prefixed JSON.
+ * Log layout: length-prefixed JSON entries; a torn entry at the tail is ignored.
+ */
+@Slf4j
+@Service
+public class SnapshotService {
+
+    private static final int MAGIC = 0x415A534E; // AZSN
+    private static final int VERSION = 2;
+    private static final String SNAPSHOT_FILE = "authz.snapshot";
+    private static final String LOG_FILE = "authz.changelog";
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final SnapshotConfig config;
+    private final Object logLock = new Object();
+
+    public SnapshotService(AppProperties appProperties) {
+        this.config = appProperties.getSnapshot();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public void write(Snapshot snapshot) throws IOException {
+        if (!config.isEnabled()) return;
+
+        byte[] configs = mapper.writeValueAsBytes(snapshot.getConfigs());
+        byte[] mappings = mapper.writeValueAsBytes(snapshot.getMappings());
+        byte[] principals = mapper.writeValueAsBytes(snapshot.getPrincipals());
+        int size = 4 + 4 + 8 + 8 + 4 + configs.length + 4 + mappings.length + 4 + principals.length;
+
+        Path directory = Files.createDirectories(Paths.get(config.getDirectory()));
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(snapshot.getRevision())
+                    .putLong(snapshot.getCreatedAt())
+                    .putInt(configs.length).put(configs)
+                    .putInt(mappings.length).put(mappings)
+                    .putInt(principals.length).put(principals);
+            buffer.force();
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), REPLACE_EXISTING, ATOMIC_MOVE);
+
+        compactLog(snapshot.getRevision());
+        log.info("snapshot written at revision {}: {} configs, {} mappings, {} bytes",
+                snapshot.getRevision(), snapshot.getConfigs().size(), snapshot.getMappings().size(), size);
+    }
+
+    /**
+     * @return the last snapshot with the log replayed on top of it, or empty when there is none or it can't be read
+     */
+    public Optional<Snapshot> load() {
+        if (!config.isEnabled()) return Optional.empty();
+
+        Path file = Paths.get(config.getDirectory(), SNAPSHOT_FILE);
+        if (!Files.exists(file)) return Optional.empty();
+
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("snapshot {} has unknown format, ignoring", file);
+                return Optional.empty();
+            }
+
+            Snapshot snapshot = Snapshot.builder()
+                    .revision(buffer.getLong())
+                    .createdAt(buffer.getLong())
+                    .configs(mapper.readValue(readBytes(buffer), new TypeReference<Map<String, AclRelationConfig>>() {}))
+                    .mappings(mapper.readValue(readBytes(buffer), new TypeReference<List<MappingEntity>>() {}))
+                    .principals(mapper.readValue(readBytes(buffer), new TypeReference<List<String>>() {}))
+                    .build();
+
+            long ageSec = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - snapshot.getCreatedAt());
+            if (config.getMaxAgeSec() > 0 && ageSec > config.getMaxAgeSec()) {
+                log.info("snapshot {} is {}s old, over the {}s limit, ignoring", file, ageSec, config.getMaxAgeSec());
+                return Optional.empty();
+            }
+
+            List<LogEntry> entries = readLog(snapshot.getRevision());
+            for (LogEntry entry : entries) {
+                replay(snapshot, entry);
+            }
+
+            log.info("snapshot loaded at revision {} (+{} log entries): {} configs, {} mappings",
+                    snapshot.getRevision(), entries.size(), snapshot.getConfigs().size(), snapshot.getMappings().size());
+            return Optional.of(snapshot);
+        } catch (Exception e) {
+            log.warn("unable to load snapshot {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void append(ChangeEvent event, AclRelationConfig relationConfig) {
+        if (!config.isEnabled()) return;
+
+        LogEntry entry = new LogEntry(event.getRevision(), event.getOperation(), event.getId(), relationConfig);
+        synchronized (logLock) {
+            try {
+                Files.createDirectories(Paths.get(config.getDirectory()));
+                try (FileChannel channel = FileChannel.open(Paths.get(config.getDirectory(), LOG_FILE), CREATE, WRITE, APPEND)) {
+                    writeEntry(channel, entry);
+                }
+            } catch (IOException e) {
+                log.warn("unable to append revision {} to snapshot log: {}", event.getRevision(), e.getMessage());
+            }
+        }
+    }
+
+    private void replay(Snapshot snapshot, LogEntry entry) {
+        snapshot.getConfigs().values().removeIf(c -> entry.getId().equals(c.getId().toString()));
+        if (entry.getOperation() == ChangeEvent.Operation.WRITE && entry.getConfig() != null) {
+            snapshot.getConfigs().put(entry.getConfig().getNamespace(), entry.getConfig());
+        }
+        snapshot.setRevision(Math.max(snapshot.getRevision(), entry.getRevision()));
+    }
+
+    private List<LogEntry> readLog(long afterRevision) throws IOException {
+        Path file = Paths.get(config.getDirectory(), LOG_FILE);
+        List<LogEntry> entries = new ArrayList<>();
+        if (!Files.exists(file)) return entries;
+
+        synchronized (logLock) {
+            try (FileChannel channel = FileChannel.open(file, READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= 4) {
+                    int length = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) break; // torn write
+                    byte[] bytes = new byte[length];
+                    buffer.get(bytes);
+                    LogEntry entry = mapper.readValue(bytes, LogEntry.class);
+                    if (entry.getRevision() > afterRevision) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+
+        return entries.stream()
+                .sorted(Comparator.comparingLong(LogEntry::getRevision))
+                .collect(Collectors.toList());
+    }
+
+    private void compactLog(long revision) throws IOException {
+        Path file = Paths.get(config.getDirectory(), LOG_FILE);
+        synchronized (logLock) {
+            List<LogEntry> entries = readLog(revision);
+            Path tmp = Paths.get(config.getDirectory(), LOG_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                for (LogEntry entry : entries) {
+                    writeEntry(channel, entry);
+                }
+            }
+            Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        }
+    }
+
+    private static void writeEntry(FileChannel channel, LogEntry entry) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LogEntry {
+        private long revision;
+        private ChangeEvent.Operation operation;
+        private String id;
+        private AclRelationConfig config;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.authserver.service;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.function.Function;
+
+/**
+ * Bridges a {@link reactor.core.publisher.Flux} to a server-streaming gRPC call,
+ * requesting the next element only while the client is ready to receive.
+ */
+@Slf4j
+public class StreamObserverSubscriber<T, R> extends BaseSubscriber<T> {
+
+    private final ServerCallStreamObserver<R> observer;
+    private final Function<T, R> mapper;
+    private final String name;
+
+    public StreamObserverSubscriber(StreamObserver<R> responseObserver, Function<T, R> mapper, String name) {
+        this.observer = (ServerCallStreamObserver<R>) responseObserver;
+        this.mapper = mapper;
+        this.name = name;
+        observer.setOnReadyHandler(() -> request(1));
+        observer.setOnCancelHandler(this::dispose);
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        request(1);
+    }
+
+    @Override
+    protected void hookOnNext(T value) {
+        observer.onNext(mapper.apply(value));
+        if (observer.isReady()) {
+            request(1);
+        }
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        observer.onCompleted();
+    }
+
+    @Override
+    protected void hookOnError(Throwable e) {
+        log.warn("{} failed: {}", name, e.getMessage());
+        observer.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.authserver.service;
+
+import io.envoyproxy.envoy.config.core.v3.HeaderValue;
+import io.envoyproxy.envoy.config.core.v3.HeaderValueOption;
+import io.envoyproxy.envoy.service.auth.v3.OkHttpResponse;
+import org.example.authserver.config.TagsConfig;
+import org.example.authserver.entity.CheckResult;
+
+import java.util.*;
+
+/**
+ * Writes the allowed tags of a check result into the ok response, as configured in {@link TagsConfig}.
+ */
+public class TagEmitter {
+
+    public static final String HEADER = "X-ALLOWED-TAGS";
+    public static final String TRUNCATED_HEADER = "X-ALLOWED-TAGS-TRUNCATED";
+
+    private final TagsConfig config;
+
+    public TagEmitter(TagsConfig config) {
+        this.config = config;
+    }
+
+    public void emit(CheckResult result, OkHttpResponse.Builder response) {
+        List<String> tags = select(result);
+        int total = tags.size();
+        if (config.getMaxTags() > 0 && total > config.getMaxTags()) {
+            tags = tags.subList(0, config.getMaxTags());
+        }
+        boolean truncated = tags.size() < total;
+
+        response.addHeaders(header(HEADER, String.join(",", encode(tags))));
+        if (truncated) {
+            response.addHeaders(header(TRUNCATED_HEADER, String.valueOf(total)));
+        }
+    }
+
+    List<String> select(CheckResult result) {
+        if (config.getMode() == TagsConfig.Mode.NONE || result.getTags() == null) return Collections.emptyList();
+
+        List<String> tags = new ArrayList<>();
+        for (String tag : result.getTags()) {
+            if (config.getMode() == TagsConfig.Mode.ALL || result.getMatchedObjects().contains(object(tag))) {
+                tags.add(tag);
+            }
+        }
+        Collections.sort(tags); // stable output and truncation
+        return tags;
+    }
+
+    List<String> encode(List<String> tags) {
+        if (config.getEncoding() == TagsConfig.Encoding.CSV) return tags;
+
+        Map<String, StringBuilder> byObject = new LinkedHashMap<>();
+        for (String tag : tags) {
+            int idx = tag.lastIndexOf('#');
+            if (idx == -1) {
+                byObject.putIfAbsent(tag, new StringBuilder(tag));
+                continue;
+            }
+            StringBuilder entry = byObject.get(tag.substring(0, idx));
+            if (entry == null) {
+                byObject.put(tag.substring(0, idx), new StringBuilder(tag));
+            } else {
+                entry.append('|').append(tag, idx + 1, tag.length());
+            }
+        }
+        List<String> result = new ArrayList<>(byObject.size());
+        byObject.values().forEach(entry -> result.add(entry.toString()));
+        return result;
+    }
+
+    private static String object(String tag) {
+        int idx = tag.lastIndexOf('#');
+        return idx == -1 ? tag : tag.substring(0, idx);
+    }
+
+    private static HeaderValueOption header(String key, String value) {
+        return HeaderValueOption.newBuilder()
+                .setHeader(HeaderValue.newBuilder().setKey(key).setValue(value).build())
+                .build();
+    }
+}
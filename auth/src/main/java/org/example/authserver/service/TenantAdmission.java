@@ -0,0 +1,169 @@
+package org.example.authserver.service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.TenantConfig;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per tenant concurrency and rate limits on the check path, so a tenant with a traffic spike or pathological
+ * data can't take every gRPC thread and database connection from the others.
+ */
+@Slf4j
+@Service
+public class TenantAdmission {
+
+    public static final String DEFAULT = "default";
+    public static final String OTHER = "other";
+
+    private final TenantConfig config;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public TenantAdmission(AppProperties appProperties) {
+        this.config = appProperties.getTenant();
+    }
+
+    /**
+     * @return the bucket name of the tenant, {@link #DEFAULT} when unknown or tenants are disabled,
+     * {@link #OTHER} when it is not listed
+     */
+    public String resolve(String tenant) {
+        if (!config.isEnabled() || StringUtils.isBlank(tenant)) return DEFAULT;
+        // tenant names come from tokens nobody verified yet, a forged issuer must not get its own bucket
+        return config.isListed(tenant) ? tenant : OTHER;
+    }
+
+    public Permit admit(String tenant) {
+        if (!config.isEnabled()) return Permit.UNLIMITED;
+
+        Bucket bucket = buckets.computeIfAbsent(tenant, this::bucket);
+        long start = System.nanoTime();
+        String reason = bucket.acquire(start + TimeUnit.MILLISECONDS.toNanos(config.getQueueTimeoutMs()));
+        if (reason == null) {
+            return new Permit(bucket, start, Permit.Decision.ADMITTED);
+        }
+
+        Metrics.counter("authz.tenant.rejected", "tenant", tenant, "reason", reason).increment();
+        log.debug("tenant {} over its {} limit, {}", tenant, reason, bucket.limits.getOverLimit());
+        return new Permit(bucket, start, bucket.limits.getOverLimit() == TenantConfig.OverLimit.FAIL_OPEN
+                ? Permit.Decision.FAIL_OPEN : Permit.Decision.SHED);
+    }
+
+    private Bucket bucket(String tenant) {
+        return new Bucket(tenant, config.limits(tenant));
+    }
+
+    public static final class Permit implements AutoCloseable {
+
+        public enum Decision { ADMITTED, SHED, FAIL_OPEN }
+
+        static final Permit UNLIMITED = new Permit(null, 0, Decision.ADMITTED);
+
+        private final Bucket bucket;
+        private final long start;
+        private final Decision decision;
+
+        private Permit(Bucket bucket, long start, Decision decision) {
+            this.bucket = bucket;
+            this.start = start;
+            this.decision = decision;
+        }
+
+        public Decision getDecision() {
+            return decision;
+        }
+
+        @Override
+        public void close() {
+            if (bucket == null || decision != Decision.ADMITTED) return;
+            bucket.release();
+            bucket.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    static final class Bucket {
+
+        private final String tenant;
+        private final TenantConfig.Limits limits;
+        private final Semaphore slots;
+        private final RateLimiter rate;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Timer latency;
+
+        Bucket(String tenant, TenantConfig.Limits limits) {
+            this.tenant = tenant;
+            this.limits = limits;
+            this.slots = limits.getMaxConcurrent() > 0 ? new Semaphore(limits.getMaxConcurrent()) : null;
+            this.rate = limits.getRatePerSec() > 0 ? RateLimiter.create(limits.getRatePerSec()) : null;
+
+            Tags tags = Tags.of("tenant", tenant);
+            this.latency = Timer.builder("authz.tenant.check")
+                    .tags(tags)
+                    .publishPercentiles(0.99, 0.95, 0.75)
+                    .register(Metrics.globalRegistry);
+            Metrics.gauge("authz.tenant.inflight", tags, inFlight);
+            Metrics.gauge("authz.tenant.queued", tags, queued);
+            Metrics.gauge("authz.tenant.saturation", tags, this,
+                    b -> b.slots != null ? (double) b.inFlight.get() / b.limits.getMaxConcurrent() : 0);
+        }
+
+        /**
+         * @return null when admitted, the exceeded limit otherwise
+         */
+        String acquire(long deadline) {
+            boolean queue = limits.getOverLimit() == TenantConfig.OverLimit.QUEUE;
+            if (rate != null && !rate.tryAcquire()
+                    && !(queue && await(() -> rate.tryAcquire(1, remaining(deadline), TimeUnit.NANOSECONDS)))) {
+                return "rate";
+            }
+            if (slots != null && !slots.tryAcquire()
+                    && !(queue && await(() -> slots.tryAcquire(remaining(deadline), TimeUnit.NANOSECONDS)))) {
+                return "concurrency";
+            }
+            inFlight.incrementAndGet();
+            return null;
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+            if (slots != null) {
+                slots.release();
+            }
+        }
+
+        private boolean await(Wait wait) {
+            if (queued.incrementAndGet() > limits.getMaxQueued()) {
+                queued.decrementAndGet();
+                return false;
+            }
+            try {
+                return wait.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+
+        private static long remaining(long deadline) {
+            return Math.max(0, deadline - System.nanoTime());
+        }
+    }
+
+    private interface Wait {
+        boolean await() throws InterruptedException;
+    }
+}
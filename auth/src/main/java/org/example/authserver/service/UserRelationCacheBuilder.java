@@ -7,6 +7,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.example.authserver.config.UserRelationsConfig;
 import org.example.authserver.entity.UserRelationEntity;
 import org.example.authserver.repo.AclRepository;
+import org.example.authserver.repo.ChangelogRepository;
 import org.example.authserver.repo.pgsql.UserRelationRepository;
 import org.example.authserver.service.model.RequestCache;
 import org.example.authserver.service.zanzibar.Zanzibar;
@@ -27,16 +28,18 @@ public class UserRelationCacheBuilder {
     private final AclRepository aclRepository;
     private final UserRelationRepository userRelationRepository;
     private final CacheService cacheService;
+    private final ChangelogRepository changelogRepository;
 
     private final List<String> inProgressUsers = new CopyOnWriteArrayList<>();
     private final List<String> scheduledUsers = new CopyOnWriteArrayList<>();
 
-    public UserRelationCacheBuilder(UserRelationsConfig config, AclRepository aclRepository, UserRelationRepository userRelationRepository, Zanzibar zanzibar, CacheService cacheService) {
+    public UserRelationCacheBuilder(UserRelationsConfig config, AclRepository aclRepository, UserRelationRepository userRelationRepository, Zanzibar zanzibar, CacheService cacheService, ChangelogRepository changelogRepository) {
         this.config = config;
         this.aclRepository = aclRepository;
         this.userRelationRepository = userRelationRepository;
         this.zanzibar = zanzibar;
         this.cacheService = cacheService;
+        this.changelogRepository = changelogRepository;
 
         EXECUTOR.scheduleAtFixedRate(this::scheduledBuild, 0, config.getScheduledPeriodTime(), config.getScheduledPeriodTimeUnit());
     }
@@ -158,6 +161,7 @@ public class UserRelationCacheBuilder {
         }
 
         long maxAclUpdated = aclRepository.findMaxAclUpdatedByPrincipal(user);
+        long revision = changelogRepository.findMaxRevision(); // read before building, so the entry is at least this fresh
         RequestCache requestCache = cacheService.prepareHighCardinalityCache(user);
 
         Stopwatch stopwatch = Stopwatch.createStarted();
@@ -181,6 +185,7 @@ public class UserRelationCacheBuilder {
                 .user(user)
                 .relations(relations)
                 .maxAclUpdated(maxAclUpdated)
+                .revision(revision)
                 .build());
     }
 
@@ -6,6 +6,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.example.authserver.config.AppProperties;
 import org.example.authserver.entity.UserRelationEntity;
 import org.example.authserver.repo.AclRepository;
+import org.example.authserver.repo.ChangelogRepository;
 import org.example.authserver.repo.pgsql.UserRelationRepository;
 import org.example.authserver.service.zanzibar.Zanzibar;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,8 +23,8 @@ public class UserRelationsCacheService {
     private final AclRepository aclRepository;
 
     @Autowired
-    public UserRelationsCacheService(AppProperties appProperties, AclRepository aclRepository, UserRelationRepository userRelationRepository, Zanzibar zanzibar, CacheService cacheService) {
-        this(new UserRelationCacheBuilder(appProperties.getUserRelationsCache(), aclRepository, userRelationRepository, zanzibar, cacheService), userRelationRepository, aclRepository);
+    public UserRelationsCacheService(AppProperties appProperties, AclRepository aclRepository, UserRelationRepository userRelationRepository, Zanzibar zanzibar, CacheService cacheService, ChangelogRepository changelogRepository) {
+        this(new UserRelationCacheBuilder(appProperties.getUserRelationsCache(), aclRepository, userRelationRepository, zanzibar, cacheService, changelogRepository), userRelationRepository, aclRepository);
     }
 
     public UserRelationsCacheService(UserRelationCacheBuilder builder, UserRelationRepository userRelationRepository, AclRepository aclRepository) {
@@ -34,6 +35,13 @@ public class UserRelationsCacheService {
     }
 
     public Optional<Set<String>> getRelations(String user) {
+        return getRelations(user, 0);
+    }
+
+    /**
+     * @param minRevision consistency token the cached entry has to be built at or after
+     */
+    public Optional<Set<String>> getRelations(String user, long minRevision) {
         if (StringUtils.isBlank(user)) {
             return Optional.empty();
         }
@@ -48,6 +56,12 @@ public class UserRelationsCacheService {
         }
 
         UserRelationEntity entity = entityOptional.get();
+        long revision = entity.getRevision() != null ? entity.getRevision() : 0;
+        if (revision < minRevision) {
+            log.debug("Can't use user relations cache, entity revision: {}, requested: {}", revision, minRevision);
+            return Optional.empty();
+        }
+
         long maxAclUpdated = aclRepository.findMaxAclUpdatedByPrincipal(user);
         if (entity.getMaxAclUpdated() < maxAclUpdated) {
             log.warn("Can't use user relations cache, entity updatedAt: {}, maxAclUpdated: {}", entity.getMaxAclUpdated(), maxAclUpdated);
@@ -0,0 +1,123 @@
+package org.example.authserver.service;
+
+import com.google.common.base.Stopwatch;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.WarmupConfig;
+import org.example.authserver.entity.MappingEntity;
+import org.example.authserver.repo.pgsql.UserRelationRepository;
+import org.example.authserver.service.model.RequestCache;
+import org.example.authserver.service.zanzibar.AclRelationConfigService;
+import org.example.authserver.service.zanzibar.Zanzibar;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.util.function.Tuple3;
+import reactor.util.function.Tuples;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills caches and exercises the check path before the node reports itself as serving.
+ */
+@Slf4j
+@Service
+public class WarmupService {
+
+    private final WarmupConfig config;
+    private final MappingCacheService mappingCacheService;
+    private final AclRelationConfigService relationConfigService;
+    private final HotPrincipalTracker hotPrincipalTracker;
+    private final UserRelationsCacheService userRelationsCacheService;
+    private final UserRelationRepository userRelationRepository;
+    private final Zanzibar zanzibar;
+
+    public WarmupService(AppProperties appProperties, MappingCacheService mappingCacheService, AclRelationConfigService relationConfigService, HotPrincipalTracker hotPrincipalTracker,
+                         UserRelationsCacheService userRelationsCacheService, UserRelationRepository userRelationRepository, Zanzibar zanzibar) {
+        this.config = appProperties.getWarmup();
+        this.mappingCacheService = mappingCacheService;
+        this.relationConfigService = relationConfigService;
+        this.hotPrincipalTracker = hotPrincipalTracker;
+        this.userRelationsCacheService = userRelationsCacheService;
+        this.userRelationRepository = userRelationRepository;
+        this.zanzibar = zanzibar;
+    }
+
+    public void warmup() {
+        if (!config.isEnabled()) {
+            log.info("Warmup is disabled.");
+            return;
+        }
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        List<MappingEntity> mappings = mappingCacheService.getAll();
+        relationConfigService.update();
+        log.info("Warmup: {} mappings, relation trees built, {}ms", mappings.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+        // builds the persisted relations of hot principals missing from the user relations cache
+        List<String> principals = hotPrincipals();
+        int built = 0;
+        for (String principal : principals) {
+            try {
+                if (userRelationsCacheService.getRelations(principal).isEmpty()) {
+                    userRelationsCacheService.update(principal);
+                    built++;
+                }
+            } catch (Exception e) {
+                log.debug("Warmup: unable to build relations of {}: {}", principal, e.getMessage());
+            }
+        }
+        log.info("Warmup: {} of {} hot principals built into the user relations cache, {}ms", built, principals.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+        int checks = runSyntheticChecks(mappings, principals);
+        log.info("Warmup finished: {} synthetic checks, {}ms", checks, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * The tracker is only seeded by a snapshot, without one the principals whose relations were built most
+     * recently stand in for the hot ones.
+     */
+    private List<String> hotPrincipals() {
+        List<String> principals = hotPrincipalTracker.top(config.getHotPrincipals());
+        if (!principals.isEmpty() || config.getHotPrincipals() <= 0) return principals;
+
+        try {
+            principals = userRelationRepository.findRecentlyUpdatedUsers(PageRequest.of(0, config.getHotPrincipals()));
+        } catch (Exception e) {
+            log.warn("Warmup: unable to read recently updated user relations: {}", e.getMessage());
+            return List.of();
+        }
+        hotPrincipalTracker.restore(principals);
+        return principals;
+    }
+
+    private int runSyntheticChecks(List<MappingEntity> mappings, List<String> principals) {
+        // only mappings that don't depend on request variables can be checked without a request
+        List<Tuple3<String, String, String>> targets = new ArrayList<>();
+        for (MappingEntity mapping : mappings) {
+            if (isStatic(mapping.getNamespace()) && isStatic(mapping.getObject()) && mapping.getRoles() != null && !mapping.getRoles().isEmpty()) {
+                targets.add(Tuples.of(mapping.getNamespace(), mapping.getObject(), mapping.getRoles().get(0)));
+            }
+        }
+        if (targets.isEmpty()) return 0;
+
+        List<String> users = principals.isEmpty() ? List.of("warmup") : principals;
+        int count = 0;
+        for (int i = 0; i < config.getSyntheticChecks(); i++) {
+            Tuple3<String, String, String> target = targets.get(i % targets.size());
+            String user = users.get((i / targets.size()) % users.size());
+            try {
+                zanzibar.check(target.getT1(), target.getT2(), target.getT3(), user, new RequestCache());
+                count++;
+            } catch (Exception e) {
+                log.debug("Warmup: synthetic check {}:{}#{}@{} failed: {}", target.getT1(), target.getT2(), target.getT3(), user, e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    private static boolean isStatic(String value) {
+        return value != null && !value.contains("${");
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.authserver.service.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.entity.BodyMapping;
+import org.example.authserver.entity.BodyMappingKey;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the keys of a {@link BodyMapping} from a json body, compiled once per mapping.
+ * Plain paths like {@code $.a.b[0]} are read with a streaming parser that skips unrelated subtrees
+ * and stops once every key is found. Other JsonPath expressions fall back to {@link JsonPath}.
+ */
+@Slf4j
+public class BodyExtractor {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final Pattern SEGMENT = Pattern.compile("\\.([^.\\[\\]]+)|\\['([^']*)'\\]|\\[\"([^\"]*)\"\\]|\\[(\\d+)\\]");
+
+    private final Node root = new Node();
+    private final Set<String> streamed = new HashSet<>();
+    private final Map<String, JsonPath> fallback = new HashMap<>();
+
+    private BodyExtractor(List<BodyMappingKey> keys) {
+        for (BodyMappingKey key : keys) {
+            String variable = "body." + key.getNamespace();
+            List<Object> segments = parse(key.getXpath());
+            if (segments == null) {
+                fallback.put(variable, JsonPath.compile(key.getXpath()));
+                continue;
+            }
+            Node node = root;
+            for (Object segment : segments) {
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+            }
+            node.variables.add(variable);
+            streamed.add(variable);
+        }
+    }
+
+    /**
+     * @return extractor, or {@code null} when the mapping declares no body keys
+     */
+    public static BodyExtractor of(BodyMapping bodyMapping) {
+        if (bodyMapping == null || bodyMapping.getKeys() == null || bodyMapping.getKeys().isEmpty()) return null;
+        return new BodyExtractor(bodyMapping.getKeys());
+    }
+
+    /**
+     * @return body variables found in the body; missing paths and non-scalar values are left out
+     */
+    public Map<String, String> extract(String body) {
+        Map<String, String> variables = new HashMap<>();
+        if (body == null || body.isEmpty()) return variables;
+
+        if (!streamed.isEmpty()) {
+            try (JsonParser parser = FACTORY.createParser(body)) {
+                if (parser.nextToken() != null) {
+                    walk(parser, root, variables);
+                }
+            } catch (IOException e) {
+                log.debug("unable to parse request body: {}", e.getMessage());
+            }
+        }
+
+        if (!fallback.isEmpty()) {
+            readFallback(body, variables);
+        }
+        return variables;
+    }
+
+    /**
+     * @return true once every streamed key is found, so the caller can stop reading
+     */
+    private boolean walk(JsonParser parser, Node node, Map<String, String> variables) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isScalarValue()) {
+            if (!node.variables.isEmpty() && token != JsonToken.VALUE_NULL) {
+                String value = parser.getValueAsString();
+                for (String variable : node.variables) {
+                    variables.put(variable, value);
+                }
+            }
+            return variables.size() == streamed.size(); // fallback keys are only read afterwards
+        }
+
+        if (node.children.isEmpty()) {
+            parser.skipChildren();
+            return false;
+        }
+
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.children.get(parser.getCurrentName());
+                parser.nextToken();
+                if (child == null) {
+                    parser.skipChildren();
+                } else if (walk(parser, child, variables)) {
+                    return true;
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            int index = 0;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                Node child = node.children.get(index++);
+                if (child == null) {
+                    parser.skipChildren();
+                } else if (walk(parser, child, variables)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void readFallback(String body, Map<String, String> variables) {
+        Object document;
+        try {
+            document = Configuration.defaultConfiguration().jsonProvider().parse(body);
+        } catch (Exception e) {
+            log.debug("unable to parse request body: {}", e.getMessage());
+            return;
+        }
+        for (Map.Entry<String, JsonPath> entry : fallback.entrySet()) {
+            try {
+                Object value = entry.getValue().read(document);
+                if (value instanceof List && ((List<?>) value).size() == 1) {
+                    value = ((List<?>) value).get(0); // indefinite paths always return a list
+                }
+                if (value != null) {
+                    variables.put(entry.getKey(), String.valueOf(value));
+                }
+            } catch (PathNotFoundException e) {
+                log.trace("{} not found in request body", entry.getValue().getPath());
+            }
+        }
+    }
+
+    /**
+     * @return field names and array indexes of a plain path, or {@code null} for anything else
+     */
+    static List<Object> parse(String xpath) {
+        if (xpath == null || !xpath.startsWith("$")) return null;
+        List<Object> segments = new ArrayList<>();
+        Matcher m = SEGMENT.matcher(xpath);
+        int pos = 1;
+        while (pos < xpath.length()) {
+            if (!m.find(pos) || m.start() != pos) return null;
+            if (m.group(1) != null) {
+                if (m.group(1).equals("*")) return null;
+                segments.add(m.group(1));
+            } else if (m.group(2) != null) {
+                segments.add(m.group(2));
+            } else if (m.group(3) != null) {
+                segments.add(m.group(3));
+            } else {
+                segments.add(Integer.parseInt(m.group(4)));
+            }
+            pos = m.end();
+        }
+        return segments;
+    }
+
+    private static class Node {
+        private final Map<Object, Node> children = new HashMap<>();
+        private final List<String> variables = new ArrayList<>();
+    }
+}
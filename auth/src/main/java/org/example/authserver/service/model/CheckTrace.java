@@ -0,0 +1,120 @@
+package org.example.authserver.service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation trace of a single check. Collected for every check (appending an event is cheap)
+ * and kept by {@link org.example.authserver.service.SlowCheckRecorder} only when the check was slow.
+ * Events hold raw values, their details are only formatted when a kept trace is read.
+ */
+@Getter
+public class CheckTrace {
+
+    private static final int MAX_EVENTS = 1024;
+
+    private final long startedAt = System.currentTimeMillis();
+    @JsonIgnore
+    private final long startNanos = System.nanoTime();
+    private final List<Event> events = new ArrayList<>();
+
+    @JsonIgnore
+    private String descriptionFormat;
+    @JsonIgnore
+    private Object[] descriptionArgs;
+    private String principal;
+    private Boolean result;
+    private long durationMs;
+    private int droppedEvents;
+    @JsonIgnore
+    private int depth;
+
+    public void describe(String principal, String format, Object... args) {
+        this.principal = principal;
+        this.descriptionFormat = format;
+        this.descriptionArgs = args;
+    }
+
+    public String getDescription() {
+        return descriptionFormat == null ? null : String.format(descriptionFormat, descriptionArgs);
+    }
+
+    public void mapping(String mappingId, String namespace, String object, Collection<String> roles) {
+        add("mapping", null, null, mappingId, namespace, object, roles);
+    }
+
+    public void frontier(Collection<String> nsObjects) {
+        add("frontier", nsObjects.size(), null, nsObjects);
+    }
+
+    public void query(String name, Object args, int rows, long nanos) {
+        add("query", rows, TimeUnit.NANOSECONDS.toMicros(nanos), name, args);
+    }
+
+    public void cacheHit(String cache, String key) {
+        add("cache_hit", null, null, cache, key);
+    }
+
+    public void cacheHit(String cache, String namespace, String object) {
+        add("cache_hit", null, null, cache, namespace, object);
+    }
+
+    public int enter() {
+        return ++depth;
+    }
+
+    public int exit() {
+        return --depth;
+    }
+
+    public CheckTrace finish(boolean result) {
+        this.result = result;
+        this.durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return this;
+    }
+
+    private void add(String type, Integer rows, Long durationMicros, Object... values) {
+        if (events.size() >= MAX_EVENTS) {
+            droppedEvents++;
+            return;
+        }
+        long atMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        events.add(new Event(type, depth, atMicros, rows, durationMicros, values));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Event {
+        private final String type;
+        private final int depth;
+        private final long atMicros;
+        private final Integer rows;
+        private final Long durationMicros;
+        @JsonIgnore
+        private final Object[] values;
+
+        @SuppressWarnings("unchecked")
+        public String getDetail() {
+            switch (type) {
+                case "mapping":
+                    return String.format("%s => %s:%s %s", values);
+                case "frontier":
+                    return String.join(",", (Collection<String>) values[0]);
+                case "query":
+                    return String.format("%s(%s)", values);
+                case "cache_hit":
+                    return values.length == 3 ? String.format("%s[%s:%s]", values) : String.format("%s[%s]", values);
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.authserver.service.model;
+
+import lombok.Getter;
+import org.example.authserver.entity.MappingEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Map;
+
+/**
+ * A mapping with its path pattern and body extractor compiled once, when the mapping is loaded.
+ */
+@Getter
+public class CompiledMapping {
+
+    private static final PathPatternParser PARSER = new PathPatternParser();
+    // no percent-decoding, path variables keep the value as sent, like the route matcher used before
+    private static final PathContainer.Options RAW_PATH = PathContainer.Options.create('/', false);
+
+    private final MappingEntity entity;
+    private final PathPattern pattern;
+    private final BodyExtractor bodyExtractor; // null when the mapping reads nothing from the body
+
+    public CompiledMapping(MappingEntity entity) {
+        this.entity = entity;
+        this.pattern = PARSER.parse(entity.getPath());
+        this.bodyExtractor = BodyExtractor.of(entity.getBodyMapping());
+    }
+
+    /**
+     * @param path request path without the query string
+     */
+    public static PathContainer path(String path) {
+        return PathContainer.parsePath(path, RAW_PATH);
+    }
+
+    /**
+     * @return path variables, or {@code null} if the path does not match
+     */
+    public Map<String, String> match(PathContainer path) {
+        PathPattern.PathMatchInfo info = pattern.matchAndExtract(path);
+        return info != null ? info.getUriVariables() : null;
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.authserver.service.model;
+
+import lombok.Getter;
+import org.example.authserver.config.BudgetConfig;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work a single check may do: graph depth, tuples visited, repository calls and wall-clock time.
+ * Also tracks the objects on the current evaluation path, so cyclic usersets end the walk instead of recursing.
+ */
+@Getter
+public class EvaluationBudget {
+
+    public enum Reason { DEPTH, TUPLES, QUERIES, DEADLINE }
+
+    private final BudgetConfig config;
+    private final long deadlineNanos;
+    private final Set<String> path = new HashSet<>();
+    private int depth;
+    private int tuples;
+    private int queries;
+
+    public EvaluationBudget(BudgetConfig config) {
+        this.config = config;
+        this.deadlineNanos = config.getTimeoutMs() > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getTimeoutMs()) : 0;
+    }
+
+    public void enter() {
+        depth++;
+        if (config.getMaxDepth() > 0 && depth > config.getMaxDepth()) throw new ExceededException(Reason.DEPTH, depth);
+        checkDeadline();
+    }
+
+    public void exit() {
+        depth--;
+    }
+
+    /**
+     * @return false when the object is already on the evaluation path
+     */
+    public boolean visit(String nsObject) {
+        return path.add(nsObject);
+    }
+
+    public void leave(String nsObject) {
+        path.remove(nsObject);
+    }
+
+    public void tuples(int count) {
+        tuples += count;
+        if (config.getMaxTuples() > 0 && tuples > config.getMaxTuples()) throw new ExceededException(Reason.TUPLES, tuples);
+    }
+
+    public void query() {
+        queries++;
+        if (config.getMaxQueries() > 0 && queries > config.getMaxQueries()) throw new ExceededException(Reason.QUERIES, queries);
+        checkDeadline();
+    }
+
+    public ExceededException deadlineExceeded() {
+        return new ExceededException(Reason.DEADLINE, config.getTimeoutMs());
+    }
+
+    private void checkDeadline() {
+        if (deadlineNanos != 0 && System.nanoTime() > deadlineNanos) throw deadlineExceeded();
+    }
+
+    @Getter
+    public static class ExceededException extends RuntimeException {
+        private final Reason reason;
+
+        public ExceededException(Reason reason, long value) {
+            super(String.format("evaluation budget exceeded: %s [%s]", reason, value), null, false, false);
+            this.reason = reason;
+        }
+    }
+}
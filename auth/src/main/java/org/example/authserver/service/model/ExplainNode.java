@@ -0,0 +1,59 @@
+package org.example.authserver.service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ExplainNode {
+
+    private final String type;
+    private final String label;
+    private final List<ExplainNode> children = new ArrayList<>();
+    private long timeMicros;
+    private int tuples;
+
+    @JsonIgnore
+    private final ExplainNode parent;
+    @JsonIgnore
+    private final long startNanos = System.nanoTime();
+
+    public ExplainNode(String type, String label) {
+        this(type, label, null);
+    }
+
+    private ExplainNode(String type, String label, ExplainNode parent) {
+        this.type = type;
+        this.label = label;
+        this.parent = parent;
+    }
+
+    public ExplainNode addChild(String type, String label) {
+        ExplainNode child = new ExplainNode(type, label, this);
+        children.add(child);
+        return child;
+    }
+
+    public ExplainNode addLeaf(String type, String label, int tuples, long nanos) {
+        ExplainNode child = addChild(type, label);
+        child.tuples = tuples;
+        child.timeMicros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        return child;
+    }
+
+    public ExplainNode finish(int tuples) {
+        this.tuples = tuples;
+        this.timeMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s [%s tuples, %sus]", type, label, tuples, timeMicros);
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.authserver.service.model;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.entity.MappingEntity;
+import org.springframework.http.HttpMethod;
+
+import java.util.*;
+
+/**
+ * Immutable routing table of compiled mappings grouped by http method.
+ * Changes produce a new table that shares the compiled entries of unchanged mappings.
+ */
+@Slf4j
+public class MappingTable {
+
+    public static final MappingTable EMPTY = new MappingTable(Collections.emptyMap());
+
+    private final Map<String, CompiledMapping> byId;
+    private final Map<HttpMethod, List<CompiledMapping>> byMethod = new EnumMap<>(HttpMethod.class);
+    private final Map<HttpMethod, List<CompiledMapping>> unscoped = new EnumMap<>(HttpMethod.class);
+    private final Map<HttpMethod, Map<String, List<CompiledMapping>>> byService = new EnumMap<>(HttpMethod.class); // scoped + unscoped
+
+    private MappingTable(Map<String, CompiledMapping> byId) {
+        this.byId = Collections.unmodifiableMap(byId);
+        for (CompiledMapping mapping : byId.values()) {
+            HttpMethod method = mapping.getEntity().getMethod();
+            byMethod.computeIfAbsent(method, k -> new ArrayList<>()).add(mapping);
+            String service = mapping.getEntity().getService();
+            if (service == null) {
+                unscoped.computeIfAbsent(method, k -> new ArrayList<>()).add(mapping);
+            } else {
+                byService.computeIfAbsent(method, k -> new HashMap<>()).computeIfAbsent(service, k -> new ArrayList<>()).add(mapping);
+            }
+        }
+        byService.forEach((method, services) ->
+                services.values().forEach(list -> list.addAll(unscoped.getOrDefault(method, Collections.emptyList()))));
+    }
+
+    public static MappingTable of(Collection<MappingEntity> mappings) {
+        Map<String, CompiledMapping> byId = new HashMap<>();
+        for (MappingEntity entity : mappings) {
+            CompiledMapping compiled = compile(entity);
+            if (compiled != null) {
+                byId.put(entity.getId(), compiled);
+            }
+        }
+        return new MappingTable(byId);
+    }
+
+    public MappingTable with(MappingEntity entity) {
+        CompiledMapping compiled = compile(entity);
+        if (compiled == null) return without(entity.getId());
+        Map<String, CompiledMapping> copy = new HashMap<>(byId);
+        copy.put(entity.getId(), compiled);
+        return new MappingTable(copy);
+    }
+
+    public MappingTable without(String id) {
+        if (!byId.containsKey(id)) return this;
+        Map<String, CompiledMapping> copy = new HashMap<>(byId);
+        copy.remove(id);
+        return new MappingTable(copy);
+    }
+
+    public List<CompiledMapping> candidates(String method) {
+        return candidates(method, null);
+    }
+
+    /**
+     * @param service route hint, {@code null} to search every mapping of the method
+     * @return mappings of the service plus the mappings that apply to any route
+     */
+    public List<CompiledMapping> candidates(String method, String service) {
+        HttpMethod httpMethod = HttpMethod.resolve(method.toUpperCase());
+        if (httpMethod == null) return Collections.emptyList();
+        if (service == null) return byMethod.getOrDefault(httpMethod, Collections.emptyList());
+
+        List<CompiledMapping> scoped = byService.getOrDefault(httpMethod, Collections.emptyMap()).get(service);
+        return scoped != null ? scoped : unscoped.getOrDefault(httpMethod, Collections.emptyList());
+    }
+
+    public List<MappingEntity> getMappings() {
+        List<MappingEntity> result = new ArrayList<>(byId.size());
+        for (CompiledMapping mapping : byId.values()) {
+            result.add(mapping.getEntity());
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private static CompiledMapping compile(MappingEntity entity) {
+        if (entity.getMethod() == null || entity.getPath() == null) {
+            log.warn("skipping mapping {} without method or path", entity.getId());
+            return null;
+        }
+        try {
+            return new CompiledMapping(entity);
+        } catch (Exception e) {
+            log.warn("skipping mapping {} with invalid path {}: {}", entity.getId(), entity.getPath(), e.getMessage());
+            return null;
+        }
+    }
+}
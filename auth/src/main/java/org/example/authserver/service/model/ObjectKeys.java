@@ -0,0 +1,37 @@
+package org.example.authserver.service.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns namespaces and objects to int ids and packs a namespace:object pair into one long,
+ * to key {@link LongObjectHashMap}s without allocating a key per lookup. Not thread safe.
+ */
+public class ObjectKeys {
+
+    /**
+     * Returned by {@link #find(String, String)} for a pair that was never interned.
+     */
+    public static final long MISSING = -1L;
+
+    private final Map<String, Integer> namespaces = new HashMap<>();
+    private final Map<String, Integer> objects = new HashMap<>();
+
+    public long intern(String namespace, String object) {
+        int ns = namespaces.computeIfAbsent(namespace, k -> namespaces.size());
+        int obj = objects.computeIfAbsent(object, k -> objects.size());
+        return pack(ns, obj);
+    }
+
+    public long find(String namespace, String object) {
+        Integer ns = namespaces.get(namespace);
+        if (ns == null) return MISSING;
+        Integer obj = objects.get(object);
+        if (obj == null) return MISSING;
+        return pack(ns, obj);
+    }
+
+    private static long pack(int namespace, int object) {
+        return ((long) namespace << 32) | (object & 0xFFFFFFFFL);
+    }
+}
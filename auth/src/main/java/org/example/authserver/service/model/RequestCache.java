@@ -4,8 +4,8 @@ import authserver.acl.Acl;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.example.authserver.config.BudgetConfig;
 import org.example.authserver.service.zanzibar.ZanzibarImpl;
-import reactor.util.function.Tuple2;
 
 import java.util.*;
 
@@ -14,9 +14,28 @@ import java.util.*;
 @AllArgsConstructor
 public class RequestCache {
 
-    private Map<Tuple2<String, String>, Set<ZanzibarImpl.ExpandedAcl>> cache = new HashMap<>();
+    private ObjectKeys keys = new ObjectKeys();
+    private LongObjectHashMap<Set<ZanzibarImpl.ExpandedAcl>> expanded = new LongObjectHashMap<>();
     private Map<String, Set<Acl>> principalAclCache = new HashMap<>();
     private Map<String, Set<String>> principalHighCardinalityCache = new HashMap<>();
+    private Map<String, Set<Acl>> usersetClosureCache = new HashMap<>(); // nsObject -> userset tuples, filled by one recursive query
+    private CheckTrace trace = new CheckTrace();
+    private EvaluationBudget budget;
+    private ExplainNode explain;
+    private long minRevision;
+    private boolean budgetExceeded;
+
+    /**
+     * @return expansion of namespace:object done earlier in this request, or null
+     */
+    public Set<ZanzibarImpl.ExpandedAcl> getExpanded(String namespace, String object) {
+        long key = keys.find(namespace, object);
+        return key != ObjectKeys.MISSING ? expanded.get(key) : null;
+    }
+
+    public void putExpanded(String namespace, String object, Set<ZanzibarImpl.ExpandedAcl> acls) {
+        expanded.put(keys.intern(namespace, object), acls);
+    }
 
     public Acl getMaxAcl(String user) {
         Set<Acl> acls = principalAclCache.get(user);
@@ -29,4 +48,48 @@ public class RequestCache {
         Acl maxAcl = getMaxAcl(user);
         return maxAcl != null ? maxAcl.getUpdated() : 0;
     }
+
+    /**
+     * @return budget of this request, started on the first call
+     */
+    public EvaluationBudget budget(BudgetConfig config) {
+        if (budget == null) {
+            budget = new EvaluationBudget(config);
+        }
+        return budget;
+    }
+
+    /**
+     * Flags the request as cut short by its evaluation budget, relations read afterwards may be incomplete.
+     */
+    public void markBudgetExceeded() {
+        this.budgetExceeded = true;
+    }
+
+    public RequestCache minRevision(long revision) {
+        this.minRevision = revision;
+        return this;
+    }
+
+    public RequestCache explain(ExplainNode root) {
+        this.explain = root;
+        return this;
+    }
+
+    public ExplainNode explainEnter(String type, String label) {
+        if (explain == null) return null;
+        explain = explain.addChild(type, label);
+        return explain;
+    }
+
+    public void explainExit(ExplainNode node, int tuples) {
+        if (node == null) return;
+        node.finish(tuples);
+        explain = node.getParent();
+    }
+
+    public void explainLeaf(String type, String label, int tuples, long nanos) {
+        if (explain == null) return;
+        explain.addLeaf(type, label, tuples, nanos);
+    }
 }
@@ -0,0 +1,75 @@
+package org.example.authserver.service.model;
+
+import com.google.common.base.Strings;
+import lombok.Getter;
+import org.example.authserver.entity.MappingEntity;
+import org.springframework.http.HttpMethod;
+
+import java.util.*;
+
+/**
+ * Per-route {@code context_extensions} that Envoy sends with a check request.
+ * Narrows mapping resolution to one service and, when the route declares roles, provides a mapping
+ * for requests no mapping of the table matches.
+ */
+@Getter
+public class RouteHint {
+
+    public static final String NAMESPACE_OBJECT = "namespace_object";
+    public static final String SERVICE_PATH = "service_path";
+    public static final String OBJECT = "object";
+    public static final String ROLES = "roles";
+    public static final String METHOD = "method";
+
+    private final Map<String, String> extensions;
+    private final String service;
+    private final Map<String, String> variables = new HashMap<>();
+
+    private RouteHint(Map<String, String> extensions, String service) {
+        this.extensions = extensions;
+        this.service = service;
+        extensions.forEach((key, value) -> variables.put("ctx." + key, value));
+    }
+
+    /**
+     * @return hint, or {@code null} when the route passes no extensions
+     */
+    public static RouteHint of(Map<String, String> extensions, String serviceKey) {
+        if (extensions == null || extensions.isEmpty()) return null;
+        return new RouteHint(extensions, Strings.emptyToNull(extensions.get(serviceKey)));
+    }
+
+    public boolean hasDefaultMapping() {
+        return !Strings.isNullOrEmpty(extensions.get(ROLES))
+                && !Strings.isNullOrEmpty(extensions.get(NAMESPACE_OBJECT))
+                && !Strings.isNullOrEmpty(extensions.get(SERVICE_PATH));
+    }
+
+    /**
+     * @return whether the route mapping applies to the request method, every method when the route names none
+     */
+    public boolean allowsMethod(String requestMethod) {
+        String method = extensions.get(METHOD);
+        return Strings.isNullOrEmpty(method) || method.trim().equalsIgnoreCase(requestMethod);
+    }
+
+    /**
+     * Mapping declared by the route itself: {@code service_path} is matched against the request path,
+     * the object defaults to the {@code objectId} path variable and the method to any method.
+     */
+    public MappingEntity defaultMapping() {
+        List<String> roles = new ArrayList<>();
+        for (String role : extensions.get(ROLES).split(",")) {
+            if (!role.isBlank()) roles.add(role.trim());
+        }
+        return MappingEntity.builder()
+                .id("route:" + extensions.get(SERVICE_PATH))
+                .method(Strings.isNullOrEmpty(extensions.get(METHOD)) ? null : HttpMethod.resolve(extensions.get(METHOD).trim().toUpperCase()))
+                .path(extensions.get(SERVICE_PATH))
+                .namespace(extensions.get(NAMESPACE_OBJECT))
+                .object(extensions.getOrDefault(OBJECT, "{path.objectId}"))
+                .roles(roles)
+                .service(service)
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.authserver.service.model;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent calls with the same key share one execution: the first caller runs it, the others wait for its
+ * result (or its exception). Nothing is cached, the key is released as soon as the execution ends.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    public V run(K key, Supplier<V> supplier) {
+        return run(key, supplier, 0, null);
+    }
+
+    /**
+     * @param deadlineNanos {@link System#nanoTime()} after which a waiter gives up on the shared execution and
+     *                      throws the exception of {@code onTimeout}, 0 to wait as long as it runs
+     */
+    public V run(K key, Supplier<V> supplier, long deadlineNanos, Supplier<? extends RuntimeException> onTimeout) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return deadlineNanos == 0 ? join(existing) : join(existing, deadlineNanos, onTimeout);
+        }
+
+        try {
+            V value = supplier.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    public int inFlight() {
+        return calls.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> call, long deadlineNanos, Supplier<? extends RuntimeException> onTimeout) {
+        try {
+            return call.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw onTimeout.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw onTimeout.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.authserver.service.model;
+
+import authserver.acl.AclRelationConfig;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.authserver.entity.MappingEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory authorization state needed to serve checks right after a restart.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Snapshot {
+
+    private long revision;
+    private long createdAt;
+    @Builder.Default
+    private Map<String, AclRelationConfig> configs = new HashMap<>();
+    @Builder.Default
+    private List<MappingEntity> mappings = new ArrayList<>();
+    /**
+     * Most active principals first.
+     */
+    @Builder.Default
+    private List<String> principals = new ArrayList<>();
+}
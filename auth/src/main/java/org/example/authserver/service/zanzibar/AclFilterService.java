@@ -3,16 +3,29 @@ package org.example.authserver.service.zanzibar;
 import com.google.common.base.Stopwatch;
 import io.envoyproxy.envoy.service.auth.v3.CheckRequest;
 import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.example.authserver.entity.CheckResult;
+import org.example.authserver.entity.ConsistencyToken;
+import org.example.authserver.service.CacheLoaderService;
 import org.example.authserver.service.CacheService;
+import org.example.authserver.service.DenyCache;
+import org.example.authserver.service.HotPrincipalTracker;
+import org.example.authserver.service.PrincipalFilter;
 import org.example.authserver.service.RelationsService;
+import org.example.authserver.service.ShardRouter;
+import org.example.authserver.service.SlowCheckRecorder;
+import org.example.authserver.service.TenantAdmission;
+import org.example.authserver.service.model.EvaluationBudget;
 import org.example.authserver.service.model.Mapping;
 import org.example.authserver.service.model.RequestCache;
 import org.springframework.stereotype.Service;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -22,22 +35,75 @@ public class AclFilterService {
     private final TokenService tokenService;
     private final RelationsService relationsService;
     private final CacheService cacheService;
-
-    public AclFilterService(RelationsService relationsService, MappingService mappingService, TokenService tokenService, CacheService cacheService) {
+    private final SlowCheckRecorder slowCheckRecorder;
+    private final CacheLoaderService cacheLoaderService;
+    private final HotPrincipalTracker hotPrincipalTracker;
+    private final ShardRouter shardRouter;
+    private final PrincipalFilter principalFilter;
+    private final DenyCache denyCache;
+    private final TenantAdmission tenantAdmission;
+
+    public AclFilterService(RelationsService relationsService, MappingService mappingService, TokenService tokenService, CacheService cacheService, SlowCheckRecorder slowCheckRecorder, CacheLoaderService cacheLoaderService, HotPrincipalTracker hotPrincipalTracker, ShardRouter shardRouter, PrincipalFilter principalFilter, DenyCache denyCache, TenantAdmission tenantAdmission) {
         this.mappingService = mappingService;
         this.tokenService = tokenService;
         this.relationsService = relationsService;
         this.cacheService = cacheService;
+        this.slowCheckRecorder = slowCheckRecorder;
+        this.cacheLoaderService = cacheLoaderService;
+        this.hotPrincipalTracker = hotPrincipalTracker;
+        this.shardRouter = shardRouter;
+        this.principalFilter = principalFilter;
+        this.denyCache = denyCache;
+        this.tenantAdmission = tenantAdmission;
     }
 
     public CheckResult checkRequest(CheckRequest request) {
+        RequestCache requestCache = new RequestCache();
+        CheckResult result;
+        try {
+            result = checkRequest(request, requestCache);
+        } catch (EvaluationBudget.ExceededException e) {
+            // the FAIL budget policy, answered with an error rather than a deny
+            result = CheckResult.builder().mappingsPresent(true).budgetExceeded(true).result(false).build();
+        }
+        slowCheckRecorder.record(requestCache.getTrace().finish(result.isResult()));
+        return result;
+    }
+
+    private CheckResult checkRequest(CheckRequest request, RequestCache requestCache) {
         long start = System.currentTimeMillis();
         Claims claims = tokenService.getAllClaimsFromRequest(request);
         long time2 = System.currentTimeMillis();
 
         if (claims == null) return CheckResult.builder().jwtPresent(false).result(false).build();
 
+        String tenant = tenantAdmission.resolve(MappingService.tenant(claims));
+        try (TenantAdmission.Permit permit = tenantAdmission.admit(tenant)) {
+            switch (permit.getDecision()) {
+                case SHED:
+                    return CheckResult.builder().overLimit(true).result(false).build();
+                case FAIL_OPEN:
+                    log.debug("Tenant {} is over limit, {} allowed unchecked.", tenant, claims.getSubject());
+                    return CheckResult.builder().overLimit(true).result(true).build();
+                default:
+                    // only a validated and admitted caller may make this instance wait for, or reload to, a revision
+                    requestCache.minRevision(cacheLoaderService.ensureRevision(getMinRevision(request)));
+                    return checkRequest(request, requestCache, claims, tenant, start, time2);
+            }
+        }
+    }
+
+    private CheckResult checkRequest(CheckRequest request, RequestCache requestCache, Claims claims, String tenant, long start, long time2) {
         String user = claims.getSubject();
+        long denyGeneration = denyCache.generation();
+        Optional<String> owner = shardRouter.remoteOwner(user);
+        if (owner.isEmpty()) {
+            hotPrincipalTracker.record(user);
+        }
+        requestCache.getTrace().describe(user, "%s %s",
+                request.getAttributes().getRequest().getHttp().getMethod(),
+                request.getAttributes().getRequest().getHttp().getPath());
+
         List<Mapping> mappings = mappingService.processRequest(request, claims);
         long time3 = System.currentTimeMillis();
         if (mappings == null || mappings.size() == 0) {
@@ -45,19 +111,35 @@ public class AclFilterService {
             return CheckResult.builder().mappingsPresent(false).result(false).build();
         }
 
-        RequestCache requestCache = new RequestCache();
+        if (!principalFilter.mightHaveTuples(user)) {
+            log.debug("No tuples for user {}.", user);
+            Metrics.counter("authz.fast_deny", "reason", "unknown_principal").increment();
+            return CheckResult.builder().mappingsPresent(true).rejectedWithMappingId(mappings.get(0).get("aclId")).result(false).build();
+        }
+
+        Set<String> forwarded = owner.isPresent() ? forwardRelations(owner.get(), user, mappings, requestCache) : null;
 
         Set<String> allowedTags = new HashSet<>();
+        Set<String> matchedObjects = new HashSet<>();
         for (Mapping mapping : mappings) {
             String mappingId = mapping.get("aclId");
             String namespace = mapping.get("namespace");
             String object = mapping.get("object");
+            matchedObjects.add(String.format("%s:%s", namespace, object));
 
             Set<String> roles = mapping.parseRoles();
+            requestCache.getTrace().mapping(mappingId, namespace, object, roles);
             if (roles.isEmpty()) {
                 return CheckResult.builder().mappingsPresent(true).rejectedWithMappingId(mappingId).result(false).build();
             }
 
+            String denyKey = String.format("%s:%s#%s", namespace, object, String.join(",", new TreeSet<>(roles)));
+            if (denyCache.isDenied(tenant, user, denyKey)) {
+                log.debug("Denied recently: {} {}", user, denyKey);
+                Metrics.counter("authz.fast_deny", "reason", "cached").increment();
+                return CheckResult.builder().mappingsPresent(true).rejectedWithMappingId(mappingId).result(false).build();
+            }
+
             Set<String> relations = requestCache.getPrincipalHighCardinalityCache().getOrDefault(user, new HashSet<>());
 
             boolean r = false;
@@ -65,7 +147,7 @@ public class AclFilterService {
                 r = true;
             } else {
                 Stopwatch relationsStopwatch = Stopwatch.createStarted();
-                relations = relationsService.getRelations(namespace, object, user, requestCache);
+                relations = forwarded != null ? forwarded : relationsService.getRelations(namespace, object, user, requestCache);
                 log.info("zanzibar.getRelations {} ms.", relationsStopwatch.elapsed(TimeUnit.MILLISECONDS));
 
                 if (HasTag(relations, roles, namespace, object)) {
@@ -75,11 +157,16 @@ public class AclFilterService {
             }
 
             if (!r) {
+                if (!requestCache.isBudgetExceeded()) {
+                    // a deny cut short by the budget is not an answer to remember
+                    denyCache.deny(tenant, user, denyKey, denyGeneration);
+                }
                 log.info("expected roles: {}:{} {}", namespace, object, roles);
                 log.info("roles available for {}: {}", user, relations);
                 long end = System.currentTimeMillis();
                 log.info("checkRequest {} ms.", end - start);
-                return CheckResult.builder().mappingsPresent(true).rejectedWithMappingId(mappingId).result(false).build();
+                return CheckResult.builder().mappingsPresent(true).rejectedWithMappingId(mappingId)
+                        .budgetExceeded(requestCache.isBudgetExceeded()).result(false).build();
             }
         }
 
@@ -88,7 +175,29 @@ public class AclFilterService {
         log.info("mappingService.processRequest {} ms.", time3 - time2);
         log.info("checkRequest {} ms.", end - start);
         log.info("mappings size: {}.", mappings.size());
-        return CheckResult.builder().mappingsPresent(true).result(true).tags(allowedTags).build();
+        return CheckResult.builder().mappingsPresent(true).result(true).tags(allowedTags).matchedObjects(matchedObjects).build();
+    }
+
+    /**
+     * @return relations on all mapped objects evaluated by the owner of the principal, null if it didn't answer
+     */
+    private Set<String> forwardRelations(String owner, String user, List<Mapping> mappings, RequestCache requestCache) {
+        List<Tuple2<String, String>> objects = mappings.stream()
+                .map(mapping -> Tuples.of(mapping.get("namespace"), mapping.get("object")))
+                .distinct()
+                .collect(Collectors.toList());
+        return shardRouter.relations(owner, user, objects, requestCache.getMinRevision()).orElse(null);
+    }
+
+    private static long getMinRevision(CheckRequest request) {
+        String token = request.getAttributes().getRequest().getHttp().getHeadersMap().get(ConsistencyToken.HEADER);
+        if (token == null || token.isEmpty()) return 0;
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid consistency token: {}", token);
+            return 0;
+        }
     }
 
     private static boolean HasTag(Set<String> relations, Set<String> roles, String namespace, String object) {
@@ -12,7 +12,6 @@ import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
 
@@ -20,12 +19,12 @@ import java.util.stream.Collectors;
 @Service
 public class AclRelationConfigService {
 
-    private static final Map<Tuple2<String, String>, ConcurrentSkipListSet<FlatRelationTree>> relations = new ConcurrentHashMap<>();
-
     private final AclRelationConfigRepository repository;
     private final CacheService cacheService;
     private final SubscriptionRepository subscriptionRepository;
 
+    private volatile RelationConfigSnapshot snapshot = RelationConfigSnapshot.EMPTY;
+
     public AclRelationConfigService(AclRelationConfigRepository repository, CacheService cacheService, SubscriptionRepository subscriptionRepository) {
         this.repository = repository;
         this.cacheService = cacheService;
@@ -59,12 +58,8 @@ public class AclRelationConfigService {
 
     @Timed(value = "relations.nested", percentiles = {0.99, 0.95, 0.75})
     public Set<String> nestedRelations(String namespace, String object, String relation) {
-        Tuple2<String, String> key = Tuples.of(namespace, object);
-
-        ConcurrentSkipListSet<FlatRelationTree> flatTreeList = relations.get(key);
-        if (flatTreeList == null) {
-            flatTreeList = relations.get(Tuples.of(namespace, "*"));
-        }
+        RelationConfigSnapshot current = snapshot;
+        ConcurrentSkipListSet<FlatRelationTree> flatTreeList = current.getRelationTree(namespace, object);
 
         return nestedRelations(relation, flatTreeList);
     }
@@ -100,12 +95,8 @@ public class AclRelationConfigService {
         Set<String> result = new HashSet<>();
         result.add(relation);
 
-        Tuple2<String, String> key = Tuples.of(namespace, object);
-
-        ConcurrentSkipListSet<FlatRelationTree> flatTreeList = relations.get(key);
-        if (flatTreeList == null) {
-            flatTreeList = relations.get(Tuples.of(namespace, "*"));
-        }
+        RelationConfigSnapshot snap = snapshot;
+        ConcurrentSkipListSet<FlatRelationTree> flatTreeList = snap.getRelationTree(namespace, object);
         if (flatTreeList == null) return result;
 
         // find current
@@ -134,25 +125,63 @@ public class AclRelationConfigService {
         return result;
     }
 
-    public void update() {
-        Map<Tuple2<String, String>, ConcurrentSkipListSet<FlatRelationTree>> map = getRelationMap();
-        relations.keySet().removeIf(key -> !relations.containsKey(key));
-        relations.putAll(map);
+    public RelationConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes a new snapshot of the configs in {@link CacheService}. Only configs that differ from the
+     * current snapshot are recompiled; readers keep using the previous snapshot until the swap.
+     */
+    public synchronized void update() {
+        RelationConfigSnapshot current = snapshot;
+        Map<String, RelationConfigSnapshot.Compiled> namespaces = new HashMap<>();
+        int compiled = 0;
+        for (AclRelationConfig config : cacheService.getConfigs().values()) {
+            RelationConfigSnapshot.Compiled existing = current.getNamespaces().get(config.getNamespace());
+            if (existing != null && existing.getConfig().equals(config)) {
+                namespaces.put(config.getNamespace(), existing);
+            } else {
+                namespaces.put(config.getNamespace(), compile(config));
+                compiled++;
+            }
+        }
+
+        snapshot = new RelationConfigSnapshot(namespaces);
+        log.debug("relation configs updated: {} namespaces, {} recompiled, {} removed",
+                namespaces.size(), compiled, current.getNamespaces().keySet().stream().filter(ns -> !namespaces.containsKey(ns)).count());
+    }
+
+    /**
+     * Recompiles a single config and publishes it, leaving the other namespaces untouched.
+     */
+    public synchronized void update(AclRelationConfig config) {
+        Map<String, RelationConfigSnapshot.Compiled> namespaces = new HashMap<>(snapshot.getNamespaces());
+        namespaces.put(config.getNamespace(), compile(config));
+        snapshot = new RelationConfigSnapshot(namespaces);
+    }
+
+    public synchronized void remove(String namespace) {
+        Map<String, RelationConfigSnapshot.Compiled> namespaces = new HashMap<>(snapshot.getNamespaces());
+        if (namespaces.remove(namespace) != null) {
+            snapshot = new RelationConfigSnapshot(namespaces);
+        }
+    }
+
+    private RelationConfigSnapshot.Compiled compile(AclRelationConfig config) {
+        return new RelationConfigSnapshot.Compiled(config, getRelationMap(getFlatRelationListFromConfigs(Set.of(config))));
     }
 
     public AclRelationConfig getConfig(String key){
-        return cacheService.getConfigs().get(key);
+        return snapshot.getConfig(key);
     }
 
     public AclRelation getConfigRelation(String key, String relation) {
-        AclRelationConfig config = getConfig(key);
-        if (config == null) return null;
-        for (AclRelation rel : config.getRelations()){
-            if (relation.equals(rel.getRelation())){
-                return rel;
-            }
-        }
-        return null;
+        return snapshot.getConfigRelation(key, relation);
+    }
+
+    RewriteProgram getRewriteProgram(String key) {
+        return snapshot.getRewriteProgram(key);
     }
 
     public List<FlatRelation> getFlatRelationListFromConfigs() {
@@ -193,11 +222,6 @@ public class AclRelationConfigService {
         return result;
     }
 
-    private Map<Tuple2<String, String>, ConcurrentSkipListSet<FlatRelationTree>> getRelationMap() {
-        List<FlatRelation> relationList = getFlatRelationListFromConfigs();
-        return getRelationMap(relationList);
-    }
-
     private Map<Tuple2<String, String>, ConcurrentSkipListSet<FlatRelationTree>> getRelationMap(List<FlatRelation> relationList) {
         Map<Tuple2<String, String>, ConcurrentSkipListSet<FlatRelationTree>> result = new HashMap<>();
 
@@ -1,25 +1,26 @@
 package org.example.authserver.service.zanzibar;
 
-import com.jayway.jsonpath.DocumentContext;
-import com.jayway.jsonpath.JsonPath;
 import io.envoyproxy.envoy.service.auth.v3.CheckRequest;
 import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.text.StringSubstitutor;
-import org.example.authserver.entity.BodyMapping;
-import org.example.authserver.entity.BodyMappingKey;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.MappingConfig;
 import org.example.authserver.entity.HeaderMappingKey;
 import org.example.authserver.entity.MappingEntity;
 import org.example.authserver.service.MappingCacheService;
+import org.example.authserver.service.model.BodyExtractor;
+import org.example.authserver.service.model.CompiledMapping;
 import org.example.authserver.service.model.Mapping;
+import org.example.authserver.service.model.RouteHint;
+import org.springframework.http.server.PathContainer;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.pattern.PathPatternParser;
-import org.springframework.web.util.pattern.PathPatternRouteMatcher;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,9 +31,12 @@ public class MappingService {
     private final static Pattern pattern = Pattern.compile("(.*)\\/realms\\/(.*)");
 
     private final MappingCacheService mappingCacheService;
+    private final MappingConfig config;
+    private final Map<Map<String, String>, CompiledMapping> routeDefaults = new ConcurrentHashMap<>(); // routes are static config
 
-    public MappingService(MappingCacheService mappingCacheService) {
+    public MappingService(MappingCacheService mappingCacheService, AppProperties appProperties) {
         this.mappingCacheService = mappingCacheService;
+        this.config = appProperties.getMapping();
     }
 
 
@@ -40,7 +44,8 @@ public class MappingService {
      * @return mapping variables, or {@code null} for no match
      */
     public List<Mapping> processRequest(CheckRequest request, Claims claims){
-        Map<MappingEntity, Map<String, String>> mappings = findMappings(request);
+        RouteHint hint = RouteHint.of(request.getAttributes().getContextExtensionsMap(), config.getRouteHintKey());
+        Map<CompiledMapping, Map<String, String>> mappings = findMappings(request, hint);
         if (mappings == null) return null; // no match
 
         List<Mapping> result = new ArrayList<>();
@@ -48,26 +53,28 @@ public class MappingService {
         String requestMethod = request.getAttributes().getRequest().getHttp().getMethod();
         Map<String, String> headersMap = request.getAttributes().getRequest().getHttp().getHeadersMap();
 
-        for (Map.Entry<MappingEntity, Map<String, String>> entry : mappings.entrySet()) {
-            MappingEntity mappingEntity = entry.getKey();
+        for (Map.Entry<CompiledMapping, Map<String, String>> entry : mappings.entrySet()) {
+            MappingEntity mappingEntity = entry.getKey().getEntity();
+            BodyExtractor bodyExtractor = entry.getKey().getBodyExtractor();
 
             Mapping mapping = new Mapping();
+            if (hint != null) {
+                mapping.getMap().putAll(hint.getVariables());
+            }
             mapping.getMap().putAll(entry.getValue());
             mapping.getMap().put("roles", String.join(",", mappingEntity.getRoles()));
 
-            if (mappingEntity.getBodyMapping() != null && "POST".equalsIgnoreCase(requestMethod) || "PUT".equals(requestMethod)) {
-                String requestBody = request.getAttributes().getRequest().getHttp().getBody();
-                BodyMapping bodyMapping = mappingEntity.getBodyMapping();
-                mapping.getMap().putAll(parseRequestJsonBody(bodyMapping, requestBody));
+            if (bodyExtractor != null && ("POST".equalsIgnoreCase(requestMethod) || "PUT".equalsIgnoreCase(requestMethod))) {
+                mapping.getMap().putAll(bodyExtractor.extract(request.getAttributes().getRequest().getHttp().getBody()));
             }
 
             if (mappingEntity.getHeaderMapping() != null){
                 mapping.getMap().putAll(parseHeaders(mappingEntity.getHeaderMapping(), headersMap));
             }
 
-            Matcher m = pattern.matcher(claims.getIssuer());
-            if (m.matches() && m.groupCount() >= 2){
-                mapping.getMap().put("tenant", m.group(2));
+            String tenant = tenant(claims);
+            if (tenant != null){
+                mapping.getMap().put("tenant", tenant);
             }
 
             mapping.getMap().put("userId", claims.getSubject());
@@ -81,41 +88,66 @@ public class MappingService {
         return result;
     }
 
-    public Map<MappingEntity, Map<String, String>> findMappings(CheckRequest request){
-        List<MappingEntity> mappings = mappingCacheService.getAll();
-        Map<MappingEntity, Map<String, String>> result = new HashMap<>();
+    /**
+     * @return realm of the token issuer, or null
+     */
+    public static String tenant(Claims claims) {
+        if (claims.getIssuer() == null) return null;
+        Matcher m = pattern.matcher(claims.getIssuer());
+        return m.matches() && m.groupCount() >= 2 ? m.group(2) : null;
+    }
 
-        String requestMethod = request.getAttributes().getRequest().getHttp().getMethod();
+    public Map<CompiledMapping, Map<String, String>> findMappings(CheckRequest request){
+        return findMappings(request, RouteHint.of(request.getAttributes().getContextExtensionsMap(), config.getRouteHintKey()));
+    }
 
-        for (MappingEntity currentMapping : mappings){
-            Map<String, String> route;
-            String mappingMethod = currentMapping.getMethod().name();
-            if (!requestMethod.equalsIgnoreCase(mappingMethod)){
-                continue; // skip entries that don't match
-            }
+    private Map<CompiledMapping, Map<String, String>> findMappings(CheckRequest request, RouteHint hint){
+        Map<CompiledMapping, Map<String, String>> result = new HashMap<>();
 
-            String path = removeQuery(request.getAttributes().getRequest().getHttp().getPath());
-            PathPatternParser parser = new PathPatternParser();
-            PathPatternRouteMatcher matcher = new PathPatternRouteMatcher(parser);
-            route  = matcher.matchAndExtract(currentMapping.getPath(), matcher.parseRoute(path));
+        String requestMethod = request.getAttributes().getRequest().getHttp().getMethod();
+        PathContainer path = CompiledMapping.path(removeQuery(request.getAttributes().getRequest().getHttp().getPath()));
 
+        String service = hint != null ? hint.getService() : null;
+        for (CompiledMapping compiledMapping : mappingCacheService.getTable().candidates(requestMethod, service)){
+            Map<String, String> route = compiledMapping.match(path);
             if (route == null){
                 continue; // skip entries that don't match
             }
 
             log.debug("route: {}", route);
+            result.put(compiledMapping, pathVariables(route));
+        }
 
-            Map<String, String> pathVariables = new HashMap<>();
-            for (Map.Entry<String, String> entry : route.entrySet()){
-                pathVariables.put("path." + entry.getKey(), entry.getValue()); // transform path X variable to path.X
+        CompiledMapping routeDefault = result.isEmpty() ? routeDefault(hint, requestMethod) : null;
+        if (routeDefault != null) {
+            Map<String, String> route = routeDefault.match(path);
+            if (route != null) {
+                log.debug("route default: {}", route);
+                result.put(routeDefault, pathVariables(route));
             }
-
-            result.put(currentMapping, pathVariables);
         }
 
         return result;
     }
 
+    private CompiledMapping routeDefault(RouteHint hint, String requestMethod) {
+        if (hint == null || !hint.hasDefaultMapping() || !hint.allowsMethod(requestMethod)) return null;
+        try {
+            return routeDefaults.computeIfAbsent(hint.getExtensions(), k -> new CompiledMapping(hint.defaultMapping()));
+        } catch (Exception e) {
+            log.warn("invalid route default {}: {}", hint.getExtensions(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, String> pathVariables(Map<String, String> route) {
+        Map<String, String> pathVariables = new HashMap<>();
+        for (Map.Entry<String, String> entry : route.entrySet()){
+            pathVariables.put("path." + entry.getKey(), entry.getValue()); // transform path X variable to path.X
+        }
+        return pathVariables;
+    }
+
     private Map<String, String> parseHeaders(List<HeaderMappingKey> headerMapping, Map<String, String> headersMap) {
         Map<String, String> variables = new HashMap<>();
         for (HeaderMappingKey h : headerMapping){
@@ -133,17 +165,6 @@ public class MappingService {
         variables.put("object", object);
     }
 
-    private Map<String, String> parseRequestJsonBody(BodyMapping bodyMapping, String requestBody) {
-        Map<String, String> variables = new HashMap<>();
-        DocumentContext jsonContext = JsonPath.parse(requestBody);
-        for (BodyMappingKey k : bodyMapping.getKeys()){
-            String value = jsonContext.read(k.getXpath());
-            variables.put("body." + k.getNamespace(), value);
-        }
-
-        return variables;
-    }
-
     private static String removeQuery(String pathOrig) {
         int idx = pathOrig.indexOf('?');
         if (idx == -1) return pathOrig;
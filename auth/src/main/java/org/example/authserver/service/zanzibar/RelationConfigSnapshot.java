@@ -0,0 +1,106 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.AclRelation;
+import authserver.acl.AclRelationConfig;
+import authserver.acl.FlatRelationTree;
+import lombok.Getter;
+import org.example.authserver.service.model.LongObjectHashMap;
+import org.example.authserver.service.model.ObjectKeys;
+import reactor.util.function.Tuple2;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Immutable view of all relation configs and their compiled relation trees.
+ * Built off the hot path and published as a whole, so a reader sees either the old or the new state.
+ */
+public final class RelationConfigSnapshot {
+
+    private static final String WILDCARD = "*";
+
+    static final RelationConfigSnapshot EMPTY = new RelationConfigSnapshot(Collections.emptyMap());
+
+    private final Map<String, Compiled> namespaces; // config namespace -> compiled config
+    // relation trees keyed by interned namespace:object, wildcard configs resolved per namespace up front
+    private final ObjectKeys keys = new ObjectKeys();
+    private final LongObjectHashMap<ConcurrentSkipListSet<FlatRelationTree>> relations = new LongObjectHashMap<>();
+    private final Map<String, ConcurrentSkipListSet<FlatRelationTree>> wildcardRelations = new HashMap<>();
+
+    RelationConfigSnapshot(Map<String, Compiled> namespaces) {
+        for (Compiled compiled : namespaces.values()) {
+            for (Map.Entry<Tuple2<String, String>, ConcurrentSkipListSet<FlatRelationTree>> entry : compiled.getRelations().entrySet()) {
+                Tuple2<String, String> key = entry.getKey();
+                if (WILDCARD.equals(key.getT2())) {
+                    wildcardRelations.put(key.getT1(), entry.getValue());
+                } else {
+                    relations.put(keys.intern(key.getT1(), key.getT2()), entry.getValue());
+                }
+            }
+        }
+        this.namespaces = Collections.unmodifiableMap(new HashMap<>(namespaces));
+    }
+
+    Map<String, Compiled> getNamespaces() {
+        return namespaces;
+    }
+
+    public AclRelationConfig getConfig(String namespace) {
+        Compiled compiled = namespaces.get(namespace);
+        return compiled != null ? compiled.getConfig() : null;
+    }
+
+    public AclRelation getConfigRelation(String namespace, String relation) {
+        Compiled compiled = namespaces.get(namespace);
+        return compiled != null ? compiled.getRelationsByName().get(relation) : null;
+    }
+
+    /**
+     * @return null when the config is unknown or has no exclusions/intersections
+     */
+    RewriteProgram getRewriteProgram(String namespace) {
+        Compiled compiled = namespaces.get(namespace);
+        return compiled != null ? compiled.getProgram() : null;
+    }
+
+    /**
+     * @return tree of the object's own config, else of its namespace wildcard config, else null
+     */
+    public ConcurrentSkipListSet<FlatRelationTree> getRelationTree(String namespace, String object) {
+        long key = keys.find(namespace, object);
+        if (key != ObjectKeys.MISSING) {
+            ConcurrentSkipListSet<FlatRelationTree> tree = relations.get(key);
+            if (tree != null) return tree;
+        }
+        return wildcardRelations.get(namespace);
+    }
+
+    public int size() {
+        return namespaces.size();
+    }
+
+    /**
+     * One config with its relations indexed by name, its flat relation tree and its rewrite program.
+     * Never mutated after compilation.
+     */
+    @Getter
+    static final class Compiled {
+        private final AclRelationConfig config;
+        private final Map<String, AclRelation> relationsByName;
+        private final Map<Tuple2<String, String>, ConcurrentSkipListSet<FlatRelationTree>> relations;
+        private final RewriteProgram program;
+
+        Compiled(AclRelationConfig config, Map<Tuple2<String, String>, ConcurrentSkipListSet<FlatRelationTree>> relations) {
+            Map<String, AclRelation> relationsByName = new HashMap<>();
+            for (AclRelation relation : config.getRelations()) {
+                relationsByName.put(relation.getRelation(), relation);
+            }
+            this.config = config;
+            this.relationsByName = Collections.unmodifiableMap(relationsByName);
+            this.relations = Collections.unmodifiableMap(relations);
+            this.program = RewriteProgram.compile(config);
+        }
+    }
+}
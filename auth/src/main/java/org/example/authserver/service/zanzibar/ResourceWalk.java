@@ -0,0 +1,119 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import authserver.acl.AclRelation;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.repo.AclRepository;
+
+import java.util.*;
+
+/**
+ * Walks from a principal outward through userset edges, one depth per {@link #next()} call,
+ * collecting the objects of a namespace on which the principal holds a relation.
+ */
+@Slf4j
+class ResourceWalk {
+
+    private final AclRepository repository;
+    private final AclRelationConfigService relationConfigService;
+    private final String namespace;
+    private final String relation;
+    private final String principal;
+
+    private final Map<String, Set<String>> held = new HashMap<>(); // namespace:object -> relations
+    private final Map<String, String> objects = new HashMap<>(); // namespace:object -> object, for the requested namespace
+    private final Set<String> emitted = new HashSet<>();
+    private final Set<String> pending = new HashSet<>(); // need the full picture because of exclusions/intersections
+    private Set<String> frontier;
+    private int depth;
+
+    ResourceWalk(AclRepository repository, AclRelationConfigService relationConfigService, String namespace, String relation, String principal) {
+        this.repository = repository;
+        this.relationConfigService = relationConfigService;
+        this.namespace = namespace;
+        this.relation = relation;
+        this.principal = principal;
+    }
+
+    boolean isDone() {
+        return frontier != null && frontier.isEmpty() && pending.isEmpty();
+    }
+
+    /**
+     * @return objects found on the next depth, possibly empty
+     */
+    List<String> next() {
+        if (frontier != null && frontier.isEmpty()) {
+            return flushPending();
+        }
+
+        Set<Acl> acls = (frontier == null)
+                ? repository.findAllByPrincipal(principal)
+                : repository.findAllByUsersetIn(new ArrayList<>(frontier));
+        log.trace("lookup resources {}#{}@{}, depth {}: {} tuples", namespace, relation, principal, depth, acls.size());
+
+        Set<String> grown = new HashSet<>();
+        for (Acl acl : acls) {
+            if (frontier != null && !holdsUserset(acl)) {
+                continue;
+            }
+            if (grant(acl)) {
+                grown.add(acl.getNsObject());
+            }
+        }
+
+        frontier = grown;
+        depth++;
+
+        List<String> found = new ArrayList<>();
+        for (String nsObject : grown) {
+            String object = objects.get(nsObject);
+            if (object == null || emitted.contains(object) || !held.get(nsObject).contains(relation)) {
+                continue;
+            }
+            if (hasRewriteRules(nsObject)) {
+                pending.add(nsObject);
+            } else {
+                emitted.add(object);
+                found.add(object);
+            }
+        }
+        return found;
+    }
+
+    private boolean holdsUserset(Acl acl) {
+        if (!acl.hasUserset()) return false;
+        Set<String> relations = held.get(String.format("%s:%s", acl.getUsersetNamespace(), acl.getUsersetObject()));
+        return relations != null && relations.contains(acl.getUsersetRelation());
+    }
+
+    private boolean grant(Acl acl) {
+        String nsObject = acl.getNsObject();
+        if (namespace.equals(acl.getNamespace())) {
+            objects.put(nsObject, acl.getObject());
+        }
+        Set<String> relations = held.computeIfAbsent(nsObject, k -> new HashSet<>());
+        return relations.addAll(relationConfigService.nestedRelations(acl.getNamespace(), acl.getObject(), acl.getRelation()));
+    }
+
+    private boolean hasRewriteRules(String nsObject) {
+        AclRelation config = relationConfigService.getConfigRelation(nsObject, relation);
+        return config != null && (!config.getExclusions().isEmpty() || !config.getIntersections().isEmpty());
+    }
+
+    private List<String> flushPending() {
+        List<String> found = new ArrayList<>();
+        for (String nsObject : pending) {
+            Set<String> relations = held.get(nsObject);
+            AclRelation config = relationConfigService.getConfigRelation(nsObject, relation);
+            boolean excluded = !Collections.disjoint(config.getExclusions(), relations);
+            boolean intersected = config.getIntersections().isEmpty() || !Collections.disjoint(config.getIntersections(), relations);
+            String object = objects.get(nsObject);
+            if (!excluded && intersected && emitted.add(object)) {
+                found.add(object);
+            }
+        }
+        pending.clear();
+        return found;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.AclRelation;
+import authserver.acl.AclRelationConfig;
+
+import java.util.*;
+
+/**
+ * Exclusion and intersection rules of one config compiled to bitmasks over relation ids, so a check costs
+ * a few word operations per relation instead of building and comparing sets.
+ * Unions through parents are already resolved by the expansion, they don't need a rule here.
+ */
+final class RewriteProgram {
+
+    static final int ALLOWED = 0;
+    static final int EXCLUDED = 1;
+    static final int NOT_INTERSECTED = 2;
+
+    private static final long[] NONE = new long[0];
+
+    private final Map<String, Integer> ids;
+    private final int words;
+    private final long[][] exclusions; // relation id -> mask
+    private final long[][] intersections;
+
+    private RewriteProgram(Map<String, Integer> ids, long[][] exclusions, long[][] intersections) {
+        this.ids = ids;
+        this.words = (ids.size() + 63) >>> 6;
+        this.exclusions = exclusions;
+        this.intersections = intersections;
+    }
+
+    /**
+     * @return null when no relation of the config has rewrite rules
+     */
+    static RewriteProgram compile(AclRelationConfig config) {
+        Map<String, Integer> ids = new HashMap<>();
+        boolean hasRules = false;
+        for (AclRelation relation : config.getRelations()) {
+            id(ids, relation.getRelation());
+            for (String exclusion : nonNull(relation.getExclusions())) {
+                id(ids, exclusion);
+                hasRules = true;
+            }
+            for (String intersection : nonNull(relation.getIntersections())) {
+                id(ids, intersection);
+                hasRules = true;
+            }
+        }
+        if (!hasRules) return null;
+
+        int words = (ids.size() + 63) >>> 6;
+        long[][] exclusions = new long[ids.size()][];
+        long[][] intersections = new long[ids.size()][];
+        Arrays.fill(exclusions, NONE);
+        Arrays.fill(intersections, NONE);
+        for (AclRelation relation : config.getRelations()) {
+            int id = ids.get(relation.getRelation());
+            exclusions[id] = mask(ids, nonNull(relation.getExclusions()), words);
+            intersections[id] = mask(ids, nonNull(relation.getIntersections()), words);
+        }
+        return new RewriteProgram(Collections.unmodifiableMap(ids), exclusions, intersections);
+    }
+
+    /**
+     * @return relations held directly on the object, relations unknown to the config are left out
+     */
+    long[] held(Collection<String> relations) {
+        long[] held = new long[words];
+        for (String relation : relations) {
+            Integer id = ids.get(relation);
+            if (id != null) held[id >>> 6] |= 1L << id;
+        }
+        return held;
+    }
+
+    /**
+     * @return {@link #ALLOWED}, {@link #EXCLUDED} or {@link #NOT_INTERSECTED}
+     */
+    int run(String relation, long[] held) {
+        Integer id = ids.get(relation);
+        if (id == null) return ALLOWED;
+        if (intersects(exclusions[id], held)) return EXCLUDED;
+        long[] required = intersections[id];
+        if (required.length > 0 && !intersects(required, held)) return NOT_INTERSECTED;
+        return ALLOWED;
+    }
+
+    private static boolean intersects(long[] mask, long[] held) {
+        for (int i = 0; i < mask.length; i++) {
+            if ((mask[i] & held[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    private static long[] mask(Map<String, Integer> ids, Set<String> relations, int words) {
+        if (relations.isEmpty()) return NONE;
+        long[] mask = new long[words];
+        for (String relation : relations) {
+            int id = ids.get(relation);
+            mask[id >>> 6] |= 1L << id;
+        }
+        return mask;
+    }
+
+    private static void id(Map<String, Integer> ids, String relation) {
+        ids.putIfAbsent(relation, ids.size());
+    }
+
+    private static Set<String> nonNull(Set<String> relations) {
+        return relations != null ? relations : Collections.emptySet();
+    }
+}
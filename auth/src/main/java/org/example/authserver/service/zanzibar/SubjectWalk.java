@@ -0,0 +1,88 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import lombok.extern.slf4j.Slf4j;
+import org.example.authserver.entity.AclFilter;
+import org.example.authserver.repo.AclRepository;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.*;
+
+/**
+ * Walks from an object inward through userset edges, one page of tuples per {@link #next()} call,
+ * collecting the principals that hold a relation on it. Only the visited usersets are kept in memory,
+ * so a principal reachable through several groups may be returned more than once.
+ */
+@Slf4j
+class SubjectWalk {
+
+    static final int PAGE_SIZE = 500;
+
+    private final AclRepository repository;
+    private final AclRelationConfigService relationConfigService;
+
+    private final Deque<Tuple2<String, String>> queue = new ArrayDeque<>(); // (namespace:object, relation) to expand
+    private final Set<Tuple2<String, String>> visited = new HashSet<>();
+    private Tuple2<String, String> current;
+    private AclFilter currentFilter;
+    private String afterId; // keyset position within the current userset
+
+    SubjectWalk(AclRepository repository, AclRelationConfigService relationConfigService, String namespace, String object, String relation) {
+        this.repository = repository;
+        this.relationConfigService = relationConfigService;
+        enqueue(String.format("%s:%s", namespace, object), relation);
+    }
+
+    boolean isDone() {
+        return current == null && queue.isEmpty();
+    }
+
+    /**
+     * @return principals found on the next page, possibly empty
+     */
+    List<String> next() {
+        if (current == null) {
+            current = queue.poll();
+            afterId = null;
+            if (current == null) return Collections.emptyList();
+            String nsObject = current.getT1();
+            int separator = nsObject.indexOf(':');
+            currentFilter = AclFilter.builder()
+                    .namespace(nsObject.substring(0, separator))
+                    .object(nsObject.substring(separator + 1))
+                    .build();
+        }
+
+        List<Acl> acls = repository.findPage(currentFilter, afterId, PAGE_SIZE);
+        log.trace("lookup subjects {}#{}, after {}: {} tuples", current.getT1(), current.getT2(), afterId, acls.size());
+        if (!acls.isEmpty()) {
+            afterId = acls.get(acls.size() - 1).getId().toString();
+        }
+
+        String relation = current.getT2();
+        List<String> found = new ArrayList<>();
+        for (Acl acl : acls) {
+            if (!relationConfigService.nestedRelations(acl.getNamespace(), acl.getObject(), acl.getRelation()).contains(relation)) {
+                continue;
+            }
+            if (acl.hasUserset()) {
+                enqueue(String.format("%s:%s", acl.getUsersetNamespace(), acl.getUsersetObject()), acl.getUsersetRelation());
+            } else {
+                found.add(acl.getUser());
+            }
+        }
+
+        if (acls.size() < PAGE_SIZE) {
+            current = null;
+        }
+        return found;
+    }
+
+    private void enqueue(String nsObject, String relation) {
+        Tuple2<String, String> key = Tuples.of(nsObject, relation);
+        if (visited.add(key)) {
+            queue.add(key);
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package org.example.authserver.service.zanzibar;
 
+import org.example.authserver.entity.BatchCheckItem;
+import org.example.authserver.entity.BatchCheckItemResult;
 import org.example.authserver.entity.CheckResult;
+import org.example.authserver.entity.ExplainResult;
 import org.example.authserver.service.model.RequestCache;
+import reactor.core.publisher.Flux;
 
+import java.util.List;
 import java.util.Set;
 
 public interface Zanzibar {
 
     CheckResult check(String namespace, String object, String relation, String principal, RequestCache requestCache);
+    List<BatchCheckItemResult> checkBatch(String principal, List<BatchCheckItem> items, RequestCache requestCache);
     Set<String> getRelations(String namespace, String object, String principal, RequestCache requestCache);
+    ExplainResult explain(String namespace, String object, String relation, String principal);
+    Flux<String> lookupResources(String namespace, String relation, String principal);
+    Flux<String> lookupSubjects(String namespace, String object, String relation);
     void addRule(String aclExpr);
     void removeRule(String aclExpr);
 
@@ -3,18 +3,33 @@ package org.example.authserver.service.zanzibar;
 import authserver.acl.Acl;
 import authserver.acl.AclRelation;
 import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Metrics;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.BudgetConfig;
+import org.example.authserver.config.EvaluationStrategy;
+import org.example.authserver.entity.BatchCheckItem;
+import org.example.authserver.entity.BatchCheckItemResult;
 import org.example.authserver.entity.CheckResult;
+import org.example.authserver.entity.ExplainResult;
 import org.example.authserver.repo.AclRepository;
+import org.example.authserver.service.model.CheckTrace;
+import org.example.authserver.service.model.EvaluationBudget;
+import org.example.authserver.service.model.ExplainNode;
 import org.example.authserver.service.model.RequestCache;
+import org.example.authserver.service.model.SingleFlight;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,10 +38,28 @@ public class ZanzibarImpl implements Zanzibar {
 
     private final AclRepository repository;
     private final AclRelationConfigService relationConfigService;
+    private final EvaluationStrategy evaluationStrategy;
+    private final BudgetConfig budgetConfig;
+    private final SingleFlight<String, Set<Acl>> queries = new SingleFlight<>(); // tuple queries in flight across checks
 
     public ZanzibarImpl(AclRepository repository, AclRelationConfigService relationConfigService) {
+        this(repository, relationConfigService, EvaluationStrategy.ITERATIVE);
+    }
+
+    @Autowired
+    public ZanzibarImpl(AclRepository repository, AclRelationConfigService relationConfigService, AppProperties appProperties) {
+        this(repository, relationConfigService, appProperties.getEvaluationStrategy(), appProperties.getBudget());
+    }
+
+    public ZanzibarImpl(AclRepository repository, AclRelationConfigService relationConfigService, EvaluationStrategy evaluationStrategy) {
+        this(repository, relationConfigService, evaluationStrategy, new BudgetConfig());
+    }
+
+    public ZanzibarImpl(AclRepository repository, AclRelationConfigService relationConfigService, EvaluationStrategy evaluationStrategy, BudgetConfig budgetConfig) {
         this.repository = repository;
         this.relationConfigService = relationConfigService;
+        this.evaluationStrategy = evaluationStrategy;
+        this.budgetConfig = budgetConfig;
     }
 
     @Timed(value = "checkAcl", percentiles = {0.99, 0.95, 0.75})
@@ -34,63 +67,233 @@ public class ZanzibarImpl implements Zanzibar {
     public CheckResult check(String namespace, String object, String relation, String principal, RequestCache requestCache) {
         String tag = String.format("%s:%s#%s", namespace, object, relation);
         log.trace("expected tag: {}", tag);
-        Set<String> relations = getRelations(namespace, object, principal, requestCache);
+        Set<String> relations;
+        boolean exceeded = false;
+        try {
+            relations = relations(namespace, object, principal, requestCache);
+        } catch (EvaluationBudget.ExceededException e) {
+            relations = exceeded(e, tag, requestCache);
+            exceeded = true;
+        }
 
         log.trace("relations available: {}", relations);
         return CheckResult.builder()
                 .result(relations.contains(tag))
+                .budgetExceeded(exceeded)
                 .tags(relations)
                 .build();
     }
 
+    @Override
+    public ExplainResult explain(String namespace, String object, String relation, String principal) {
+        ExplainNode plan = new ExplainNode("check", String.format("%s:%s#%s@%s", namespace, object, relation, principal));
+        CheckResult result = check(namespace, object, relation, principal, new RequestCache().explain(plan));
+        plan.finish(result.getTags().size());
+
+        return ExplainResult.builder()
+                .result(result.isResult())
+                .tags(result.getTags())
+                .plan(plan)
+                .build();
+    }
+
+    /**
+     * Streams the objects of {@code namespace} on which {@code principal} holds {@code relation},
+     * directly or through nested usersets. Each depth of the walk is one tuple query.
+     */
+    @Override
+    public Flux<String> lookupResources(String namespace, String relation, String principal) {
+        return Flux.<List<String>, ResourceWalk>generate(
+                () -> new ResourceWalk(repository, relationConfigService, namespace, relation, principal),
+                (walk, sink) -> {
+                    if (walk.isDone()) {
+                        sink.complete();
+                    } else {
+                        sink.next(walk.next());
+                    }
+                    return walk;
+                })
+                .flatMapIterable(objects -> objects)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Streams the principals holding {@code relation} on {@code namespace:object}, directly or through
+     * nested usersets, reading tuples page by page as the subscriber requests more.
+     */
+    @Override
+    public Flux<String> lookupSubjects(String namespace, String object, String relation) {
+        Flux<String> subjects = Flux.<List<String>, SubjectWalk>generate(
+                () -> new SubjectWalk(repository, relationConfigService, namespace, object, relation),
+                (walk, sink) -> {
+                    if (walk.isDone()) {
+                        sink.complete();
+                    } else {
+                        sink.next(walk.next());
+                    }
+                    return walk;
+                })
+                .flatMapIterable(principals -> principals);
+
+        AclRelation config = relationConfigService.getConfigRelation(String.format("%s:%s", namespace, object), relation);
+        if (config != null && (!config.getExclusions().isEmpty() || !config.getIntersections().isEmpty())) {
+            // the walk only follows grants, candidates still have to pass exclusions/intersections
+            subjects = subjects.filter(principal -> check(namespace, object, relation, principal, new RequestCache()).isResult());
+        }
+
+        return subjects.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Timed(value = "checkBatch", percentiles = {0.99, 0.95, 0.75})
+    @Override
+    public List<BatchCheckItemResult> checkBatch(String principal, List<BatchCheckItem> items, RequestCache requestCache) {
+        try {
+            return batch(principal, items, requestCache);
+        } catch (EvaluationBudget.ExceededException e) {
+            exceeded(e, String.format("batch [%s items]@%s", items.size(), principal), requestCache);
+            return items.stream().map(item -> BatchCheckItemResult.of(item, false)).collect(Collectors.toList());
+        }
+    }
+
+    private List<BatchCheckItemResult> batch(String principal, List<BatchCheckItem> items, RequestCache requestCache) {
+        Set<Tuple2<String, String>> namespaceObjects = new HashSet<>();
+        for (BatchCheckItem item : items) {
+            namespaceObjects.add(Tuples.of(item.getNamespace(), item.getObject()));
+        }
+
+        // one expansion (and one combined tuple query per depth) for all items
+        Set<ExpandedAcl> relations = expandMultiple(namespaceObjects, principal, requestCache);
+
+        Map<Tuple2<String, String>, Set<String>> relationsByObject = new HashMap<>();
+        List<BatchCheckItemResult> results = new ArrayList<>(items.size());
+        for (BatchCheckItem item : items) {
+            Set<String> tags = relationsByObject.computeIfAbsent(Tuples.of(item.getNamespace(), item.getObject()),
+                    key -> evaluate(relations, key.getT1(), key.getT2(), principal, requestCache));
+            String tag = String.format("%s:%s#%s", item.getNamespace(), item.getObject(), item.getRelation());
+            results.add(BatchCheckItemResult.of(item, tags.contains(tag)));
+        }
+
+        return results;
+    }
+
     @Override
     @Timed(value = "getRelation", percentiles = {0.99, 0.95, 0.75})
     public Set<String> getRelations(String namespace, String object, String principal, RequestCache requestCache) {
+        try {
+            return relations(namespace, object, principal, requestCache);
+        } catch (EvaluationBudget.ExceededException e) {
+            return exceeded(e, String.format("%s:%s@%s", namespace, object, principal), requestCache);
+        }
+    }
+
+    private Set<String> relations(String namespace, String object, String principal, RequestCache requestCache) {
         Set<ExpandedAcl> relations = expandMultiple(Set.of(Tuples.of(namespace, object)), principal, requestCache);
-        Set<Tuple2<String, String>> lookups = lookup(relations, namespace, object, principal);
+        return evaluate(relations, namespace, object, principal, requestCache);
+    }
 
-        Set<String> result = new HashSet<>();
-        for (Tuple2<String, String> l : lookups){
-            Set<Tuple2<String, String>> exclusions = new HashSet<>();
-            Set<Tuple2<String, String>> intersections = new HashSet<>();
-
-            AclRelation relation = relationConfigService.getConfigRelation(l.getT1(), l.getT2());
-            if (relation == null) {
-                result.add(generateTag(l.getT1(), l.getT2()));
-                continue; // some relations are not described with configs
-            }
+    private static void cycle(String nsObject) {
+        Metrics.counter("zanzibar.cycles").increment();
+        log.debug("userset cycle through {}", nsObject);
+    }
 
-            for (String exclusion : relation.getExclusions()){
-                exclusions.add(Tuples.of(l.getT1(), exclusion));
-            }
+    /**
+     * @return no relations when the budget policy is to deny, rethrows otherwise
+     */
+    private Set<String> exceeded(EvaluationBudget.ExceededException e, String check, RequestCache requestCache) {
+        Metrics.counter("zanzibar.budget.exceeded", "reason", e.getReason().name()).increment();
+        requestCache.markBudgetExceeded();
+        requestCache.explainLeaf("budget", e.getMessage(), 0, 0);
+        log.warn("{}: {}", check, e.getMessage());
+        if (budgetConfig.getOnExceeded() == BudgetConfig.OnExceeded.FAIL) {
+            throw e;
+        }
+        return new HashSet<>();
+    }
 
-            for (String intersection : relation.getIntersections()){
-                intersections.add(Tuples.of(l.getT1(), intersection));
-            }
+    private Set<String> evaluate(Set<ExpandedAcl> relations, String namespace, String object, String principal, RequestCache requestCache) {
+        ExplainNode lookupNode = requestCache.getExplain() != null
+                ? requestCache.explainEnter("lookup", String.format("%s:%s", namespace, object)) : null;
+        Set<Tuple2<String, String>> lookups = Set.of();
+        try {
+            lookups = lookup(relations, namespace, object, principal, requestCache);
+        } finally {
+            requestCache.explainExit(lookupNode, lookups.size());
+        }
 
-            if (!Collections.disjoint(exclusions, lookups)){
-                log.trace("relation {}#{} is excluded [exclusion]", l.getT1(), l.getT2());
-            } else if (intersections.size() > 0 && Collections.disjoint(intersections, lookups)) {
-                log.trace("relation {}#{} is excluded [interception]", l.getT1(), l.getT2());
-            } else {
-                result.add(generateTag(l.getT1(), l.getT2()));
+        // exclusions and intersections only look at relations on the same object
+        Map<String, Set<String>> relationsByObject = new HashMap<>();
+        for (Tuple2<String, String> l : lookups) {
+            relationsByObject.computeIfAbsent(l.getT1(), k -> new HashSet<>()).add(l.getT2());
+        }
+
+        Set<String> result = new HashSet<>();
+        for (Map.Entry<String, Set<String>> entry : relationsByObject.entrySet()) {
+            String nsObject = entry.getKey();
+            RewriteProgram program = relationConfigService.getRewriteProgram(nsObject);
+            if (program == null) {
+                for (String relation : entry.getValue()) {
+                    result.add(generateTag(nsObject, relation)); // no rules, or not described with configs
+                }
+                continue;
             }
 
+            long[] held = program.held(entry.getValue());
+            for (String relation : entry.getValue()) {
+                int verdict = program.run(relation, held);
+                if (verdict == RewriteProgram.ALLOWED) {
+                    result.add(generateTag(nsObject, relation));
+                } else if (verdict == RewriteProgram.EXCLUDED) {
+                    log.trace("relation {}#{} is excluded [exclusion]", nsObject, relation);
+                    if (requestCache.getExplain() != null) {
+                        requestCache.explainLeaf("exclusion", String.format("%s#%s excluded by %s", nsObject, relation,
+                                relationConfigService.getConfigRelation(nsObject, relation).getExclusions()), 0, 0);
+                    }
+                } else {
+                    log.trace("relation {}#{} is excluded [interception]", nsObject, relation);
+                    if (requestCache.getExplain() != null) {
+                        requestCache.explainLeaf("intersection", String.format("%s#%s requires one of %s", nsObject, relation,
+                                relationConfigService.getConfigRelation(nsObject, relation).getIntersections()), 0, 0);
+                    }
+                }
+            }
         }
 
         return result;
     }
 
     @Timed(value = "lookup", percentiles = {0.99, 0.95, 0.75})
-    private Set<Tuple2<String, String>> lookup(Set<ExpandedAcl> relations, String namespace, String object, String principal) {
+    private Set<Tuple2<String, String>> lookup(Set<ExpandedAcl> relations, String namespace, String object, String principal, RequestCache requestCache) {
         Set<Tuple2<String, String>> result = new HashSet<>(); // Tuples of {namespace:object, relation}
+        EvaluationBudget budget = requestCache.budget(budgetConfig);
+        String nsObject = namespace + ":" + object;
+        if (!budget.visit(nsObject)) {
+            cycle(nsObject);
+            return result;
+        }
+        budget.enter();
+        try {
+            lookup(relations, namespace, object, principal, requestCache, result);
+        } finally {
+            budget.exit();
+            budget.leave(nsObject);
+        }
+        return result;
+    }
+
+    private void lookup(Set<ExpandedAcl> relations, String namespace, String object, String principal, RequestCache requestCache, Set<Tuple2<String, String>> result) {
         Set<ExpandedAcl> filtered = filter(relations, namespace, object);
         for (ExpandedAcl t : filtered){
             String user = t.getUser();
             if (principal.equals(user)){
                 result.add(Tuples.of(String.format("%s:%s", t.getNamespace(), t.getObject()), t.getRelation()));
             } else if (Strings.isEmpty(user)){
-                Set<Tuple2<String, String>> nested = lookup(relations, t.getUsersetNamespace(), t.getUsersetObject(), principal);
+                ExplainNode edge = requestCache.getExplain() != null ? requestCache.explainEnter("userset", t.toString()) : null;
+                Set<Tuple2<String, String>> nested = Set.of();
+                try {
+                    nested = lookup(relations, t.getUsersetNamespace(), t.getUsersetObject(), principal, requestCache);
+                } finally {
+                    requestCache.explainExit(edge, nested.size());
+                }
                 if (nested.size() > 0) {
                     Tuple2<String, String> rightPart = Tuples.of(String.format("%s:%s", t.getUsersetNamespace(), t.getUsersetObject()), t.getUsersetRelation());
                     if (nested.contains(rightPart)) {
@@ -100,7 +303,6 @@ public class ZanzibarImpl implements Zanzibar {
                 }
             }
         }
-        return result;
     }
 
     private Set<ExpandedAcl> filter(Set<ExpandedAcl> relations, String namespace, String object) {
@@ -116,7 +318,7 @@ public class ZanzibarImpl implements Zanzibar {
 
     @Timed(value = "expandMultiple", percentiles = {0.99, 0.95, 0.75})
     private Set<ExpandedAcl> expandMultiple(Set<Tuple2<String, String>> namespaceObjects, String principal, RequestCache requestCache){
-        log.trace("calling expandMultiple [cache: {}] =>  {}", requestCache.getCache().size(), namespaceObjects);
+        log.trace("calling expandMultiple [cache: {}] =>  {}", requestCache.getExpanded().size(), namespaceObjects);
         if (namespaceObjects.size() == 0){
             return new HashSet<>();
         }
@@ -125,36 +327,136 @@ public class ZanzibarImpl implements Zanzibar {
                 .map(tuple->String.format("%s:%s", tuple.getT1(), tuple.getT2()))
                 .collect(Collectors.toList());
 
-        Set<Acl> acls = new HashSet<>();
-        if (requestCache.getPrincipalAclCache().containsKey(principal)) {
-            acls.addAll(requestCache.getPrincipalAclCache().get(principal));
-        } else {
-            Set<Acl> principalAcls = repository.findAllByPrincipal(principal);
-            acls.addAll(principalAcls);
-            requestCache.getPrincipalAclCache().put(principal, principalAcls);
-        }
-        acls.addAll(repository.findAllByNsObjectIn(nsObjects));
+        CheckTrace trace = requestCache.getTrace();
+        EvaluationBudget budget = requestCache.budget(budgetConfig);
+        budget.enter();
+        trace.enter();
+        ExplainNode expandNode = requestCache.getExplain() != null
+                ? requestCache.explainEnter("expand", String.join(",", nsObjects)) : null;
+        Set<ExpandedAcl> result = new HashSet<>();
+        try {
+            trace.frontier(nsObjects);
 
-        Set<ExpandedAcl> result = new HashSet<>(acls.size());
-        for (Acl acl : acls){
+            Set<Acl> acls = new HashSet<>();
+            if (requestCache.getPrincipalAclCache().containsKey(principal)) {
+                trace.cacheHit("principalAcl", principal);
+                acls.addAll(requestCache.getPrincipalAclCache().get(principal));
+            } else {
+                Set<Acl> principalAcls = query("findAllByPrincipal", principal, () -> repository.findAllByPrincipal(principal), requestCache);
+                acls.addAll(principalAcls);
+                requestCache.getPrincipalAclCache().put(principal, principalAcls);
+            }
+            acls.addAll(usersetAcls(nsObjects, requestCache));
+
+            Map<String, Tuple2<String, String>> namespaceObjectIndex = new HashMap<>();
             for (Tuple2<String, String> tuple : namespaceObjects){
-                String ns = String.format("%s:%s", tuple.getT1(), tuple.getT2());
-                if (acl.getNsObject().equalsIgnoreCase(ns)){
-                    Set<ExpandedAcl> tmp = expand(tuple.getT1(), tuple.getT2(), principal, acls, requestCache);
-                    result.addAll(tmp);
+                namespaceObjectIndex.put(String.format("%s:%s", tuple.getT1(), tuple.getT2()).toLowerCase(), tuple);
+            }
+
+            Set<Tuple2<String, String>> matched = new LinkedHashSet<>();
+            for (Acl acl : acls){
+                Tuple2<String, String> tuple = namespaceObjectIndex.get(acl.getNsObject().toLowerCase());
+                if (tuple != null){
+                    matched.add(tuple);
+                }
+            }
+
+            // expansion of the loaded acls doesn't depend on the requested key, so it is computed once and shared
+            Set<ExpandedAcl> shared = null;
+            for (Tuple2<String, String> tuple : matched){
+                boolean cached = requestCache.getExpanded(tuple.getT1(), tuple.getT2()) != null;
+                if (!cached && shared != null){
+                    requestCache.putExpanded(tuple.getT1(), tuple.getT2(), shared);
+                    continue;
+                }
+                Set<ExpandedAcl> tmp = expand(tuple.getT1(), tuple.getT2(), principal, acls, requestCache);
+                if (!cached){
+                    shared = tmp;
                 }
+                result.addAll(tmp);
             }
+            return result;
+        } finally {
+            trace.exit();
+            budget.exit();
+            requestCache.explainExit(expandNode, result.size());
+        }
+    }
+
+    private Set<Acl> usersetAcls(List<String> nsObjects, RequestCache requestCache) {
+        if (evaluationStrategy != EvaluationStrategy.RECURSIVE_CTE) {
+            return query("findAllByNsObjectIn", nsObjects, () -> repository.findAllByNsObjectIn(nsObjects), requestCache);
+        }
+
+        // the first call loads the whole userset closure, deeper levels of the walk are served from it
+        Map<String, Set<Acl>> closure = requestCache.getUsersetClosureCache();
+        List<String> missing = nsObjects.stream().filter(nsObject -> !closure.containsKey(nsObject)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            Set<Acl> loaded = query("findUsersetClosure", missing, () -> repository.findUsersetClosure(missing), requestCache);
+            for (Acl acl : loaded) {
+                closure.computeIfAbsent(acl.getNsObject(), k -> new HashSet<>()).add(acl);
+            }
+            for (Acl acl : loaded) {
+                if (acl.hasUserset()) { // reached by the query, so it has no userset tuples if it has none loaded
+                    closure.putIfAbsent(String.format("%s:%s", acl.getUsersetNamespace(), acl.getUsersetObject()), new HashSet<>());
+                }
+            }
+            missing.forEach(nsObject -> closure.putIfAbsent(nsObject, new HashSet<>()));
+        }
+
+        Set<Acl> result = new HashSet<>();
+        for (String nsObject : nsObjects) {
+            result.addAll(closure.get(nsObject));
         }
         return result;
     }
 
+    private Set<Acl> query(String name, Object args, Supplier<Set<Acl>> query, RequestCache requestCache) {
+        EvaluationBudget budget = requestCache.budget(budgetConfig);
+        budget.query();
+        long start = System.nanoTime();
+        boolean[] executed = new boolean[1];
+        // waiting on a query shared with another check still ends at this check's deadline
+        Set<Acl> acls = queries.run(flightKey(name, args, requestCache.getMinRevision()), () -> {
+            executed[0] = true;
+            return query.get();
+        }, budget.getDeadlineNanos(), budget::deadlineExceeded);
+        if (!executed[0]) {
+            // another check ran the same query, the result is shared so it is copied before use
+            acls = new HashSet<>(acls);
+            name += " [shared]";
+            Metrics.counter("zanzibar.query.shared").increment();
+        }
+        long nanos = System.nanoTime() - start;
+        requestCache.getTrace().query(name, args, acls.size(), nanos);
+        if (requestCache.getExplain() != null) {
+            requestCache.explainLeaf("query", String.format("%s(%s)", name, args), acls.size(), nanos);
+        }
+        return acls;
+    }
+
+    /**
+     * The consistency token is part of the key, a query started before a revision was applied must not be
+     * shared with a check that asked for that revision.
+     */
+    private static String flightKey(String name, Object args, long minRevision) {
+        if (args instanceof Collection) {
+            return name + ((Collection<?>) args).stream().map(String::valueOf).sorted().collect(Collectors.toList()) + "@" + minRevision;
+        }
+        return name + "(" + args + ")@" + minRevision;
+    }
+
     @Timed(value = "expandNoDbQuery", percentiles = {0.99, 0.95, 0.75})
     private Set<ExpandedAcl> expand(String namespace, String object, String principal, Set<Acl> acls, RequestCache requestCache) {
-        Map<Tuple2<String, String>, Set<ExpandedAcl>> cache = requestCache.getCache();
         Map<String, Set<Acl>> principalAclCache = requestCache.getPrincipalAclCache();
+        EvaluationBudget budget = requestCache.budget(budgetConfig);
 
-        if (cache.containsKey(Tuples.of(namespace, object))){
-            Set<ExpandedAcl> setFromCache = cache.get(Tuples.of(namespace, object));
+        Set<ExpandedAcl> setFromCache = requestCache.getExpanded(namespace, object);
+        if (setFromCache != null){
+            requestCache.getTrace().cacheHit("expand", namespace, object);
+            if (requestCache.getExplain() != null) {
+                requestCache.explainLeaf("cache", String.format("%s:%s", namespace, object), setFromCache.size(), 0);
+            }
             for (Acl acl : principalAclCache.getOrDefault(principal, new HashSet<>())) {
                 ExpandedAcl expandedAcl = ExpandedAcl.builder()
                         .namespace(acl.getNamespace())
@@ -166,46 +468,60 @@ public class ZanzibarImpl implements Zanzibar {
             }
             return setFromCache;
         }
+        String nsObject = namespace + ":" + object;
+        if (!budget.visit(nsObject)) {
+            cycle(nsObject);
+            return new HashSet<>();
+        }
+        budget.tuples(acls.size());
+
         Set<ExpandedAcl> relations = new HashSet<>();
-        for (Acl acl : acls) {
-            Set<String> nested = relationConfigService.nestedRelations(acl.getNamespace(), acl.getObject(), acl.getRelation());
-            if (acl.hasUserset()) {
-                Set<Tuple2<String, String>> aclsToExpand = new HashSet<>();
-                Set<String> roots = relationConfigService.rootRelations(acl.getUsersetNamespace(), acl.getUsersetObject(), acl.getUsersetRelation());
-                for (String rel : nested) {
-                    for (String rootRel : roots) {
+        try {
+            for (Acl acl : acls) {
+                Set<String> nested = relationConfigService.nestedRelations(acl.getNamespace(), acl.getObject(), acl.getRelation());
+                if (acl.hasUserset()) {
+                    if (requestCache.getExplain() != null) {
+                        requestCache.explainLeaf("tuple", acl.getTag() + "@" + String.format("%s:%s#%s", acl.getUsersetNamespace(), acl.getUsersetObject(), acl.getUsersetRelation()), nested.size(), 0);
+                    }
+                    Set<Tuple2<String, String>> aclsToExpand = new HashSet<>();
+                    Set<String> roots = relationConfigService.rootRelations(acl.getUsersetNamespace(), acl.getUsersetObject(), acl.getUsersetRelation());
+                    for (String rel : nested) {
+                        for (String rootRel : roots) {
+                            ExpandedAcl expandedAcl = ExpandedAcl.builder()
+                                    .namespace(acl.getNamespace())
+                                    .object(acl.getObject())
+                                    .relation(rel)
+                                    .usersetNamespace(acl.getUsersetNamespace())
+                                    .usersetObject(acl.getUsersetObject())
+                                    .usersetRelation(rootRel)
+                                    .build();
+                            relations.add(expandedAcl);
+                            Set<ExpandedAcl> dataFromCache = requestCache.getExpanded(acl.getUsersetNamespace(), acl.getUsersetObject());
+                            if (dataFromCache != null){
+                                relations.addAll(dataFromCache);
+                            } else {
+                                aclsToExpand.add(Tuples.of(acl.getUsersetNamespace(), acl.getUsersetObject()));
+                            }
+                        }
+                    }
+                    relations.addAll(expandMultiple(aclsToExpand, principal, requestCache));
+                } else {
+                    for (String rel : nested) {
                         ExpandedAcl expandedAcl = ExpandedAcl.builder()
                                 .namespace(acl.getNamespace())
                                 .object(acl.getObject())
                                 .relation(rel)
-                                .usersetNamespace(acl.getUsersetNamespace())
-                                .usersetObject(acl.getUsersetObject())
-                                .usersetRelation(rootRel)
+                                .user(acl.getUser())
                                 .build();
                         relations.add(expandedAcl);
-                        if (cache.containsKey(Tuples.of(acl.getUsersetNamespace(), acl.getUsersetObject()))){
-                            Set<ExpandedAcl> dataFromCache = cache.get(Tuples.of(acl.getUsersetNamespace(), acl.getUsersetObject()));
-                            relations.addAll(dataFromCache);
-                        } else {
-                            aclsToExpand.add(Tuples.of(acl.getUsersetNamespace(), acl.getUsersetObject()));
-                        }
                     }
                 }
-                relations.addAll(expandMultiple(aclsToExpand, principal, requestCache));
-            } else {
-                for (String rel : nested) {
-                    ExpandedAcl expandedAcl = ExpandedAcl.builder()
-                            .namespace(acl.getNamespace())
-                            .object(acl.getObject())
-                            .relation(rel)
-                            .user(acl.getUser())
-                            .build();
-                    relations.add(expandedAcl);
-                }
             }
+        } finally {
+            budget.leave(nsObject);
         }
 
-        cache.put(Tuples.of(namespace, object), relations);
+        requestCache.putExpanded(namespace, object, relations);
         return relations;
     }
 
@@ -0,0 +1,59 @@
+package org.example.authserver.controller;
+
+import authserver.acl.Acl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.authserver.entity.AclFilter;
+import org.example.authserver.entity.PageDTO;
+import org.example.authserver.repo.AclRepository;
+import org.example.authserver.repo.SubscriptionRepository;
+import org.example.authserver.service.ChangelogService;
+import org.example.authserver.service.DenyCache;
+import org.example.authserver.service.PrincipalFilter;
+import org.example.authserver.service.UserRelationsCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AclControllerTest {
+
+    private final AclFilter filter = AclFilter.builder().namespace("doc").build();
+    private AclRepository repository;
+    private AclController controller;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AclRepository.class);
+        controller = new AclController(repository, mock(SubscriptionRepository.class), mock(UserRelationsCacheService.class),
+                mock(ChangelogService.class), new ObjectMapper(), mock(PrincipalFilter.class), mock(DenyCache.class));
+    }
+
+    @Test
+    public void pageAcl_whenMoreRemain_shouldReturnIdOfLastTuple() {
+        Acl first = Acl.create("doc:1#viewer@user1");
+        when(repository.findPage(filter, null, 2)).thenReturn(List.of(first, Acl.create("doc:2#viewer@user1")));
+
+        PageDTO<Acl> page = controller.pageAcl(filter, null, 1);
+
+        assertEquals(List.of(first), page.getItems());
+        assertEquals(first.getId().toString(), page.getNextPageToken());
+    }
+
+    @Test
+    public void exportAcl_shouldReadChunksUntilShortOne() throws Exception {
+        when(repository.findPage(eq(filter), isNull(), eq(KeysetPages.EXPORT_CHUNK_SIZE)))
+                .thenReturn(List.of(Acl.create("doc:1#viewer@user1")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        controller.exportAcl(filter).writeTo(out);
+
+        assertEquals(1, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        verify(repository, times(1)).findPage(any(), any(), anyInt());
+    }
+}
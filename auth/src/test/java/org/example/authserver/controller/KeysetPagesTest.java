@@ -0,0 +1,96 @@
+package org.example.authserver.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.authserver.entity.PageDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetPagesTest {
+
+    private final List<Integer> limits = new ArrayList<>();
+
+    /**
+     * Ids 0001..count in order, served like an {@code id > ? ORDER BY id LIMIT ?} query.
+     */
+    private BiFunction<String, Integer, List<String>> table(int count) {
+        List<String> ids = IntStream.rangeClosed(1, count).mapToObj(i -> String.format("%04d", i)).collect(Collectors.toList());
+        return (after, limit) -> {
+            limits.add(limit);
+            return ids.stream()
+                    .filter(id -> after == null || id.compareTo(after) > 0)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        };
+    }
+
+    @Test
+    public void page_whenMoreItemsRemain_shouldReturnTokenOfLastItem() {
+        PageDTO<String> page = KeysetPages.page(table(5), Function.identity(), null, 2);
+
+        assertEquals(List.of("0001", "0002"), page.getItems());
+        assertEquals("0002", page.getNextPageToken());
+        assertEquals(List.of(3), limits); // one probe row past the page
+    }
+
+    @Test
+    public void page_whenFollowingTokens_shouldVisitEveryItemOnce() {
+        BiFunction<String, Integer, List<String>> table = table(5);
+        List<String> seen = new ArrayList<>();
+        String token = null;
+        do {
+            PageDTO<String> page = KeysetPages.page(table, Function.identity(), token, 2);
+            seen.addAll(page.getItems());
+            token = page.getNextPageToken();
+        } while (token != null);
+
+        assertEquals(List.of("0001", "0002", "0003", "0004", "0005"), seen);
+    }
+
+    @Test
+    public void page_whenLastPageIsFull_shouldReturnNoToken() {
+        PageDTO<String> page = KeysetPages.page(table(4), Function.identity(), "0002", 2);
+
+        assertEquals(List.of("0003", "0004"), page.getItems());
+        assertNull(page.getNextPageToken());
+    }
+
+    @Test
+    public void page_whenSizeIsOutOfRange_shouldClamp() {
+        KeysetPages.page(table(5), Function.identity(), null, 0);
+        KeysetPages.page(table(5), Function.identity(), null, 1_000_000);
+
+        assertEquals(List.of(2, KeysetPages.MAX_PAGE_SIZE + 1), limits);
+    }
+
+    @Test
+    public void export_whenLastChunkIsFull_shouldStopAtEmptyChunk() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        KeysetPages.export(new ObjectMapper(), table(2 * KeysetPages.EXPORT_CHUNK_SIZE), Function.identity()).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2 * KeysetPages.EXPORT_CHUNK_SIZE, lines.length);
+        assertEquals("\"0001\"", lines[0]);
+        assertEquals(3, limits.size());
+    }
+
+    @Test
+    public void export_whenLastChunkIsPartial_shouldStopAfterIt() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        KeysetPages.export(new ObjectMapper(), table(KeysetPages.EXPORT_CHUNK_SIZE + 1), Function.identity()).writeTo(out);
+
+        assertEquals(KeysetPages.EXPORT_CHUNK_SIZE + 1, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertEquals(2, limits.size());
+    }
+}
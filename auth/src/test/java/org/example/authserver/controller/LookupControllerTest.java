@@ -0,0 +1,57 @@
+package org.example.authserver.controller;
+
+import org.example.authserver.entity.LookupPageDTO;
+import org.example.authserver.service.zanzibar.Zanzibar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LookupControllerTest {
+
+    private Zanzibar zanzibar;
+    private LookupController controller;
+
+    @BeforeEach
+    void setUp() {
+        zanzibar = mock(Zanzibar.class);
+        when(zanzibar.lookupResources("doc", "viewer", "alice")).thenAnswer(invocation -> Flux.just("5", "3", "1", "4", "2"));
+        controller = new LookupController(zanzibar);
+    }
+
+    @Test
+    public void lookupResources_whenPaging_shouldWalkOnce() {
+        LookupPageDTO first = controller.lookupResources("doc", "viewer", "alice", null, 2);
+        LookupPageDTO second = controller.lookupResources("doc", "viewer", "alice", first.getNextPageToken(), 2);
+        LookupPageDTO third = controller.lookupResources("doc", "viewer", "alice", second.getNextPageToken(), 2);
+
+        assertEquals(List.of("1", "2"), first.getItems());
+        assertEquals(List.of("3", "4"), second.getItems());
+        assertEquals(List.of("5"), third.getItems());
+        assertNull(third.getNextPageToken());
+        verify(zanzibar, times(1)).lookupResources("doc", "viewer", "alice");
+    }
+
+    @Test
+    public void lookupResources_whenCursorIsUnknown_shouldWalkFromLastObject() {
+        LookupPageDTO page = controller.lookupResources("doc", "viewer", "alice", "expired:2", 2);
+
+        assertEquals(List.of("3", "4"), page.getItems());
+        assertNotNull(page.getNextPageToken());
+    }
+
+    @Test
+    public void lookupResources_whenTokenBelongsToAnotherPrincipal_shouldWalkForTheCaller() {
+        when(zanzibar.lookupResources("doc", "viewer", "bob")).thenAnswer(invocation -> Flux.just("3", "9"));
+        LookupPageDTO alice = controller.lookupResources("doc", "viewer", "alice", null, 2);
+
+        LookupPageDTO bob = controller.lookupResources("doc", "viewer", "bob", alice.getNextPageToken(), 2);
+
+        assertEquals(List.of("3", "9"), bob.getItems());
+        verify(zanzibar).lookupResources("doc", "viewer", "bob");
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.authserver.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.authserver.entity.MappingEntity;
+import org.example.authserver.entity.PageDTO;
+import org.example.authserver.repo.pgsql.MappingRepository;
+import org.example.authserver.service.MappingWriteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class MappingControllerTest {
+
+    private MappingRepository repository;
+    private MappingController controller;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(MappingRepository.class);
+        controller = new MappingController(repository, mock(MappingWriteService.class), new ObjectMapper());
+    }
+
+    @Test
+    public void pageMappings_whenNamespaceGiven_shouldQueryItFromFirstId() {
+        when(repository.findByNamespaceAndIdGreaterThanOrderByIdAsc("api", "", PageRequest.of(0, 2)))
+                .thenReturn(List.of(mapping("a")));
+
+        PageDTO<MappingEntity> page = controller.pageMappings("api", null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextPageToken());
+        verify(repository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    public void pageMappings_whenMoreRemain_shouldContinueAfterToken() {
+        when(repository.findByIdGreaterThanOrderByIdAsc("a", PageRequest.of(0, 2)))
+                .thenReturn(List.of(mapping("b"), mapping("c")));
+
+        PageDTO<MappingEntity> page = controller.pageMappings(null, "a", 1);
+
+        assertEquals("b", page.getNextPageToken());
+    }
+
+    @Test
+    public void exportMappings_shouldWriteOneLinePerMapping() throws Exception {
+        when(repository.findByIdGreaterThanOrderByIdAsc("", PageRequest.of(0, KeysetPages.EXPORT_CHUNK_SIZE)))
+                .thenReturn(List.of(mapping("a"), mapping("b")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        controller.exportMappings(null).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains("\"id\":\"b\""));
+    }
+
+    private static MappingEntity mapping(String id) {
+        return MappingEntity.builder().id(id).build();
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.authserver.repo.invalidation;
+
+import org.example.authserver.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InvalidationBusTest {
+
+    private AppProperties appProperties;
+    private InMemoryInvalidationTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getInvalidation().setCoalesceMs(0);
+        appProperties.getInvalidation().setMinBackoffMs(1);
+        transport = new InMemoryInvalidationTransport();
+    }
+
+    @Test
+    public void subscribe_whenKeysArePublished_shouldDeliverOnlyTopicKeys() throws Exception {
+        InvalidationBus bus = new InvalidationBus(transport, appProperties);
+        List<String> received = collect(bus.subscribe("config"));
+
+        bus.publish("config", "1");
+        bus.publish("acl", "2");
+        bus.publish("config", "3");
+
+        assertEquals(List.of("1", "3"), await(received, 2));
+    }
+
+    @Test
+    public void subscribe_whenBurstOfSameKey_shouldCoalesce() throws Exception {
+        appProperties.getInvalidation().setCoalesceMs(200);
+        InvalidationBus bus = new InvalidationBus(transport, appProperties);
+        List<String> received = collect(bus.subscribe("config"));
+
+        bus.publish("config", "1");
+        bus.publish("config", "1");
+        bus.publish("config", "2");
+        bus.publish("config", "1");
+
+        assertEquals(List.of("1", "2"), await(received, 2));
+    }
+
+    @Test
+    public void subscribe_whenSequenceHasGap_shouldDeliverResync() throws Exception {
+        InvalidationBus bus = new InvalidationBus(transport, appProperties);
+        List<String> received = collect(bus.subscribe("config"));
+
+        transport.send("{\"origin\":\"node1\",\"sequence\":1,\"topic\":\"config\",\"key\":\"a\"}");
+        transport.send("{\"origin\":\"node1\",\"sequence\":1,\"topic\":\"config\",\"key\":\"a\"}");
+        transport.send("{\"origin\":\"node1\",\"sequence\":4,\"topic\":\"config\",\"key\":\"b\"}");
+
+        assertEquals(List.of("a", InvalidationBus.RESYNC, "b"), await(received, 3));
+    }
+
+    @Test
+    public void subscribe_whenConnectionIsLost_shouldReconnectAndResync() throws Exception {
+        AtomicInteger connects = new AtomicInteger();
+        InvalidationTransport flaky = new InvalidationTransport() {
+            @Override
+            public void send(String payload) {
+            }
+
+            @Override
+            public Flux<String> listen() {
+                if (connects.incrementAndGet() == 1) {
+                    return Flux.just(CONNECTED).concatWith(Flux.error(new IllegalStateException("connection reset")));
+                }
+                return Flux.just(CONNECTED, "{\"origin\":\"node1\",\"sequence\":1,\"topic\":\"config\",\"key\":\"a\"}").concatWith(Flux.never());
+            }
+        };
+        InvalidationBus bus = new InvalidationBus(flaky, appProperties);
+
+        List<String> received = collect(bus.subscribe("config"));
+
+        assertEquals(List.of(InvalidationBus.RESYNC, "a"), await(received, 2));
+        assertEquals(2, connects.get());
+    }
+
+    @Test
+    public void publish_whenCalledConcurrently_shouldKeepSequenceOrder() throws Exception {
+        InvalidationBus bus = new InvalidationBus(transport, appProperties);
+        List<String> received = collect(bus.subscribe("config"));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) bus.publish("config", thread + "-" + i);
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(400, await(received, 400).size());
+        assertFalse(received.contains(InvalidationBus.RESYNC));
+    }
+
+    @Test
+    public void coalesce_whenResyncIsBuffered_shouldDeliverOnlyResync() {
+        assertEquals(List.of(InvalidationBus.RESYNC), InvalidationBus.coalesce(List.of("1", InvalidationBus.RESYNC, "2")));
+        assertEquals(List.of("2", "1"), InvalidationBus.coalesce(List.of("2", "1", "2")));
+    }
+
+    private static List<String> collect(Flux<String> flux) {
+        List<String> received = new CopyOnWriteArrayList<>();
+        flux.subscribe(received::add);
+        return received;
+    }
+
+    private static List<String> await(List<String> received, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (received.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50); // nothing more should arrive
+        return received;
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.authserver.repo.pgsql;
+
+import authserver.acl.Acl;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.AclFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the statements and bound parameters against a mocked connection, the queries themselves run on postgres only.
+ */
+public class AclJdbcReaderTest {
+
+    private static final UUID ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private AclJdbcReader reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.createArrayOf(eq("text"), any())).thenAnswer(invocation -> mock(Array.class));
+        when(statement.getConnection()).thenReturn(connection);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        reader = new AclJdbcReader(dataSource, new AppProperties(), "authz");
+    }
+
+    @Test
+    public void findAllByUser_shouldMapRows() throws Exception {
+        row();
+
+        Set<Acl> acls = reader.findAllByUser("user1");
+
+        assertEquals(1, acls.size());
+        Acl acl = acls.iterator().next();
+        assertEquals(ID, acl.getId());
+        assertEquals("doc:1", acl.getNsObject());
+        assertEquals("viewer", acl.getRelation());
+        assertEquals("group", acl.getUsersetNamespace());
+        assertEquals("a", acl.getUsersetObject());
+        assertEquals("member", acl.getUsersetRelation());
+        assertEquals(10L, acl.getCreated());
+        assertEquals(20L, acl.getUpdated());
+        assertTrue(sql().contains("FROM authz.acls a WHERE a.usr = ?"));
+        verify(statement).setString(1, "user1");
+    }
+
+    @Test
+    public void findAllUsersetsByNsobjectIn_shouldBindOneArray() throws Exception {
+        reader.findAllUsersetsByNsobjectIn(List.of("doc:1", "doc:2"));
+
+        assertTrue(sql().endsWith("WHERE a.usr = '*' AND a.nsobject = ANY(?)"));
+        verify(connection).createArrayOf("text", new Object[]{"doc:1", "doc:2"});
+        verify(statement).setArray(eq(1), any(Array.class));
+    }
+
+    @Test
+    public void findAllByUserOrUsersetsByNsobjectIn_shouldBindUserThenArray() throws Exception {
+        reader.findAllByUserOrUsersetsByNsobjectIn("user1", List.of("doc:1"));
+
+        assertTrue(sql().endsWith("WHERE a.usr = ? OR (a.usr = '*' AND a.nsobject = ANY(?))"));
+        verify(statement).setString(1, "user1");
+        verify(connection).createArrayOf("text", new Object[]{"doc:1"});
+        verify(statement).setArray(eq(2), any(Array.class));
+    }
+
+    @Test
+    public void findAllByUsersetIn_shouldUnnestNamespacesAndObjects() throws Exception {
+        reader.findAllByUsersetIn(List.of("group:a", "team:b:c"));
+
+        assertTrue(sql().contains("JOIN unnest(?, ?) AS r(ns, obj) ON a.userset_namespace = r.ns AND a.userset_object = r.obj"));
+        verify(connection).createArrayOf("text", new Object[]{"group", "team"});
+        verify(connection).createArrayOf("text", new Object[]{"a", "b:c"});
+        verify(statement).setArray(eq(1), any(Array.class));
+        verify(statement).setArray(eq(2), any(Array.class));
+    }
+
+    @Test
+    public void findPage_shouldFilterAfterLastIdInIdOrder() throws Exception {
+        row();
+
+        List<Acl> page = reader.findPage(AclFilter.builder().namespace("doc").principal("user1").build(), ID.toString(), 50);
+
+        assertEquals(1, page.size());
+        assertEquals("SELECT a.id, a.namespace, a.object, a.relation, a.usr, a.userset_namespace, a.userset_object, a.userset_relation, a.created, a.updated"
+                + " FROM authz.acls a WHERE 1 = 1 AND a.namespace = ? AND a.usr = ? AND a.id > ? ORDER BY a.id LIMIT ?", sql());
+        verify(statement).setString(1, "doc");
+        verify(statement).setString(2, "user1");
+        verify(statement).setString(3, ID.toString());
+        verify(statement).setObject(4, 50);
+    }
+
+    @Test
+    public void findPage_whenFirstPage_shouldNotFilterById() throws Exception {
+        reader.findPage(AclFilter.builder().build(), null, 10);
+
+        assertTrue(sql().endsWith("FROM authz.acls a WHERE 1 = 1 ORDER BY a.id LIMIT ?"));
+        verify(statement).setObject(1, 10);
+    }
+
+    private String sql() throws Exception {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        return sql.getValue();
+    }
+
+    private void row() throws Exception {
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString(1)).thenReturn(ID.toString());
+        when(resultSet.getString(2)).thenReturn("doc");
+        when(resultSet.getString(3)).thenReturn("1");
+        when(resultSet.getString(4)).thenReturn("viewer");
+        when(resultSet.getString(5)).thenReturn("*");
+        when(resultSet.getString(6)).thenReturn("group");
+        when(resultSet.getString(7)).thenReturn("a");
+        when(resultSet.getString(8)).thenReturn("member");
+        when(resultSet.getLong(9)).thenReturn(10L);
+        when(resultSet.getLong(10)).thenReturn(20L);
+    }
+}
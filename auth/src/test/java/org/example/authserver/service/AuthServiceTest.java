@@ -0,0 +1,63 @@
+package org.example.authserver.service;
+
+import io.envoyproxy.envoy.service.auth.v3.CheckRequest;
+import io.envoyproxy.envoy.service.auth.v3.CheckResponse;
+import io.envoyproxy.envoy.type.v3.StatusCode;
+import io.grpc.stub.StreamObserver;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.BudgetConfig;
+import org.example.authserver.entity.CheckResult;
+import org.example.authserver.service.zanzibar.AclFilterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AuthServiceTest {
+
+    private AclFilterService aclFilterService;
+    private AppProperties appProperties;
+
+    @BeforeEach
+    void setUp() {
+        aclFilterService = mock(AclFilterService.class);
+        appProperties = new AppProperties();
+    }
+
+    @Test
+    public void check_whenBudgetExceededAndPolicyIsFail_shouldRespondUnavailable() {
+        appProperties.getBudget().setOnExceeded(BudgetConfig.OnExceeded.FAIL);
+        when(aclFilterService.checkRequest(any(CheckRequest.class)))
+                .thenReturn(CheckResult.builder().mappingsPresent(true).budgetExceeded(true).result(false).build());
+
+        CheckResponse response = check();
+
+        assertEquals(14, response.getStatus().getCode());
+        assertEquals(StatusCode.ServiceUnavailable, response.getDeniedResponse().getStatus().getCode());
+    }
+
+    @Test
+    public void check_whenBudgetExceededAndPolicyIsDeny_shouldRespondDenied() {
+        when(aclFilterService.checkRequest(any(CheckRequest.class)))
+                .thenReturn(CheckResult.builder().mappingsPresent(true).budgetExceeded(true).result(false).build());
+
+        CheckResponse response = check();
+
+        assertEquals(7, response.getStatus().getCode());
+        assertFalse(response.hasDeniedResponse());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CheckResponse check() {
+        StreamObserver<CheckResponse> observer = mock(StreamObserver.class);
+        new AuthService(aclFilterService, appProperties).check(CheckRequest.getDefaultInstance(), observer);
+
+        ArgumentCaptor<CheckResponse> captor = ArgumentCaptor.forClass(CheckResponse.class);
+        verify(observer).onNext(captor.capture());
+        verify(observer).onCompleted();
+        return captor.getValue();
+    }
+}
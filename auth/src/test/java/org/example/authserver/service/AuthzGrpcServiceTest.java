@@ -0,0 +1,94 @@
+package org.example.authserver.service;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.grpc.BatchCheckRequest;
+import org.example.authserver.grpc.BatchCheckResponse;
+import org.example.authserver.grpc.CheckItem;
+import org.example.authserver.grpc.RelationsRequest;
+import org.example.authserver.grpc.RelationsResponse;
+import org.example.authserver.service.model.EvaluationBudget;
+import org.example.authserver.service.zanzibar.Zanzibar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AuthzGrpcServiceTest {
+
+    private Zanzibar zanzibar;
+    private AuthzGrpcService service;
+
+    @BeforeEach
+    void setUp() {
+        zanzibar = mock(Zanzibar.class);
+        AppProperties appProperties = new AppProperties();
+        appProperties.getBatch().setMaxItems(2);
+        service = new AuthzGrpcService(zanzibar, appProperties, mock(SlowCheckRecorder.class), mock(ChangelogService.class),
+                mock(CacheLoaderService.class), mock(RelationsService.class), mock(ShardRouter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void batchCheck_whenOverLimit_shouldRejectWithoutEvaluating() {
+        CheckItem item = CheckItem.newBuilder().setNamespace("doc").setObject("1").setRelation("viewer").build();
+        StreamObserver<BatchCheckResponse> observer = mock(StreamObserver.class);
+
+        service.batchCheck(BatchCheckRequest.newBuilder().setPrincipal("alice")
+                .addItems(item).addItems(item).addItems(item).build(), observer);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(observer).onError(error.capture());
+        assertEquals(Status.Code.INVALID_ARGUMENT, ((StatusRuntimeException) error.getValue()).getStatus().getCode());
+        verify(observer, never()).onNext(any());
+        verifyNoInteractions(zanzibar);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void relations_whenCallerIsNotShardNode_shouldBeDenied() {
+        StreamObserver<RelationsResponse> observer = mock(StreamObserver.class);
+
+        service.relations(RelationsRequest.newBuilder().setPrincipal("alice").build(), observer);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(observer).onError(error.capture());
+        assertEquals(Status.Code.PERMISSION_DENIED, ((StatusRuntimeException) error.getValue()).getStatus().getCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void batchCheck_whenForwardedByNonShardNode_shouldBeDenied() {
+        StreamObserver<BatchCheckResponse> observer = mock(StreamObserver.class);
+
+        service.batchCheck(BatchCheckRequest.newBuilder().setPrincipal("alice").setForwarded(true).build(), observer);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(observer).onError(error.capture());
+        assertEquals(Status.Code.PERMISSION_DENIED, ((StatusRuntimeException) error.getValue()).getStatus().getCode());
+        verifyNoInteractions(zanzibar);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void batchCheck_whenBudgetFails_shouldBeUnavailable() {
+        when(zanzibar.checkBatch(eq("alice"), anyList(), any()))
+                .thenThrow(new EvaluationBudget.ExceededException(EvaluationBudget.Reason.DEADLINE, 100));
+        CheckItem item = CheckItem.newBuilder().setNamespace("doc").setObject("1").setRelation("viewer").build();
+        StreamObserver<BatchCheckResponse> observer = mock(StreamObserver.class);
+
+        service.batchCheck(BatchCheckRequest.newBuilder().setPrincipal("alice").addItems(item).build(), observer);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(observer).onError(error.capture());
+        StatusRuntimeException unavailable = (StatusRuntimeException) error.getValue();
+        assertEquals(Status.Code.UNAVAILABLE, unavailable.getStatus().getCode());
+        assertEquals("DEADLINE", unavailable.getTrailers().get(ShardRouter.BUDGET_EXCEEDED));
+        verify(observer, never()).onNext(any());
+    }
+}
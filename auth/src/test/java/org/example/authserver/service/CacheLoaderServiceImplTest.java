@@ -0,0 +1,71 @@
+package org.example.authserver.service;
+
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.repo.AclRelationConfigRepository;
+import org.example.authserver.repo.SubscriptionRepository;
+import org.example.authserver.service.zanzibar.AclRelationConfigService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CacheLoaderServiceImplTest {
+
+    private AclRelationConfigRepository configRepository;
+    private ChangelogService changelogService;
+    private PrincipalFilter principalFilter;
+    private DenyCache denyCache;
+    private CacheLoaderServiceImpl cacheLoaderService;
+
+    @BeforeEach
+    void setUp() {
+        configRepository = mock(AclRelationConfigRepository.class);
+        when(configRepository.findAll()).thenReturn(new HashSet<>());
+        changelogService = mock(ChangelogService.class);
+        principalFilter = mock(PrincipalFilter.class);
+        denyCache = mock(DenyCache.class);
+        AppProperties appProperties = new AppProperties();
+        appProperties.getConsistency().setMaxWaitMs(10);
+        cacheLoaderService = new CacheLoaderServiceImpl(mock(CacheService.class), configRepository, mock(AclRelationConfigService.class),
+                mock(SubscriptionRepository.class), changelogService, appProperties, mock(SnapshotService.class),
+                mock(MappingCacheService.class), mock(HotPrincipalTracker.class), principalFilter, denyCache);
+    }
+
+    @Test
+    public void ensureRevision_whenTokenIsAheadOfChangelog_shouldClampWithoutReload() {
+        when(changelogService.getRevision()).thenReturn(5L);
+        cacheLoaderService.updateAllConfigs();
+
+        assertEquals(5L, cacheLoaderService.ensureRevision(Long.MAX_VALUE));
+        verify(configRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void ensureRevision_whenManyRequestsAreBehind_shouldReloadOnce() {
+        when(changelogService.getRevision()).thenReturn(5L);
+
+        List<CompletableFuture<Long>> requests = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> cacheLoaderService.ensureRevision(5)))
+                .collect(Collectors.toList());
+
+        requests.forEach(request -> assertEquals(5L, request.join()));
+        verify(configRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void ensureRevision_whenReloading_shouldDropFastDenies() {
+        when(changelogService.getRevision()).thenReturn(5L);
+
+        cacheLoaderService.ensureRevision(5);
+
+        verify(denyCache).invalidateAll();
+        verify(principalFilter).rebuildLater();
+    }
+}
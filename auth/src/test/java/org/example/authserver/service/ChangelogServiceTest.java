@@ -0,0 +1,122 @@
+package org.example.authserver.service;
+
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.repo.ChangelogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ChangelogServiceTest {
+
+    private final List<ChangeEvent> log = new CopyOnWriteArrayList<>();
+    private ChangelogRepository repository;
+    private ChangelogService changelogService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChangelogRepository.class);
+        when(repository.appended()).thenReturn(Flux.never());
+        when(repository.findMaxRevision()).thenAnswer(invocation -> log.stream().mapToLong(ChangeEvent::getRevision).max().orElse(0));
+        when(repository.findAllAfter(anyLong(), anyInt())).thenAnswer(invocation -> log.stream()
+                .filter(event -> event.getRevision() > invocation.getArgument(0, Long.class))
+                .limit(invocation.getArgument(1, Integer.class))
+                .collect(Collectors.toList()));
+        when(repository.findAllIn(anyList())).thenAnswer(invocation -> log.stream()
+                .filter(event -> invocation.<List<Long>>getArgument(0).contains(event.getRevision()))
+                .collect(Collectors.toList()));
+        AppProperties appProperties = new AppProperties();
+        appProperties.getWatch().setPollIntervalMs(50);
+        appProperties.getWatch().setSettleMs(100);
+        changelogService = new ChangelogService(repository, appProperties);
+    }
+
+    @Test
+    public void watch_whenResumingFromRevision_shouldReplayThenTail() {
+        log.addAll(List.of(event(1, 0), event(2, 0), event(3, 0)));
+
+        List<Long> revisions = changelogService.watch(1)
+                .doOnNext(event -> {
+                    if (event.getRevision() == 3) log.add(event(4, 0));
+                })
+                .take(3)
+                .map(ChangeEvent::getRevision)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(2L, 3L, 4L), revisions);
+    }
+
+    @Test
+    public void watch_whenSeveralWatchers_shouldShareOnePoller() {
+        log.addAll(List.of(event(1, 0), event(2, 0)));
+
+        List<Long> revisions = Flux.merge(
+                        changelogService.watch(0).take(3),
+                        changelogService.watch(1).take(2))
+                .doOnNext(event -> {
+                    if (log.size() == 2) log.add(event(3, 0));
+                })
+                .map(ChangeEvent::getRevision)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(5, revisions.size());
+        assertEquals(2, revisions.stream().filter(revision -> revision == 3L).count());
+        verify(repository, times(1)).findMaxRevision();
+    }
+
+    @Test
+    public void settled_whenGapIsFresh_shouldStopBeforeIt() {
+        long now = System.currentTimeMillis();
+        List<ChangeEvent> page = List.of(event(5, now), event(7, now), event(8, now));
+
+        List<Long> settled = changelogService.settled(page, 4).stream()
+                .map(ChangeEvent::getRevision)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(5L), settled);
+    }
+
+    @Test
+    public void settled_whenGapIsOld_shouldSkipIt() {
+        List<ChangeEvent> page = List.of(event(5, 0), event(7, 0));
+
+        assertEquals(2, changelogService.settled(page, 4).size());
+        assertTrue(changelogService.repairGaps().isEmpty());
+    }
+
+    @Test
+    public void repairGaps_whenSkippedRevisionCommitsLate_shouldSendResync() {
+        long settledAgo = System.currentTimeMillis() - 1000;
+        assertEquals(1, changelogService.settled(List.of(event(5, settledAgo)), 3).size());
+        assertTrue(changelogService.repairGaps().isEmpty());
+
+        log.add(event(4, settledAgo));
+        List<ChangeEvent> resync = changelogService.repairGaps();
+
+        assertEquals(1, resync.size());
+        assertEquals(ChangeEvent.Type.RESYNC, resync.get(0).getType());
+        assertEquals(4, resync.get(0).getRevision());
+        assertTrue(changelogService.repairGaps().isEmpty());
+    }
+
+    private ChangeEvent event(long revision, long timestamp) {
+        return ChangeEvent.builder()
+                .revision(revision)
+                .type(ChangeEvent.Type.TUPLE)
+                .operation(ChangeEvent.Operation.WRITE)
+                .key("contact:1#viewer@user1")
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.authserver.service;
+
+import authserver.acl.Acl;
+import org.example.authserver.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DenyCacheTest {
+
+    private DenyCache denyCache;
+
+    @BeforeEach
+    public void setUp() {
+        denyCache = new DenyCache(new AppProperties());
+    }
+
+    @Test
+    public void isDenied_whenDenied_shouldMatchKeyOfPrincipalOnly() {
+        denyCache.deny("t1", "user1", "doc:1#viewer", denyCache.generation());
+
+        assertTrue(denyCache.isDenied("t1", "user1", "doc:1#viewer"));
+        assertFalse(denyCache.isDenied("t1", "user1", "doc:2#viewer"));
+        assertFalse(denyCache.isDenied("t1", "user2", "doc:1#viewer"));
+    }
+
+    @Test
+    public void deny_whenInvalidatedDuringEvaluation_shouldNotStore() {
+        long generation = denyCache.generation();
+        denyCache.invalidate(Acl.create("doc:1#viewer@user1"));
+        denyCache.deny("t1", "user1", "doc:1#viewer", generation);
+
+        assertFalse(denyCache.isDenied("t1", "user1", "doc:1#viewer"));
+    }
+
+    @Test
+    public void invalidate_whenDirectTuple_shouldDropItsPrincipalOnly() {
+        denyCache.deny("t1", "user1", "doc:1#viewer", denyCache.generation());
+        denyCache.deny("t1", "user2", "doc:1#viewer", denyCache.generation());
+
+        denyCache.invalidate(Acl.create("doc:1#viewer@user1"));
+
+        assertFalse(denyCache.isDenied("t1", "user1", "doc:1#viewer"));
+        assertTrue(denyCache.isDenied("t1", "user2", "doc:1#viewer"));
+    }
+
+    @Test
+    public void invalidate_whenUsersetTuple_shouldDropEveryone() {
+        denyCache.deny("t1", "user1", "doc:1#viewer", denyCache.generation());
+        denyCache.deny("t1", "user2", "doc:1#viewer", denyCache.generation());
+
+        denyCache.invalidate(Acl.create("doc:1#viewer@group:admins#member"));
+
+        assertFalse(denyCache.isDenied("t1", "user1", "doc:1#viewer"));
+        assertFalse(denyCache.isDenied("t1", "user2", "doc:1#viewer"));
+    }
+
+    @Test
+    public void isDenied_whenDeniedInOtherTenant_shouldNotMatch() {
+        denyCache.deny("t1", "user1", "doc:1#viewer", denyCache.generation());
+
+        assertFalse(denyCache.isDenied("t2", "user1", "doc:1#viewer"));
+    }
+
+    @Test
+    public void deny_whenTenantQuotaIsFull_shouldEvictWithinTenantOnly() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getTenant().getDefaults().setDecisionCacheSize(1);
+        DenyCache small = new DenyCache(appProperties);
+
+        small.deny("t1", "user1", "doc:1#viewer", small.generation());
+        small.deny("t2", "user2", "doc:1#viewer", small.generation());
+        small.deny("t2", "user3", "doc:1#viewer", small.generation());
+
+        assertTrue(small.isDenied("t1", "user1", "doc:1#viewer"));
+        assertTrue(small.isDenied("t2", "user3", "doc:1#viewer"));
+        assertFalse(small.isDenied("t2", "user2", "doc:1#viewer"));
+    }
+
+    @Test
+    public void isDenied_whenDisabled_shouldNeverMatch() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getNegativeCache().setEnabled(false);
+        DenyCache disabled = new DenyCache(appProperties);
+
+        disabled.deny("t1", "user1", "doc:1#viewer", disabled.generation());
+
+        assertFalse(disabled.isDenied("t1", "user1", "doc:1#viewer"));
+    }
+}
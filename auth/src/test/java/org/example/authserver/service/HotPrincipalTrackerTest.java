@@ -0,0 +1,32 @@
+package org.example.authserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HotPrincipalTrackerTest {
+
+    @Test
+    public void top_whenPrincipalsAreRecorded_shouldOrderByActivity() {
+        HotPrincipalTracker tracker = new HotPrincipalTracker();
+        tracker.record("user1");
+        tracker.record("user2");
+        tracker.record("user2");
+        tracker.record("user3");
+        tracker.record("user3");
+        tracker.record("user3");
+        tracker.record(" ");
+
+        assertEquals(List.of("user3", "user2"), tracker.top(2));
+    }
+
+    @Test
+    public void restore_whenSeededFromSnapshot_shouldKeepOrder() {
+        HotPrincipalTracker tracker = new HotPrincipalTracker();
+        tracker.restore(List.of("user1", "user2", "user3"));
+
+        assertEquals(List.of("user1", "user2", "user3"), tracker.top(10));
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.authserver.service;
+
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.entity.MappingEntity;
+import org.example.authserver.repo.ChangelogRepository;
+import org.example.authserver.repo.pgsql.MappingRepository;
+import org.example.authserver.service.model.CompiledMapping;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MappingCacheServiceTest {
+
+    private MappingRepository mappingRepository;
+    private ChangelogRepository changelogRepository;
+    private AppProperties appProperties;
+    private MappingCacheService mappingCacheService;
+
+    @BeforeEach
+    void setUp() {
+        mappingRepository = mock(MappingRepository.class);
+        changelogRepository = mock(ChangelogRepository.class);
+        when(mappingRepository.findAll()).thenReturn(List.of(mapping("1", HttpMethod.GET, "/contacts/{id}")));
+        when(changelogRepository.findMaxRevision()).thenReturn(5L);
+        appProperties = new AppProperties();
+        appProperties.getMapping().setResyncIntervalMin(0);
+        mappingCacheService = new MappingCacheService(mappingRepository, changelogRepository, appProperties);
+        mappingCacheService.resync();
+    }
+
+    @Test
+    public void apply_whenWriteIsNewerThanLoad_shouldAddCompiledMapping() {
+        when(mappingRepository.findById("2")).thenReturn(Optional.of(mapping("2", HttpMethod.POST, "/contacts")));
+
+        mappingCacheService.apply(event(6, "2", ChangeEvent.Operation.WRITE));
+
+        assertEquals(6, mappingCacheService.getRevision());
+        assertEquals(2, mappingCacheService.getAll().size());
+        List<CompiledMapping> candidates = mappingCacheService.getTable().candidates("post");
+        assertEquals(1, candidates.size());
+        assertEquals(Map.of(), candidates.get(0).match(PathContainer.parsePath("/contacts")));
+    }
+
+    @Test
+    public void apply_whenEventIsCoveredByLoad_shouldSkip() {
+        mappingCacheService.apply(event(4, "1", ChangeEvent.Operation.DELETE));
+
+        assertEquals(5, mappingCacheService.getRevision());
+        assertEquals(1, mappingCacheService.getAll().size());
+    }
+
+    @Test
+    public void apply_whenDeleted_shouldRemoveFromTable() {
+        mappingCacheService.apply(event(6, "1", ChangeEvent.Operation.DELETE));
+
+        assertTrue(mappingCacheService.getTable().candidates("GET").isEmpty());
+    }
+
+    @Test
+    public void restore_whenDatabaseIsLoaded_shouldKeepIt() {
+        mappingCacheService.restore(List.of(mapping("1", HttpMethod.GET, "/contacts/{id}"), mapping("deleted", HttpMethod.DELETE, "/contacts")), 3);
+
+        assertEquals(5, mappingCacheService.getRevision());
+        assertEquals(1, mappingCacheService.getAll().size());
+    }
+
+    @Test
+    public void restore_whenNotLoaded_shouldReplayFromSnapshotRevision() {
+        MappingCacheService restored = new MappingCacheService(mappingRepository, changelogRepository, appProperties);
+        restored.restore(List.of(mapping("1", HttpMethod.GET, "/contacts/{id}"), mapping("deleted", HttpMethod.DELETE, "/contacts")), 3);
+
+        restored.apply(event(4, "deleted", ChangeEvent.Operation.DELETE));
+
+        assertEquals(4, restored.getRevision());
+        assertEquals(1, restored.getAll().size());
+        verify(mappingRepository, times(1)).findAll(); // only the load in setUp
+    }
+
+    @Test
+    public void getTable_shouldMatchPathVariables() {
+        CompiledMapping mapping = mappingCacheService.getTable().candidates("GET").get(0);
+
+        assertEquals(Map.of("id", "42"), mapping.match(PathContainer.parsePath("/contacts/42")));
+        assertNull(mapping.match(PathContainer.parsePath("/accounts/42")));
+    }
+
+    private static MappingEntity mapping(String id, HttpMethod method, String path) {
+        return MappingEntity.builder().id(id).method(method).path(path).build();
+    }
+
+    private static ChangeEvent event(long revision, String id, ChangeEvent.Operation operation) {
+        return ChangeEvent.builder()
+                .revision(revision)
+                .type(ChangeEvent.Type.MAPPING)
+                .operation(operation)
+                .id(id)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.authserver.service;
+
+import authserver.acl.Acl;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.repo.AclRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PrincipalFilterTest {
+
+    private AclRepository aclRepository;
+    private PrincipalFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        aclRepository = mock(AclRepository.class);
+        AppProperties appProperties = new AppProperties();
+        appProperties.getNegativeCache().setBloomExpectedPrincipals(1000);
+        filter = new PrincipalFilter(aclRepository, appProperties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void principals(String... principals) {
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            for (String principal : principals) {
+                consumer.accept(principal);
+            }
+            return null;
+        }).when(aclRepository).forEachPrincipal(any(Consumer.class));
+    }
+
+    @Test
+    public void mightHaveTuples_whenNotLoaded_shouldAllowEveryone() {
+        assertTrue(filter.mightHaveTuples("unknown"));
+    }
+
+    @Test
+    public void mightHaveTuples_whenLoaded_shouldRejectUnknownPrincipals() {
+        principals("user1", "user2");
+        filter.rebuild();
+
+        assertTrue(filter.mightHaveTuples("user1"));
+        assertTrue(filter.mightHaveTuples("user2"));
+        assertFalse(filter.mightHaveTuples("unknown"));
+    }
+
+    @Test
+    public void add_whenDirectTupleWritten_shouldAcceptItsPrincipal() {
+        principals("user1");
+        filter.rebuild();
+
+        filter.add(Acl.create("doc:1#viewer@user3"));
+        filter.add(Acl.create("doc:1#viewer@group:admins#member"));
+
+        assertTrue(filter.mightHaveTuples("user3"));
+        assertFalse(filter.mightHaveTuples("*"));
+    }
+
+    @Test
+    public void rebuild_whenTuplesDeleted_shouldForgetPrincipals() {
+        principals("user1", "user2");
+        filter.rebuild();
+        principals("user1");
+        filter.rebuild();
+
+        assertTrue(filter.mightHaveTuples("user1"));
+        assertFalse(filter.mightHaveTuples("user2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void add_whenRacingRebuilds_shouldNeverLosePrincipals() throws Exception {
+        Set<String> stored = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            new ArrayList<>(stored).forEach(consumer); // tuples committed after the scan started are not seen
+            return null;
+        }).when(aclRepository).forEachPrincipal(any(Consumer.class));
+        filter.rebuild();
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread rebuilds = new Thread(() -> {
+            while (!done.get()) {
+                filter.rebuild();
+            }
+        });
+        rebuilds.start();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                String principal = "user" + i;
+                stored.add(principal);
+                filter.add(principal);
+            }
+        } finally {
+            done.set(true);
+            rebuilds.join();
+        }
+
+        for (String principal : stored) {
+            assertTrue(filter.mightHaveTuples(principal), principal);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rebuildLater_untilRebuilt_shouldAllowEveryone() throws Exception {
+        principals("user1");
+        filter.rebuild();
+        CountDownLatch scanning = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            scanning.await(5, TimeUnit.SECONDS);
+            invocation.<Consumer<String>>getArgument(0).accept("user1");
+            return null;
+        }).when(aclRepository).forEachPrincipal(any(Consumer.class));
+
+        filter.rebuildLater();
+        assertTrue(filter.mightHaveTuples("unknown"));
+        scanning.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (filter.mightHaveTuples("unknown") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertFalse(filter.mightHaveTuples("unknown"));
+    }
+
+    @Test
+    public void rebuild_whenRepositoryFails_shouldKeepAllowingEveryone() {
+        doThrow(new RuntimeException("down")).when(aclRepository).forEachPrincipal(any());
+        filter.rebuild();
+
+        assertTrue(filter.mightHaveTuples("unknown"));
+    }
+}
@@ -7,6 +7,7 @@ import org.example.authserver.config.AppProperties;
 import org.example.authserver.config.UserRelationsConfig;
 import org.example.authserver.entity.UserRelationEntity;
 import org.example.authserver.repo.AclRepository;
+import org.example.authserver.repo.ChangelogRepository;
 import org.example.authserver.repo.pgsql.UserRelationRepository;
 import org.example.authserver.service.model.RequestCache;
 import org.example.authserver.service.zanzibar.Zanzibar;
@@ -34,6 +35,8 @@ public class RelationsServiceTest {
     @Mock
     private CacheService cacheService;
     @Mock
+    private ChangelogRepository changelogRepository;
+    @Mock
     private MeterRegistry meterRegistry;
 
     private AclRepository aclRepository;
@@ -55,7 +58,7 @@ public class RelationsServiceTest {
         Mockito.doReturn(1L).when(aclRepository).findMaxAclUpdatedByPrincipal("user1");
         Mockito.doReturn(Tester.createTestCache()).when(cacheService).prepareHighCardinalityCache(any());
 
-        builder = new UserRelationCacheBuilder(config, aclRepository, userRelationRepository, zanzibar, cacheService) {
+        builder = new UserRelationCacheBuilder(config, aclRepository, userRelationRepository, zanzibar, cacheService, changelogRepository) {
             @Override
             public boolean firstTimeBuild() {
                 return false;
@@ -0,0 +1,36 @@
+package org.example.authserver.service;
+
+import org.example.authserver.config.AppProperties;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardRouterTest {
+
+    @Test
+    public void isPeer_whenCallerIsListedNode_shouldAccept() {
+        ShardRouter router = new ShardRouter(shardedProperties());
+
+        assertTrue(router.isPeer(new InetSocketAddress("127.0.0.2", 40000)));
+        assertFalse(router.isPeer(new InetSocketAddress("10.9.8.7", 40000)));
+        assertFalse(router.isPeer(null));
+    }
+
+    @Test
+    public void isPeer_whenShardingIsDisabled_shouldReject() {
+        ShardRouter router = new ShardRouter(new AppProperties());
+
+        assertFalse(router.isPeer(new InetSocketAddress("127.0.0.1", 40000)));
+    }
+
+    private static AppProperties shardedProperties() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getShard().setEnabled(true);
+        appProperties.getShard().setSelf("127.0.0.1:8182");
+        appProperties.getShard().setNodes(List.of("127.0.0.1:8182", "127.0.0.2:8182"));
+        return appProperties;
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.authserver.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.service.model.CheckTrace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowCheckRecorderTest {
+
+    private AppProperties appProperties;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getFlightRecorder().setThresholdMs(0);
+        appProperties.getFlightRecorder().setCapacity(3);
+    }
+
+    @Test
+    public void record_whenBufferIsFull_shouldKeepNewestTraces() {
+        SlowCheckRecorder recorder = new SlowCheckRecorder(appProperties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 5; i++) {
+            CheckTrace trace = new CheckTrace();
+            trace.describe("user1", "check %s", i);
+            assertTrue(recorder.record(trace.finish(true)));
+        }
+
+        List<CheckTrace> recent = recorder.getRecent();
+        assertEquals(3, recent.size());
+        assertEquals("check 4", recent.get(0).getDescription());
+        assertEquals("check 2", recent.get(2).getDescription());
+    }
+
+    @Test
+    public void record_whenCheckIsFasterThanThreshold_shouldSkipTrace() {
+        appProperties.getFlightRecorder().setThresholdMs(60_000);
+        SlowCheckRecorder recorder = new SlowCheckRecorder(appProperties, new SimpleMeterRegistry());
+
+        assertFalse(recorder.record(new CheckTrace().finish(true)));
+        assertTrue(recorder.getRecent().isEmpty());
+    }
+
+    @Test
+    public void trace_whenEventsAreAdded_shouldTrackDepth() {
+        CheckTrace trace = new CheckTrace();
+        trace.enter();
+        trace.frontier(List.of("group:contactusers"));
+        trace.enter();
+        trace.query("findAllByNsObjectIn", List.of("api:contact"), 2, 1000);
+        trace.exit();
+        trace.exit();
+
+        assertEquals(2, trace.getEvents().size());
+        assertEquals(1, trace.getEvents().get(0).getDepth());
+        assertEquals(2, trace.getEvents().get(1).getDepth());
+        assertEquals(2, trace.getEvents().get(1).getRows());
+    }
+
+    @Test
+    public void trace_whenRead_shouldFormatDetails() {
+        CheckTrace trace = new CheckTrace();
+        trace.mapping("m1", "api", "contact", List.of("enable"));
+        trace.frontier(List.of("group:a", "group:b"));
+        trace.query("findAllByPrincipal", "user1", 3, 1000);
+        trace.cacheHit("expand", "api", "contact");
+        trace.cacheHit("userRelations", "user1");
+
+        assertEquals("m1 => api:contact [enable]", trace.getEvents().get(0).getDetail());
+        assertEquals("group:a,group:b", trace.getEvents().get(1).getDetail());
+        assertEquals("findAllByPrincipal(user1)", trace.getEvents().get(2).getDetail());
+        assertEquals("expand[api:contact]", trace.getEvents().get(3).getDetail());
+        assertEquals("userRelations[user1]", trace.getEvents().get(4).getDetail());
+    }
+}
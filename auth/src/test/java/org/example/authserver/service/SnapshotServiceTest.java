@@ -0,0 +1,104 @@
+package org.example.authserver.service;
+
+import authserver.acl.AclRelationConfig;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.ChangeEvent;
+import org.example.authserver.entity.MappingEntity;
+import org.example.authserver.service.model.Snapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private SnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getSnapshot().setEnabled(true);
+        appProperties.getSnapshot().setDirectory(directory.toString());
+        snapshotService = new SnapshotService(appProperties);
+    }
+
+    @Test
+    public void load_whenSnapshotIsWritten_shouldRestoreConfigsAndMappings() throws Exception {
+        AclRelationConfig contact = AclRelationConfig.builder().namespace("contact").build();
+        snapshotService.write(Snapshot.builder()
+                .revision(10)
+                .createdAt(System.currentTimeMillis())
+                .configs(Map.of("contact", contact))
+                .mappings(List.of(MappingEntity.builder().id("m1").path("/contact").build()))
+                .build());
+
+        Snapshot snapshot = snapshotService.load().orElseThrow();
+
+        assertEquals(10, snapshot.getRevision());
+        assertEquals(contact.getId(), snapshot.getConfigs().get("contact").getId());
+        assertEquals("/contact", snapshot.getMappings().get(0).getPath());
+    }
+
+    @Test
+    public void load_whenLogHasNewerEntries_shouldReplayThemOnTop() throws Exception {
+        AclRelationConfig contact = AclRelationConfig.builder().namespace("contact").build();
+        AclRelationConfig group = AclRelationConfig.builder().namespace("group").build();
+        snapshotService.write(Snapshot.builder().revision(10).createdAt(System.currentTimeMillis()).configs(Map.of("contact", contact)).build());
+
+        snapshotService.append(event(9, ChangeEvent.Operation.WRITE, group), group); // older than the snapshot
+        snapshotService.append(event(11, ChangeEvent.Operation.DELETE, contact), null);
+        snapshotService.append(event(12, ChangeEvent.Operation.WRITE, group), group);
+
+        Snapshot snapshot = snapshotService.load().orElseThrow();
+
+        assertEquals(12, snapshot.getRevision());
+        assertEquals(Map.of("group", group).keySet(), snapshot.getConfigs().keySet());
+    }
+
+    @Test
+    public void load_whenLogTailIsTorn_shouldIgnoreIt() throws Exception {
+        AclRelationConfig group = AclRelationConfig.builder().namespace("group").build();
+        snapshotService.write(Snapshot.builder().revision(10).createdAt(System.currentTimeMillis()).build());
+        snapshotService.append(event(11, ChangeEvent.Operation.WRITE, group), group);
+        Files.write(directory.resolve("authz.changelog"), new byte[]{0, 0, 1, 0, '{'}, StandardOpenOption.APPEND);
+
+        Snapshot snapshot = snapshotService.load().orElseThrow();
+
+        assertEquals(11, snapshot.getRevision());
+        assertTrue(snapshot.getConfigs().containsKey("group"));
+    }
+
+    @Test
+    public void load_whenSnapshotIsTooOld_shouldReturnEmpty() throws Exception {
+        long createdAt = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(601);
+        snapshotService.write(Snapshot.builder().revision(10).createdAt(createdAt).build());
+
+        assertTrue(snapshotService.load().isEmpty());
+    }
+
+    @Test
+    public void load_whenNoSnapshot_shouldReturnEmpty() {
+        assertTrue(snapshotService.load().isEmpty());
+    }
+
+    private ChangeEvent event(long revision, ChangeEvent.Operation operation, AclRelationConfig config) {
+        return ChangeEvent.builder()
+                .revision(revision)
+                .type(ChangeEvent.Type.CONFIG)
+                .operation(operation)
+                .id(config.getId().toString())
+                .key(config.getNamespace())
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.authserver.service;
+
+import io.envoyproxy.envoy.service.auth.v3.OkHttpResponse;
+import org.example.authserver.config.TagsConfig;
+import org.example.authserver.entity.CheckResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TagEmitterTest {
+
+    private final CheckResult result = CheckResult.builder()
+            .result(true)
+            .tags(Set.of("contact:1#viewer", "contact:1#editor", "contact:2#viewer", "group:devs#member"))
+            .matchedObjects(Set.of("contact:1"))
+            .build();
+
+    @Test
+    public void emit_whenModeIsMapping_shouldOnlyEmitMatchedObjectTags() {
+        OkHttpResponse response = emit(config(TagsConfig.Mode.MAPPING, TagsConfig.Encoding.CSV, 0));
+
+        assertEquals(1, response.getHeadersCount());
+        assertEquals("contact:1#editor,contact:1#viewer", response.getHeaders(0).getHeader().getValue());
+    }
+
+    @Test
+    public void emit_whenOverCap_shouldTruncateAndReportTotal() {
+        OkHttpResponse response = emit(config(TagsConfig.Mode.ALL, TagsConfig.Encoding.CSV, 2));
+
+        assertEquals("contact:1#editor,contact:1#viewer", response.getHeaders(0).getHeader().getValue());
+        assertEquals(TagEmitter.TRUNCATED_HEADER, response.getHeaders(1).getHeader().getKey());
+        assertEquals("4", response.getHeaders(1).getHeader().getValue());
+    }
+
+    @Test
+    public void emit_whenCompact_shouldGroupRelationsPerObject() {
+        OkHttpResponse response = emit(config(TagsConfig.Mode.ALL, TagsConfig.Encoding.COMPACT, 0));
+
+        assertEquals("contact:1#editor|viewer,contact:2#viewer,group:devs#member", response.getHeaders(0).getHeader().getValue());
+    }
+
+    @Test
+    public void select_whenModeIsNone_shouldBeEmpty() {
+        TagEmitter emitter = new TagEmitter(config(TagsConfig.Mode.NONE, TagsConfig.Encoding.CSV, 0));
+
+        assertEquals(List.of(), emitter.select(result));
+    }
+
+    private OkHttpResponse emit(TagsConfig config) {
+        OkHttpResponse.Builder response = OkHttpResponse.newBuilder();
+        new TagEmitter(config).emit(result, response);
+        return response.build();
+    }
+
+    private static TagsConfig config(TagsConfig.Mode mode, TagsConfig.Encoding encoding, int maxTags) {
+        TagsConfig config = new TagsConfig();
+        config.setMode(mode);
+        config.setEncoding(encoding);
+        config.setMaxTags(maxTags);
+        return config;
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.authserver.service;
+
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.config.TenantConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TenantAdmissionTest {
+
+    private static TenantAdmission admission(int maxConcurrent, TenantConfig.OverLimit overLimit) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getTenant().setQueueTimeoutMs(10);
+        appProperties.getTenant().setTenants(Set.of("t1", "t2"));
+        appProperties.getTenant().getDefaults().setMaxConcurrent(maxConcurrent);
+        appProperties.getTenant().getDefaults().setOverLimit(overLimit);
+        return new TenantAdmission(appProperties);
+    }
+
+    @Test
+    public void admit_whenTenantIsAtItsLimit_shouldShedItOnly() {
+        TenantAdmission admission = admission(1, TenantConfig.OverLimit.SHED);
+
+        TenantAdmission.Permit first = admission.admit("t1");
+        assertEquals(TenantAdmission.Permit.Decision.ADMITTED, first.getDecision());
+        assertEquals(TenantAdmission.Permit.Decision.SHED, admission.admit("t1").getDecision());
+        assertEquals(TenantAdmission.Permit.Decision.ADMITTED, admission.admit("t2").getDecision());
+
+        first.close();
+        assertEquals(TenantAdmission.Permit.Decision.ADMITTED, admission.admit("t1").getDecision());
+    }
+
+    @Test
+    public void admit_whenQueueTimesOut_shouldShed() {
+        TenantAdmission admission = admission(1, TenantConfig.OverLimit.QUEUE);
+
+        admission.admit("t1");
+
+        assertEquals(TenantAdmission.Permit.Decision.SHED, admission.admit("t1").getDecision());
+    }
+
+    @Test
+    public void admit_whenSlotIsReleasedWhileQueued_shouldAdmit() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getTenant().setQueueTimeoutMs(5000);
+        appProperties.getTenant().getDefaults().setMaxConcurrent(1);
+        TenantAdmission admission = new TenantAdmission(appProperties);
+
+        TenantAdmission.Permit first = admission.admit("t1");
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            first.close();
+        });
+        releaser.start();
+
+        assertEquals(TenantAdmission.Permit.Decision.ADMITTED, admission.admit("t1").getDecision());
+        releaser.join();
+    }
+
+    @Test
+    public void admit_whenFailOpen_shouldReportIt() {
+        TenantAdmission admission = admission(1, TenantConfig.OverLimit.FAIL_OPEN);
+
+        admission.admit("t1");
+
+        assertEquals(TenantAdmission.Permit.Decision.FAIL_OPEN, admission.admit("t1").getDecision());
+    }
+
+    @Test
+    public void resolve_whenTenantIsNotListed_shouldShareOneBucket() {
+        TenantAdmission admission = admission(1, TenantConfig.OverLimit.SHED);
+
+        assertEquals("t1", admission.resolve("t1"));
+        assertEquals(TenantAdmission.OTHER, admission.resolve("t3"));
+        assertEquals(TenantAdmission.DEFAULT, admission.resolve(null));
+    }
+
+    @Test
+    public void admit_whenDisabled_shouldAlwaysAdmit() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getTenant().setEnabled(false);
+        appProperties.getTenant().getDefaults().setMaxConcurrent(1);
+        TenantAdmission admission = new TenantAdmission(appProperties);
+
+        admission.admit("t1");
+
+        assertEquals(TenantAdmission.DEFAULT, admission.resolve("t1"));
+        assertEquals(TenantAdmission.Permit.Decision.ADMITTED, admission.admit("t1").getDecision());
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.collect.Sets;
 import org.example.authserver.Tester;
 import org.example.authserver.entity.UserRelationEntity;
 import org.example.authserver.repo.AclRepository;
+import org.example.authserver.repo.ChangelogRepository;
 import org.example.authserver.repo.pgsql.UserRelationRepository;
 import org.example.authserver.service.model.RequestCache;
 import org.example.authserver.service.zanzibar.Zanzibar;
@@ -31,6 +32,8 @@ public class UserRelationCacheBuilderTest {
     private Zanzibar zanzibar;
     @Mock
     private CacheService cacheService;
+    @Mock
+    private ChangelogRepository changelogRepository;
 
     private UserRelationCacheBuilder builder;
 
@@ -40,14 +43,14 @@ public class UserRelationCacheBuilderTest {
 
         Mockito.doReturn(Tester.createTestCache()).when(cacheService).prepareHighCardinalityCache(any());
 
-        builder = new UserRelationCacheBuilder(Tester.createTrueUserRelationsConfigConfig(), aclRepository, userRelationRepository, zanzibar, cacheService);
+        builder = new UserRelationCacheBuilder(Tester.createTrueUserRelationsConfigConfig(), aclRepository, userRelationRepository, zanzibar, cacheService, changelogRepository);
         builder.build("warm up"); // warm up executor
     }
 
     @Disabled
     @Test
     public void createUserRelations_whenInvoked_shouldSaveOnlyLowCardinalityRelations() {
-        builder = new UserRelationCacheBuilder(Tester.createTrueUserRelationsConfigConfig(), aclRepository, userRelationRepository, zanzibar, cacheService);
+        builder = new UserRelationCacheBuilder(Tester.createTrueUserRelationsConfigConfig(), aclRepository, userRelationRepository, zanzibar, cacheService, changelogRepository);
 
         RequestCache requestCache = new RequestCache();
         requestCache.getPrincipalHighCardinalityCache().put("user1", Sets.newHashSet("test-application:ID-applicationinstance___8607b629-f1d6-4ab3-99b4-236ceac07371#Owner", "test:groups#TB"));
@@ -119,7 +122,7 @@ public class UserRelationCacheBuilderTest {
 
     @Test
     public void buildAll_whenCacheEnabledIsFalse_shouldReturnFalse() {
-        UserRelationCacheBuilder b = new UserRelationCacheBuilder(Tester.createUserRelationsConfig(false), aclRepository, userRelationRepository, zanzibar, cacheService);
+        UserRelationCacheBuilder b = new UserRelationCacheBuilder(Tester.createUserRelationsConfig(false), aclRepository, userRelationRepository, zanzibar, cacheService, changelogRepository);
         assertFalse(b.buildAll());
     }
 
@@ -158,7 +161,7 @@ public class UserRelationCacheBuilderTest {
 
     @Test
     public void canUseCache_whenCacheIsDisabled_shouldReturnFalse() {
-        UserRelationCacheBuilder b = new UserRelationCacheBuilder(Tester.createUserRelationsConfig(false), aclRepository, userRelationRepository, zanzibar, cacheService);
+        UserRelationCacheBuilder b = new UserRelationCacheBuilder(Tester.createUserRelationsConfig(false), aclRepository, userRelationRepository, zanzibar, cacheService, changelogRepository);
         assertFalse(b.canUseCache("user1"));
     }
 
@@ -4,6 +4,7 @@ import org.example.authserver.Tester;
 import org.example.authserver.config.UserRelationsConfig;
 import org.example.authserver.entity.UserRelationEntity;
 import org.example.authserver.repo.AclRepository;
+import org.example.authserver.repo.ChangelogRepository;
 import org.example.authserver.repo.pgsql.UserRelationRepository;
 import org.example.authserver.service.zanzibar.Zanzibar;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +33,8 @@ public class UserRelationsCacheServiceTest {
     private Zanzibar zanzibar;
     @Mock
     private CacheService cacheService;
+    @Mock
+    private ChangelogRepository changelogRepository;
 
     private UserRelationsCacheService service;
 
@@ -40,7 +43,7 @@ public class UserRelationsCacheServiceTest {
         UserRelationsConfig config = Tester.createTrueUserRelationsConfigConfig();
 
         aclRepository = Mockito.mock(AclRepository.class);
-        UserRelationCacheBuilder builder = new UserRelationCacheBuilder(config, aclRepository, userRelationRepository, zanzibar, cacheService);
+        UserRelationCacheBuilder builder = new UserRelationCacheBuilder(config, aclRepository, userRelationRepository, zanzibar, cacheService, changelogRepository);
 
         service = new UserRelationsCacheService(builder, userRelationRepository, aclRepository);
     }
@@ -74,4 +77,23 @@ public class UserRelationsCacheServiceTest {
 
         assertFalse(service.getRelations("user1").isEmpty());
     }
+
+    @Test
+    public void getRelations_whenEntityRevisionIsBehindToken_shouldReturnNoCache() {
+        UserRelationEntity entity = UserRelationEntity.builder().maxAclUpdated(5L).revision(10L).relations(new HashSet<>()).build();
+
+        Mockito.doReturn(Optional.of(entity)).when(userRelationRepository).findById(any());
+
+        assertTrue(service.getRelations("user1", 11L).isEmpty());
+    }
+
+    @Test
+    public void getRelations_whenEntityRevisionIsAtToken_shouldReturnCache() {
+        UserRelationEntity entity = UserRelationEntity.builder().maxAclUpdated(5L).revision(11L).relations(new HashSet<>()).build();
+
+        Mockito.doReturn(5L).when(aclRepository).findMaxAclUpdatedByPrincipal("user1");
+        Mockito.doReturn(Optional.of(entity)).when(userRelationRepository).findById(any());
+
+        assertFalse(service.getRelations("user1", 11L).isEmpty());
+    }
 }
@@ -0,0 +1,57 @@
+package org.example.authserver.service;
+
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.repo.pgsql.UserRelationRepository;
+import org.example.authserver.service.zanzibar.AclRelationConfigService;
+import org.example.authserver.service.zanzibar.Zanzibar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WarmupServiceTest {
+
+    private HotPrincipalTracker hotPrincipalTracker;
+    private UserRelationsCacheService userRelationsCacheService;
+    private UserRelationRepository userRelationRepository;
+    private WarmupService warmupService;
+
+    @BeforeEach
+    void setUp() {
+        hotPrincipalTracker = new HotPrincipalTracker();
+        userRelationsCacheService = mock(UserRelationsCacheService.class);
+        when(userRelationsCacheService.getRelations(any())).thenReturn(Optional.empty());
+        userRelationRepository = mock(UserRelationRepository.class);
+        when(userRelationRepository.findRecentlyUpdatedUsers(any(Pageable.class))).thenReturn(List.of("user1", "user2"));
+        AppProperties appProperties = new AppProperties();
+        appProperties.getWarmup().setSyntheticChecks(0);
+        warmupService = new WarmupService(appProperties, mock(MappingCacheService.class), mock(AclRelationConfigService.class), hotPrincipalTracker,
+                userRelationsCacheService, userRelationRepository, mock(Zanzibar.class));
+    }
+
+    @Test
+    public void warmup_whenNothingTracked_shouldBuildRecentlyUpdatedPrincipals() {
+        warmupService.warmup();
+
+        verify(userRelationsCacheService).update("user1");
+        verify(userRelationsCacheService).update("user2");
+        assertEquals(List.of("user1", "user2"), hotPrincipalTracker.top(10));
+    }
+
+    @Test
+    public void warmup_whenPrincipalsTracked_shouldBuildThem() {
+        hotPrincipalTracker.record("user3");
+
+        warmupService.warmup();
+
+        verify(userRelationsCacheService).update("user3");
+        verify(userRelationsCacheService, never()).update("user1");
+        verifyNoInteractions(userRelationRepository);
+    }
+}
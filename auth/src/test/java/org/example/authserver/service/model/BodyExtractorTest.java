@@ -0,0 +1,69 @@
+package org.example.authserver.service.model;
+
+import org.example.authserver.entity.BodyMapping;
+import org.example.authserver.entity.BodyMappingKey;
+import org.example.authserver.entity.BodyMappingTypes;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BodyExtractorTest {
+
+    @Test
+    public void extract_whenPathsArePlain_shouldStreamValues() {
+        BodyExtractor extractor = extractor("$.contact.id:contact", "$['owner']['name']:owner", "$.items[1].sku:sku");
+
+        Map<String, String> variables = extractor.extract(
+                "{\"noise\":{\"deep\":[1,2,{\"id\":\"x\"}]},\"contact\":{\"id\":\"c1\"},\"owner\":{\"name\":\"bob\"},\"items\":[{\"sku\":\"a\"},{\"sku\":42}]}");
+
+        assertEquals(Map.of("body.contact", "c1", "body.owner", "bob", "body.sku", "42"), variables);
+    }
+
+    @Test
+    public void extract_whenAllKeysFound_shouldIgnoreRestOfBody() {
+        BodyExtractor extractor = extractor("$.id:id");
+
+        assertEquals(Map.of("body.id", "1"), extractor.extract("{\"id\":\"1\", \"broken\": [ "));
+    }
+
+    @Test
+    public void extract_whenPathIsMissingOrNotScalar_shouldLeaveItOut() {
+        BodyExtractor extractor = extractor("$.missing:missing", "$.obj:obj");
+
+        assertTrue(extractor.extract("{\"obj\":{\"a\":1}}").isEmpty());
+        assertTrue(extractor.extract("").isEmpty());
+    }
+
+    @Test
+    public void extract_whenPathNeedsJsonPath_shouldFallBack() {
+        BodyExtractor extractor = extractor("$..id:id", "$.name:name");
+
+        assertEquals(Map.of("body.id", "7", "body.name", "n"), extractor.extract("{\"a\":{\"id\":\"7\"},\"name\":\"n\"}"));
+    }
+
+    @Test
+    public void parse_shouldSplitPlainPathsOnly() {
+        assertEquals(Arrays.asList("a", "b", 0), BodyExtractor.parse("$.a['b'][0]"));
+        assertNull(BodyExtractor.parse("$..a"));
+        assertNull(BodyExtractor.parse("$.a[*]"));
+        assertNull(BodyExtractor.parse("$.a[?(@.b)]"));
+    }
+
+    @Test
+    public void of_whenNoKeys_shouldReturnNull() {
+        assertNull(BodyExtractor.of(null));
+        assertNull(BodyExtractor.of(new BodyMapping(BodyMappingTypes.JSON, List.of())));
+    }
+
+    private static BodyExtractor extractor(String... keys) {
+        BodyMapping bodyMapping = new BodyMapping(BodyMappingTypes.JSON, Arrays.stream(keys)
+                .map(k -> new BodyMappingKey(k.substring(0, k.lastIndexOf(':')), k.substring(k.lastIndexOf(':') + 1)))
+                .collect(Collectors.toList()));
+        return BodyExtractor.of(bodyMapping);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.authserver.service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of("localhost:8182", "localhost:8282", "localhost:8382");
+
+    @Test
+    public void owner_whenNodesAreListedInAnyOrder_shouldBeTheSame() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 64);
+        ConsistentHashRing reversed = new ConsistentHashRing(List.of(NODES.get(2), NODES.get(1), NODES.get(0)), 64);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.owner("user" + i), reversed.owner("user" + i));
+        }
+    }
+
+    @Test
+    public void owner_whenManyKeys_shouldSpreadOverAllNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30000; i++) {
+            counts.merge(ring.owner("user" + i), 1, Integer::sum);
+        }
+
+        assertEquals(NODES.size(), counts.size());
+        counts.values().forEach(count -> assertTrue(count > 5000, "unbalanced ring: " + counts));
+    }
+
+    @Test
+    public void owner_whenNodeIsRemoved_shouldOnlyMoveItsKeys() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing shrunk = new ConsistentHashRing(NODES.subList(0, 2), 128);
+
+        for (int i = 0; i < 1000; i++) {
+            String owner = ring.owner("user" + i);
+            if (!owner.equals(NODES.get(2))) {
+                assertEquals(owner, shrunk.owner("user" + i));
+            }
+        }
+    }
+
+    @Test
+    public void constructor_whenNoNodes_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.authserver.service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void put_whenManyKeys_shouldBehaveLikeHashMap() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long key = random.nextInt(5000) | ((long) random.nextInt(4) << 32);
+            assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        assertNull(map.get(-1L));
+    }
+
+    @Test
+    public void put_whenValueIsNull_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectHashMap<String>().put(1L, null));
+    }
+
+    @Test
+    public void find_whenPairWasInterned_shouldReturnSameKey() {
+        ObjectKeys keys = new ObjectKeys();
+        long key = keys.intern("doc", "readme");
+
+        assertEquals(key, keys.find("doc", "readme"));
+        assertNotEquals(key, keys.intern("readme", "doc"));
+        assertEquals(ObjectKeys.MISSING, keys.find("doc", "other"));
+    }
+}
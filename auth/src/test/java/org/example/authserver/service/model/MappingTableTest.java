@@ -0,0 +1,75 @@
+package org.example.authserver.service.model;
+
+import org.example.authserver.entity.MappingEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappingTableTest {
+
+    private final MappingTable table = MappingTable.of(List.of(
+            mapping("1", "contact", "/contact/{id}"),
+            mapping("2", "acl", "/acl/{id}"),
+            mapping("3", null, "/health")));
+
+    @Test
+    public void candidates_whenServiceIsHinted_shouldReturnServiceAndUnscopedMappings() {
+        assertEquals(Set.of("1", "3"), ids(table.candidates("get", "contact")));
+    }
+
+    @Test
+    public void candidates_whenServiceIsUnknown_shouldReturnUnscopedMappings() {
+        assertEquals(Set.of("3"), ids(table.candidates("GET", "billing")));
+    }
+
+    @Test
+    public void candidates_whenNoHint_shouldReturnAllMappingsOfMethod() {
+        assertEquals(Set.of("1", "2", "3"), ids(table.candidates("GET")));
+        assertTrue(table.candidates("POST").isEmpty());
+    }
+
+    @Test
+    public void routeHint_whenRouteDeclaresRoles_shouldProvideDefaultMapping() {
+        RouteHint hint = RouteHint.of(Map.of(
+                RouteHint.NAMESPACE_OBJECT, "contact",
+                RouteHint.SERVICE_PATH, "/contact/{objectId}",
+                RouteHint.ROLES, "viewer, editor"), "namespace_object");
+
+        assertTrue(hint.hasDefaultMapping());
+        assertEquals("contact", hint.getService());
+        assertEquals("contact", hint.getVariables().get("ctx.namespace_object"));
+
+        CompiledMapping mapping = new CompiledMapping(hint.defaultMapping());
+        assertEquals(List.of("viewer", "editor"), mapping.getEntity().getRoles());
+        assertEquals("{path.objectId}", mapping.getEntity().getObject());
+        assertEquals(Map.of("objectId", "7"), mapping.match(PathContainer.parsePath("/contact/7")));
+    }
+
+    @Test
+    public void match_whenPathIsPercentEncoded_shouldKeepVariablesEncoded() {
+        CompiledMapping mapping = new CompiledMapping(mapping("1", "contact", "/contact/{id}"));
+
+        assertEquals(Map.of("id", "a%40b"), mapping.match(CompiledMapping.path("/contact/a%40b")));
+        assertEquals(Map.of("id", "a%20b"), mapping.match(CompiledMapping.path("/contact/a%20b")));
+    }
+
+    @Test
+    public void routeHint_whenNoExtensions_shouldBeNull() {
+        assertNull(RouteHint.of(Map.of(), "namespace_object"));
+    }
+
+    private static MappingEntity mapping(String id, String service, String path) {
+        return MappingEntity.builder().id(id).method(HttpMethod.GET).path(path).service(service).build();
+    }
+
+    private static Set<String> ids(List<CompiledMapping> mappings) {
+        return mappings.stream().map(m -> m.getEntity().getId()).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.authserver.service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+    @Test
+    public void run_whenCallsOverlap_shouldExecuteOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<String> leader = executor.submit(() -> flight.run("group:a", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            started.await();
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executor.submit(() -> flight.run("group:a", () -> {
+                    executions.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (((ThreadPoolExecutor) executor).getActiveCount() < 8) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(100); // followers reach the in-flight call
+            release.countDown();
+
+            assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(0, flight.inFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void run_whenExecutionFails_shouldRethrowAndReleaseKey() {
+        assertThrows(IllegalStateException.class, () -> flight.run("group:a", () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        assertEquals("ok", flight.run("group:a", () -> "ok"));
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    public void run_whenWaiterPassesItsDeadline_shouldThrowItsTimeout() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = executor.submit(() -> flight.run("group:a", () -> {
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            started.await();
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+            assertThrows(IllegalStateException.class, () -> flight.run("group:a", () -> "other", deadline,
+                    () -> new IllegalStateException("deadline")));
+
+            release.countDown();
+            assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
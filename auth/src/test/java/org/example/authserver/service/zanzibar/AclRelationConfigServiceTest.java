@@ -0,0 +1,83 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.AclRelation;
+import authserver.acl.AclRelationConfig;
+import org.example.authserver.repo.AclRelationConfigRepository;
+import org.example.authserver.repo.SubscriptionRepository;
+import org.example.authserver.service.CacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AclRelationConfigServiceTest {
+
+    private final Map<String, AclRelationConfig> configs = new HashMap<>();
+    private AclRelationConfigService service;
+
+    @BeforeEach
+    void setUp() {
+        CacheService cacheService = mock(CacheService.class);
+        when(cacheService.getConfigs()).thenReturn(configs);
+        service = new AclRelationConfigService(mock(AclRelationConfigRepository.class), cacheService, mock(SubscriptionRepository.class));
+    }
+
+    @Test
+    public void update_whenNamespaceIsRemoved_shouldDropItsRelations() {
+        configs.put("doc:*", config("doc:*", "viewer"));
+        configs.put("group:*", config("group:*", "member"));
+        service.update();
+        assertNotNull(service.getConfigRelation("group:*", "member"));
+
+        configs.remove("group:*");
+        service.update();
+
+        assertNull(service.getConfig("group:*"));
+        assertNull(service.getConfigRelation("group:*", "member"));
+        assertNotNull(service.getConfigRelation("doc:*", "viewer"));
+    }
+
+    @Test
+    public void update_whenConfigIsUnchanged_shouldReuseCompiledNamespace() {
+        configs.put("doc:*", config("doc:*", "viewer"));
+        configs.put("group:*", config("group:*", "member"));
+        service.update();
+        RelationConfigSnapshot before = service.getSnapshot();
+
+        configs.put("group:*", config("group:*", "admin"));
+        service.update();
+        RelationConfigSnapshot after = service.getSnapshot();
+
+        assertNotSame(before, after);
+        assertSame(before.getNamespaces().get("doc:*"), after.getNamespaces().get("doc:*"));
+        assertNotSame(before.getNamespaces().get("group:*"), after.getNamespaces().get("group:*"));
+        assertNull(service.getConfigRelation("group:*", "member"));
+        assertNotNull(service.getConfigRelation("group:*", "admin"));
+    }
+
+    @Test
+    public void updateSingle_shouldLeaveOtherNamespacesUntouched() {
+        configs.put("doc:*", config("doc:*", "viewer"));
+        service.update();
+        RelationConfigSnapshot before = service.getSnapshot();
+
+        service.update(config("group:*", "member"));
+
+        assertSame(before.getNamespaces().get("doc:*"), service.getSnapshot().getNamespaces().get("doc:*"));
+        assertNotNull(service.getConfigRelation("group:*", "member"));
+        assertNull(before.getConfig("group:*"));
+    }
+
+    private static AclRelationConfig config(String namespace, String relation) {
+        String[] parts = namespace.split(":");
+        return AclRelationConfig.builder()
+                .namespace(namespace)
+                .relations(Set.of(AclRelation.builder().object(parts[1]).relation(relation).build()))
+                .build();
+    }
+}
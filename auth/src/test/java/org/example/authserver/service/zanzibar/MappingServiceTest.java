@@ -0,0 +1,73 @@
+package org.example.authserver.service.zanzibar;
+
+import io.envoyproxy.envoy.service.auth.v3.AttributeContext;
+import io.envoyproxy.envoy.service.auth.v3.CheckRequest;
+import org.example.authserver.config.AppProperties;
+import org.example.authserver.entity.MappingEntity;
+import org.example.authserver.service.MappingCacheService;
+import org.example.authserver.service.model.CompiledMapping;
+import org.example.authserver.service.model.MappingTable;
+import org.example.authserver.service.model.RouteHint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MappingServiceTest {
+
+    private static final Map<String, String> ROUTE = Map.of(
+            RouteHint.NAMESPACE_OBJECT, "contact",
+            RouteHint.SERVICE_PATH, "/contact/{objectId}",
+            RouteHint.ROLES, "viewer");
+
+    private MappingCacheService mappingCacheService;
+    private MappingService mappingService;
+
+    @BeforeEach
+    void setUp() {
+        mappingCacheService = mock(MappingCacheService.class);
+        when(mappingCacheService.getTable()).thenReturn(MappingTable.of(List.of(
+                MappingEntity.builder().id("table").method(HttpMethod.GET).path("/contact/{id}/notes").service("contact").build())));
+        mappingService = new MappingService(mappingCacheService, new AppProperties());
+    }
+
+    @Test
+    public void findMappings_whenTableMatches_shouldNotUseRouteDefault() {
+        assertEquals(Set.of("table"), ids(mappingService.findMappings(request("GET", "/contact/7/notes", ROUTE))));
+    }
+
+    @Test
+    public void findMappings_whenTableHasNoMatch_shouldFallBackToRouteDefault() {
+        assertEquals(Set.of("route:/contact/{objectId}"), ids(mappingService.findMappings(request("DELETE", "/contact/7", ROUTE))));
+    }
+
+    @Test
+    public void findMappings_whenRouteNamesOtherMethod_shouldSkipRouteDefault() {
+        Map<String, String> route = new HashMap<>(ROUTE);
+        route.put(RouteHint.METHOD, "get");
+
+        assertEquals(Set.of("route:/contact/{objectId}"), ids(mappingService.findMappings(request("GET", "/contact/7", route))));
+        assertTrue(mappingService.findMappings(request("DELETE", "/contact/7", route)).isEmpty());
+    }
+
+    private static Set<String> ids(Map<CompiledMapping, Map<String, String>> mappings) {
+        return mappings.keySet().stream().map(mapping -> mapping.getEntity().getId()).collect(Collectors.toSet());
+    }
+
+    private static CheckRequest request(String method, String path, Map<String, String> extensions) {
+        return CheckRequest.newBuilder()
+                .setAttributes(AttributeContext.newBuilder()
+                        .putAllContextExtensions(extensions)
+                        .setRequest(AttributeContext.Request.newBuilder()
+                                .setHttp(AttributeContext.HttpRequest.newBuilder().setMethod(method).setPath(path))))
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import org.example.authserver.repo.AclRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ResourceWalkTest {
+
+    private AclRepository repository;
+    private AclRelationConfigService relationConfigService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AclRepository.class);
+        relationConfigService = mock(AclRelationConfigService.class);
+        when(relationConfigService.nestedRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+    }
+
+    @Test
+    public void next_whenAccessIsThroughNestedGroups_shouldEmitObjectsPerDepth() {
+        when(repository.findAllByPrincipal("user1")).thenReturn(Set.of(
+                Acl.create("contact:1#viewer@user1"),
+                Acl.create("group:devs#member@user1")));
+        givenUsersets(Map.of(
+                "group:devs", Set.of(Acl.create("group:eng#member@group:devs#member")),
+                "group:eng", Set.of(
+                        Acl.create("contact:2#viewer@group:eng#member"),
+                        Acl.create("contact:3#editor@group:eng#member"))));
+
+        ResourceWalk walk = new ResourceWalk(repository, relationConfigService, "contact", "viewer", "user1");
+
+        assertEquals(List.of("1"), walk.next());
+        assertEquals(List.of(), walk.next());
+        assertEquals(List.of("2"), walk.next());
+        assertFalse(walk.isDone());
+        assertEquals(List.of(), walk.next());
+        assertTrue(walk.isDone());
+    }
+
+    @Test
+    public void next_whenUsersetRelationIsNotHeld_shouldNotFollowEdge() {
+        when(repository.findAllByPrincipal("user1")).thenReturn(Set.of(
+                Acl.create("group:devs#member@user1")));
+        givenUsersets(Map.of(
+                "group:devs", Set.of(Acl.create("contact:1#viewer@group:devs#owner"))));
+
+        ResourceWalk walk = new ResourceWalk(repository, relationConfigService, "contact", "viewer", "user1");
+
+        assertEquals(List.of(), walk.next());
+        assertEquals(List.of(), walk.next());
+        assertTrue(walk.isDone());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenUsersets(Map<String, Set<Acl>> aclsByUserset) {
+        when(repository.findAllByUsersetIn(anyList())).thenAnswer(invocation -> {
+            Set<Acl> result = new HashSet<>();
+            for (String nsObject : (List<String>) invocation.getArgument(0)) {
+                result.addAll(aclsByUserset.getOrDefault(nsObject, Set.of()));
+            }
+            return result;
+        });
+    }
+}
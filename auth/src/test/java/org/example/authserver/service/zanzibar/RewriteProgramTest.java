@@ -0,0 +1,72 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.AclRelation;
+import authserver.acl.AclRelationConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RewriteProgramTest {
+
+    private final RewriteProgram program = RewriteProgram.compile(AclRelationConfig.builder()
+            .namespace("doc:readme")
+            .relations(Set.of(
+                    relation("viewer", Set.of("banned"), Set.of()),
+                    relation("editor", Set.of(), Set.of("employee", "contractor")),
+                    relation("owner", Set.of(), Set.of())))
+            .build());
+
+    @Test
+    public void run_whenExcludedRelationIsHeld_shouldExclude() {
+        assertEquals(RewriteProgram.EXCLUDED, program.run("viewer", program.held(List.of("viewer", "banned"))));
+        assertEquals(RewriteProgram.ALLOWED, program.run("viewer", program.held(List.of("viewer"))));
+    }
+
+    @Test
+    public void run_whenNoIntersectedRelationIsHeld_shouldReject() {
+        assertEquals(RewriteProgram.NOT_INTERSECTED, program.run("editor", program.held(List.of("editor"))));
+        assertEquals(RewriteProgram.ALLOWED, program.run("editor", program.held(List.of("editor", "contractor"))));
+    }
+
+    @Test
+    public void run_whenRelationHasNoRulesOrIsUnknown_shouldAllow() {
+        long[] held = program.held(List.of("owner", "banned", "other"));
+        assertEquals(RewriteProgram.ALLOWED, program.run("owner", held));
+        assertEquals(RewriteProgram.ALLOWED, program.run("other", held));
+    }
+
+    @Test
+    public void run_whenMoreThan64Relations_shouldUseSeveralWords() {
+        Set<AclRelation> relations = IntStream.range(0, 100)
+                .mapToObj(i -> relation("r" + i, Set.of(), Set.of()))
+                .collect(Collectors.toCollection(HashSet::new));
+        relations.add(relation("viewer", Set.of("r99"), Set.of()));
+        RewriteProgram wide = RewriteProgram.compile(AclRelationConfig.builder().namespace("doc:readme").relations(relations).build());
+
+        assertEquals(RewriteProgram.EXCLUDED, wide.run("viewer", wide.held(List.of("viewer", "r99"))));
+        assertEquals(RewriteProgram.ALLOWED, wide.run("viewer", wide.held(List.of("viewer", "r1"))));
+    }
+
+    @Test
+    public void compile_whenConfigHasNoRules_shouldReturnNull() {
+        assertNull(RewriteProgram.compile(AclRelationConfig.builder()
+                .namespace("doc:readme")
+                .relations(Set.of(relation("viewer", Set.of(), Set.of())))
+                .build()));
+    }
+
+    private static AclRelation relation(String name, Set<String> exclusions, Set<String> intersections) {
+        return AclRelation.builder()
+                .object("readme")
+                .relation(name)
+                .exclusions(exclusions)
+                .intersections(intersections)
+                .build();
+    }
+}
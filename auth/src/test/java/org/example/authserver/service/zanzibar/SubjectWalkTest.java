@@ -0,0 +1,76 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import org.example.authserver.entity.AclFilter;
+import org.example.authserver.repo.AclRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SubjectWalkTest {
+
+    @Test
+    public void next_whenGroupsAreNestedAndCyclic_shouldVisitEachUsersetOnce() {
+        AclRepository repository = mock(AclRepository.class);
+        AclRelationConfigService relationConfigService = mockConfig();
+
+        when(repository.findPage(eq(filter("contact", "1")), isNull(), anyInt())).thenReturn(List.of(
+                Acl.create("contact:1#editor@user1"),
+                Acl.create("contact:1#viewer@user2"),
+                Acl.create("contact:1#editor@group:eng#member")));
+        when(repository.findPage(eq(filter("group", "eng")), isNull(), anyInt())).thenReturn(List.of(
+                Acl.create("group:eng#member@user3"),
+                Acl.create("group:eng#member@group:devs#member")));
+        when(repository.findPage(eq(filter("group", "devs")), isNull(), anyInt())).thenReturn(List.of(
+                Acl.create("group:devs#member@user4"),
+                Acl.create("group:devs#member@group:eng#member")));
+
+        SubjectWalk walk = new SubjectWalk(repository, relationConfigService, "contact", "1", "editor");
+        List<String> principals = new ArrayList<>();
+        while (!walk.isDone()) {
+            principals.addAll(walk.next());
+        }
+
+        assertEquals(List.of("user1", "user3", "user4"), principals);
+        verify(repository, times(1)).findPage(eq(filter("group", "eng")), any(), anyInt());
+    }
+
+    @Test
+    public void next_whenObjectSpansPages_shouldContinueAfterLastId() {
+        AclRepository repository = mock(AclRepository.class);
+        List<Acl> firstPage = IntStream.range(0, SubjectWalk.PAGE_SIZE)
+                .mapToObj(i -> Acl.create("contact:1#viewer@user" + i))
+                .collect(Collectors.toList());
+        String lastId = firstPage.get(firstPage.size() - 1).getId().toString();
+        when(repository.findPage(eq(filter("contact", "1")), isNull(), anyInt())).thenReturn(firstPage);
+        when(repository.findPage(eq(filter("contact", "1")), eq(lastId), anyInt())).thenReturn(List.of(Acl.create("contact:1#viewer@last")));
+
+        SubjectWalk walk = new SubjectWalk(repository, mockConfig(), "contact", "1", "viewer");
+        List<String> principals = new ArrayList<>();
+        while (!walk.isDone()) {
+            principals.addAll(walk.next());
+        }
+
+        assertEquals(SubjectWalk.PAGE_SIZE + 1, principals.size());
+        assertEquals("last", principals.get(principals.size() - 1));
+    }
+
+    private static AclRelationConfigService mockConfig() {
+        AclRelationConfigService relationConfigService = mock(AclRelationConfigService.class);
+        when(relationConfigService.nestedRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        return relationConfigService;
+    }
+
+    private static AclFilter filter(String namespace, String object) {
+        return AclFilter.builder().namespace(namespace).object(object).build();
+    }
+}
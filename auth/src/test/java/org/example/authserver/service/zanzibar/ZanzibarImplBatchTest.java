@@ -0,0 +1,78 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import org.example.authserver.entity.BatchCheckItem;
+import org.example.authserver.entity.BatchCheckItemResult;
+import org.example.authserver.repo.AclRepository;
+import org.example.authserver.service.model.RequestCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ZanzibarImplBatchTest {
+
+    private final Map<String, Set<Acl>> tuples = new HashMap<>();
+    private AclRepository repository;
+    private ZanzibarImpl zanzibar;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AclRepository.class);
+        when(repository.findAllByNsObjectIn(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+                .flatMap(nsObject -> tuples.getOrDefault(nsObject, Set.of()).stream())
+                .collect(Collectors.toSet()));
+        when(repository.findAllByPrincipal("alice")).thenReturn(Set.of(Acl.create("group:a#member@alice")));
+        AclRelationConfigService relationConfigService = mock(AclRelationConfigService.class);
+        when(relationConfigService.nestedRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        when(relationConfigService.rootRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        tuple("doc:1#viewer@group:a#member");
+        tuple("doc:2#viewer@group:b#member");
+        tuple("doc:3#editor@group:a#member");
+        zanzibar = new ZanzibarImpl(repository, relationConfigService);
+    }
+
+    @Test
+    public void checkBatch_whenItemsDiffer_shouldAnswerEachItem() {
+        List<BatchCheckItemResult> results = zanzibar.checkBatch("alice", List.of(
+                item("doc", "1", "viewer"),
+                item("doc", "2", "viewer"),
+                item("doc", "3", "editor"),
+                item("doc", "3", "viewer")), new RequestCache());
+
+        assertEquals(4, results.size());
+        assertEquals(List.of(true, false, true, false), results.stream().map(BatchCheckItemResult::isAllowed).collect(Collectors.toList()));
+        assertEquals("2", results.get(1).getObject());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void checkBatch_whenObjectsDiffer_shouldShareOneExpansion() {
+        zanzibar.checkBatch("alice", List.of(
+                item("doc", "1", "viewer"),
+                item("doc", "2", "viewer"),
+                item("doc", "3", "editor")), new RequestCache());
+
+        ArgumentCaptor<List<String>> queries = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeastOnce()).findAllByNsObjectIn(queries.capture());
+        assertTrue(queries.getAllValues().get(0).containsAll(List.of("doc:1", "doc:2", "doc:3")));
+        verify(repository, times(1)).findAllByPrincipal("alice");
+    }
+
+    private static BatchCheckItem item(String namespace, String object, String relation) {
+        return BatchCheckItem.builder().namespace(namespace).object(object).relation(relation).build();
+    }
+
+    private void tuple(String expr) {
+        Acl acl = Acl.create(expr);
+        tuples.computeIfAbsent(acl.getNsObject(), k -> new HashSet<>()).add(acl);
+    }
+}
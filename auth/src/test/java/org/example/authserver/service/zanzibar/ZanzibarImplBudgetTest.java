@@ -0,0 +1,118 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import org.example.authserver.config.BudgetConfig;
+import org.example.authserver.config.EvaluationStrategy;
+import org.example.authserver.entity.CheckResult;
+import org.example.authserver.repo.AclRepository;
+import org.example.authserver.service.model.EvaluationBudget;
+import org.example.authserver.service.model.RequestCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ZanzibarImplBudgetTest {
+
+    private final Map<String, Set<Acl>> tuples = new HashMap<>();
+    private AclRepository repository;
+    private AclRelationConfigService relationConfigService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AclRepository.class);
+        when(repository.findAllByNsObjectIn(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+                .flatMap(nsObject -> tuples.getOrDefault(nsObject, Set.of()).stream())
+                .collect(Collectors.toSet()));
+        relationConfigService = mock(AclRelationConfigService.class);
+        when(relationConfigService.nestedRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        when(relationConfigService.rootRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+    }
+
+    @Test
+    public void check_whenUsersetsAreCyclic_shouldTerminate() {
+        tuple("doc:1#viewer@group:a#member");
+        tuple("group:a#member@group:b#member");
+        tuple("group:b#member@group:a#member");
+        when(repository.findAllByPrincipal("alice")).thenReturn(Set.of(Acl.create("group:b#member@alice")));
+        when(repository.findAllByPrincipal("bob")).thenReturn(Set.of(Acl.create("group:c#member@bob")));
+        ZanzibarImpl zanzibar = new ZanzibarImpl(repository, relationConfigService);
+
+        assertTrue(zanzibar.check("doc", "1", "viewer", "alice", new RequestCache()).isResult());
+        assertFalse(zanzibar.check("doc", "1", "viewer", "bob", new RequestCache()).isResult());
+    }
+
+    @Test
+    public void check_whenChainIsDeeperThanBudget_shouldDenyAsExceeded() {
+        chain(10);
+        BudgetConfig config = new BudgetConfig();
+        config.setMaxQueries(3);
+        ZanzibarImpl zanzibar = new ZanzibarImpl(repository, relationConfigService, EvaluationStrategy.ITERATIVE, config);
+
+        CheckResult result = zanzibar.check("doc", "1", "viewer", "alice", new RequestCache());
+
+        assertFalse(result.isResult());
+        assertTrue(result.isBudgetExceeded());
+    }
+
+    @Test
+    public void getRelations_whenChainIsDeeperThanBudget_shouldMarkRequestExceeded() {
+        chain(10);
+        BudgetConfig config = new BudgetConfig();
+        config.setMaxQueries(3);
+        ZanzibarImpl zanzibar = new ZanzibarImpl(repository, relationConfigService, EvaluationStrategy.ITERATIVE, config);
+        RequestCache requestCache = new RequestCache();
+
+        Set<String> relations = zanzibar.getRelations("doc", "1", "alice", requestCache);
+
+        assertTrue(relations.isEmpty());
+        assertTrue(requestCache.isBudgetExceeded());
+    }
+
+    @Test
+    public void check_whenBudgetExceededAndPolicyIsFail_shouldThrow() {
+        chain(10);
+        BudgetConfig config = new BudgetConfig();
+        config.setMaxDepth(4);
+        config.setOnExceeded(BudgetConfig.OnExceeded.FAIL);
+        ZanzibarImpl zanzibar = new ZanzibarImpl(repository, relationConfigService, EvaluationStrategy.ITERATIVE, config);
+
+        EvaluationBudget.ExceededException e = assertThrows(EvaluationBudget.ExceededException.class,
+                () -> zanzibar.check("doc", "1", "viewer", "alice", new RequestCache()));
+        assertEquals(EvaluationBudget.Reason.DEPTH, e.getReason());
+    }
+
+    @Test
+    public void check_whenChainFitsBudget_shouldAllow() {
+        chain(10);
+        ZanzibarImpl zanzibar = new ZanzibarImpl(repository, relationConfigService);
+
+        CheckResult result = zanzibar.check("doc", "1", "viewer", "alice", new RequestCache());
+
+        assertTrue(result.isResult());
+        assertFalse(result.isBudgetExceeded());
+    }
+
+    /**
+     * doc:1#viewer <- group:0#member <- ... <- group:n-1#member <- alice
+     */
+    private void chain(int length) {
+        tuple("doc:1#viewer@group:0#member");
+        for (int i = 0; i + 1 < length; i++) {
+            tuple(String.format("group:%s#member@group:%s#member", i, i + 1));
+        }
+        when(repository.findAllByPrincipal("alice")).thenReturn(Set.of(Acl.create(String.format("group:%s#member@alice", length - 1))));
+    }
+
+    private void tuple(String expr) {
+        Acl acl = Acl.create(expr);
+        tuples.computeIfAbsent(acl.getNsObject(), k -> new HashSet<>()).add(acl);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import org.example.authserver.config.BudgetConfig;
+import org.example.authserver.config.EvaluationStrategy;
+import org.example.authserver.entity.ExplainResult;
+import org.example.authserver.repo.AclRepository;
+import org.example.authserver.service.model.ExplainNode;
+import org.example.authserver.service.model.RequestCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ZanzibarImplExplainTest {
+
+    private final Map<String, Set<Acl>> tuples = new HashMap<>();
+    private AclRepository repository;
+    private AclRelationConfigService relationConfigService;
+    private ZanzibarImpl zanzibar;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AclRepository.class);
+        when(repository.findAllByNsObjectIn(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0).stream()
+                .flatMap(nsObject -> tuples.getOrDefault(nsObject, Set.of()).stream())
+                .collect(Collectors.toSet()));
+        when(repository.findAllByPrincipal("alice")).thenReturn(Set.of(Acl.create("group:a#member@alice")));
+        relationConfigService = mock(AclRelationConfigService.class);
+        when(relationConfigService.nestedRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        when(relationConfigService.rootRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        tuple("doc:1#viewer@group:a#member");
+        zanzibar = new ZanzibarImpl(repository, relationConfigService);
+    }
+
+    @Test
+    public void explain_whenAllowedThroughUserset_shouldRecordPlan() {
+        ExplainResult result = zanzibar.explain("doc", "1", "viewer", "alice");
+
+        assertTrue(result.isResult());
+        ExplainNode plan = result.getPlan();
+        assertEquals("check", plan.getType());
+        assertEquals("doc:1#viewer@alice", plan.getLabel());
+        List<String> types = new ArrayList<>();
+        collectTypes(plan, types);
+        assertTrue(types.contains("expand"));
+        assertTrue(types.contains("query"));
+        assertTrue(types.contains("tuple"));
+        assertTrue(types.contains("lookup"));
+        assertTrue(types.contains("userset"));
+    }
+
+    @Test
+    public void check_whenNotExplaining_shouldNotRecordPlan() {
+        RequestCache requestCache = new RequestCache();
+
+        assertTrue(zanzibar.check("doc", "1", "viewer", "alice", requestCache).isResult());
+        assertNull(requestCache.getExplain());
+    }
+
+    @Test
+    public void explain_whenBudgetIsExceededInLookup_shouldCloseOpenNodes() {
+        when(repository.findAllByNsObjectIn(List.of("group:a"))).thenAnswer(invocation -> {
+            Thread.sleep(100); // the deadline passes after the last expansion, during the lookup
+            return Set.of();
+        });
+        BudgetConfig config = new BudgetConfig();
+        config.setTimeoutMs(50);
+        zanzibar = new ZanzibarImpl(repository, relationConfigService, EvaluationStrategy.ITERATIVE, config);
+
+        ExplainResult result = zanzibar.explain("doc", "1", "viewer", "alice");
+
+        assertFalse(result.isResult());
+        List<String> rootTypes = result.getPlan().getChildren().stream().map(ExplainNode::getType).collect(Collectors.toList());
+        assertTrue(rootTypes.contains("lookup"));
+        assertTrue(rootTypes.contains("budget"));
+    }
+
+    private void collectTypes(ExplainNode node, List<String> types) {
+        for (ExplainNode child : node.getChildren()) {
+            types.add(child.getType());
+            collectTypes(child, types);
+        }
+    }
+
+    private void tuple(String expr) {
+        Acl acl = Acl.create(expr);
+        tuples.computeIfAbsent(acl.getNsObject(), k -> new HashSet<>()).add(acl);
+    }
+}
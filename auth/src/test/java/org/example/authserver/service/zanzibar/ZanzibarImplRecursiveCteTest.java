@@ -0,0 +1,54 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import org.example.authserver.config.EvaluationStrategy;
+import org.example.authserver.repo.AclRepository;
+import org.example.authserver.service.model.RequestCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ZanzibarImplRecursiveCteTest {
+
+    private AclRepository repository;
+    private ZanzibarImpl zanzibar;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AclRepository.class);
+        AclRelationConfigService relationConfigService = mock(AclRelationConfigService.class);
+        when(relationConfigService.nestedRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        when(relationConfigService.rootRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        zanzibar = new ZanzibarImpl(repository, relationConfigService, EvaluationStrategy.RECURSIVE_CTE);
+    }
+
+    @Test
+    public void check_whenGroupsAreNested_shouldLoadUsersetsInOneQuery() {
+        when(repository.findAllByPrincipal("alice")).thenReturn(Set.of(Acl.create("group:b#member@alice")));
+        when(repository.findUsersetClosure(anyList())).thenReturn(Set.of(
+                Acl.create("doc:1#viewer@group:a#member"),
+                Acl.create("group:a#member@group:b#member")));
+
+        assertTrue(zanzibar.check("doc", "1", "viewer", "alice", new RequestCache()).isResult());
+
+        verify(repository, times(1)).findUsersetClosure(anyList());
+        verify(repository, never()).findAllByNsObjectIn(anyList());
+    }
+
+    @Test
+    public void check_whenPrincipalIsNotInChain_shouldDeny() {
+        when(repository.findAllByPrincipal("bob")).thenReturn(Set.of(Acl.create("group:c#member@bob")));
+        when(repository.findUsersetClosure(anyList())).thenReturn(Set.of(
+                Acl.create("doc:1#viewer@group:a#member")));
+
+        assertFalse(zanzibar.check("doc", "1", "viewer", "bob", new RequestCache()).isResult());
+        verify(repository, times(1)).findUsersetClosure(anyList());
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.authserver.service.zanzibar;
+
+import authserver.acl.Acl;
+import org.example.authserver.repo.AclRepository;
+import org.example.authserver.service.model.RequestCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ZanzibarImplSharedQueryTest {
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ZanzibarImpl zanzibar;
+
+    @BeforeEach
+    void setUp() {
+        AclRepository repository = mock(AclRepository.class);
+        when(repository.findAllByNsObjectIn(anyList())).thenAnswer(invocation -> {
+            if (executions.incrementAndGet() == 1) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            } else {
+                release.countDown();
+            }
+            return Set.of(Acl.create("doc:1#viewer@alice"));
+        });
+        when(repository.findAllByPrincipal(anyString())).thenReturn(Set.of());
+        AclRelationConfigService relationConfigService = mock(AclRelationConfigService.class);
+        when(relationConfigService.nestedRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        when(relationConfigService.rootRelations(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Set.of(invocation.getArgument(2, String.class)));
+        zanzibar = new ZanzibarImpl(repository, relationConfigService);
+    }
+
+    @Test
+    public void check_whenInFlightQueryIsAtOlderRevision_shouldNotShareIt() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> stale = executor.submit(() -> zanzibar.check("doc", "1", "viewer", "alice", new RequestCache()).isResult());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Boolean> fresh = executor.submit(() -> zanzibar.check("doc", "1", "viewer", "alice", new RequestCache().minRevision(5)).isResult());
+
+            assertTrue(fresh.get(5, TimeUnit.SECONDS));
+            assertTrue(stale.get(5, TimeUnit.SECONDS));
+            assertEquals(2, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}